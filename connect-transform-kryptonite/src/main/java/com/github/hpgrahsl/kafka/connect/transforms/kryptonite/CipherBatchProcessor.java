@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.connect.transforms.kryptonite;
+
+import static org.apache.kafka.connect.transforms.util.Requirements.requireStruct;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.errors.DataException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies a configured {@link CipherField} to whole batches of records, e.g. from within {@code SinkTask.put},
+ * instead of one record at a time. Records are grouped by their partition, their schema and the key identifier
+ * they get encrypted with so that each group is processed with the struct copy plan being resolved only once and
+ * with the keyset of a single key identifier. Optionally, groups are processed in parallel whereas the records
+ * of a group, and hence of a partition, are always processed in order. The resulting records are returned in the
+ * same order as given.
+ */
+public class CipherBatchProcessor<R extends ConnectRecord<R>> implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CipherBatchProcessor.class);
+
+  private final CipherField<R> cipherField;
+  private final ExecutorService executor;
+
+  public CipherBatchProcessor(CipherField<R> cipherField) {
+    this(cipherField, 1);
+  }
+
+  /**
+   * @param cipherField the already configured SMT instance which defines how to process the records
+   * @param parallelism the max. number of record groups, i.e. distinct partition / schema / key identifier
+   * combinations, to process concurrently (1 processes all on the calling thread)
+   */
+  public CipherBatchProcessor(CipherField<R> cipherField, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("error: parallelism must be at least 1 but was " + parallelism);
+    }
+    this.cipherField = cipherField;
+    this.executor = parallelism > 1 ? Executors.newFixedThreadPool(parallelism, new DaemonThreadFactory()) : null;
+  }
+
+  public List<R> process(Collection<R> records) {
+    @SuppressWarnings("unchecked")
+    var batch = (R[]) records.toArray(new ConnectRecord<?>[0]);
+    var results = Arrays.copyOf(batch, batch.length);
+    var groups = groupByPartitionSchemaAndKeyId(batch);
+    LOGGER.debug("processing batch of {} records in {} group(s)", batch.length, groups.size());
+    if (executor == null || groups.size() == 1) {
+      groups.forEach(indices -> processGroup(batch, indices, results));
+      return Arrays.asList(results);
+    }
+    var tasks = new ArrayList<Callable<Void>>(groups.size());
+    groups.forEach(indices -> tasks.add(() -> {
+      processGroup(batch, indices, results);
+      return null;
+    }));
+    try {
+      for (var future : executor.invokeAll(tasks)) {
+        future.get();
+      }
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new DataException("error: processing the batch of records failed", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DataException("error: processing the batch of records was interrupted", e);
+    }
+    return Arrays.asList(results);
+  }
+
+  @Override
+  public void close() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  private void processGroup(R[] batch, List<Integer> indices, R[] results) {
+    Schema lastSchema = null;
+    StructCopyPlan lastPlan = null;
+    for (int i : indices) {
+      var record = batch[i];
+      if (cipherField.operatingSchema(record) == null) {
+        results[i] = cipherField.processWithoutSchema(record);
+        continue;
+      }
+      if (!cipherField.usesStructPlans()) {
+        results[i] = cipherField.processWithSchema(record);
+        continue;
+      }
+      var valueStruct = requireStruct(cipherField.operatingValue(record), CipherField.PURPOSE);
+      if (valueStruct.schema() != lastSchema) {
+        lastSchema = valueStruct.schema();
+        lastPlan = cipherField.resolveStructPlan(lastSchema);
+      }
+      results[i] = cipherField.processWithSchema(record, valueStruct, lastPlan);
+    }
+  }
+
+  Collection<List<Integer>> groupByPartitionSchemaAndKeyId(R[] batch) {
+    var groups = new LinkedHashMap<GroupKey, List<Integer>>();
+    for (int i = 0; i < batch.length; i++) {
+      var groupKey = new GroupKey(batch[i].kafkaPartition(),
+          cipherField.operatingSchema(batch[i]), cipherField.resolveDynamicKeyId(batch[i]));
+      groups.computeIfAbsent(groupKey, gk -> new ArrayList<>()).add(i);
+    }
+    return groups.values();
+  }
+
+  /**
+   * Schemas are compared by identity just like for looking up struct copy plans.
+   */
+  private static final class GroupKey {
+
+    private final Integer partition;
+    private final Schema schema;
+    private final String keyId;
+
+    private GroupKey(Integer partition, Schema schema, String keyId) {
+      this.partition = partition;
+      this.schema = schema;
+      this.keyId = keyId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof GroupKey)) return false;
+      var that = (GroupKey) o;
+      return schema == that.schema && Objects.equals(partition, that.partition) && Objects.equals(keyId, that.keyId);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * Objects.hashCode(partition) + System.identityHashCode(schema)) + Objects.hashCode(keyId);
+    }
+
+  }
+
+  private static final class DaemonThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      var thread = new Thread(runnable, "kryptonite-batch-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+
+  }
+
+}
@@ -22,12 +22,18 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.hpgrahsl.kafka.connect.transforms.kryptonite.validators.*;
 import com.github.hpgrahsl.kryptonite.CipherMode;
 import com.github.hpgrahsl.kryptonite.Kryptonite;
+import com.github.hpgrahsl.kryptonite.KryptoniteRegistry;
+import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings.CipherMetadataMode;
+import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings.CipherScope;
+import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings.EnvelopeMode;
+import com.github.hpgrahsl.kryptonite.crypto.jdk.JdkHmacSha256;
 import com.github.hpgrahsl.kryptonite.serdes.KryoSerdeProcessor;
 import org.apache.kafka.common.cache.Cache;
 import org.apache.kafka.common.cache.LRUCache;
 import org.apache.kafka.common.cache.SynchronizedCache;
 import org.apache.kafka.common.config.ConfigDef;
 import org.apache.kafka.common.config.ConfigDef.NonEmptyString;
+import org.apache.kafka.common.config.ConfigDef.Range;
 import org.apache.kafka.common.config.ConfigDef.Type;
 import org.apache.kafka.common.config.ConfigException;
 import org.apache.kafka.connect.connector.ConnectRecord;
@@ -38,7 +44,6 @@ import org.apache.kafka.connect.transforms.util.SimpleConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -71,11 +76,13 @@ public abstract class CipherField<R extends ConnectRecord<R>> implements Transfo
       .define(FIELD_MODE, Type.STRING, FIELD_MODE_DEFAULT, new FieldModeValidator(), ConfigDef.Importance.MEDIUM,
           "defines how to process complex field types (maps, lists, structs), either as full objects or element-wise")
       .define(CIPHER_ALGORITHM, Type.STRING, CIPHER_ALGORITHM_DEFAULT, new CipherNameValidator(),
-          ConfigDef.Importance.LOW, "cipher algorithm used for data encryption (currently supports only one AEAD cipher: "+CIPHER_ALGORITHM_DEFAULT+")")
+          ConfigDef.Importance.LOW, "cipher algorithm used for data encryption (either one of the AEAD ciphers or "+JdkHmacSha256.CIPHER_ALGORITHM+" for one-way pseudonyms)")
       .define(CIPHER_DATA_KEYS, Type.PASSWORD, CIPHER_DATA_KEYS_DEFAULT,
           ConfigDef.Importance.HIGH, "JSON array with data key objects specifying the key identifiers together with key sets for encryption / decryption which are defined in Tink's key specification format")
       .define(CIPHER_DATA_KEY_IDENTIFIER, Type.STRING, CIPHER_DATA_KEY_IDENTIFIER_DEFAULT,
           ConfigDef.Importance.HIGH, "secret key identifier to be used as default data encryption key for all fields which don't refer to a field-specific secret key identifier")
+      .define(DYNAMIC_KEY_ID_PREFIX, Type.STRING, DYNAMIC_KEY_ID_PREFIX_DEFAULT, new NonEmptyString(), ConfigDef.Importance.LOW,
+          "prefix which marks a secret key identifier as dynamic, i.e. the remainder is a field path into the record from which the actual key identifier is read per record")
       .define(CIPHER_TEXT_ENCODING, Type.STRING, CIPHER_TEXT_ENCODING_DEFAULT, new CipherEncodingValidator(),
           ConfigDef.Importance.LOW, "defines the encoding of the resulting ciphertext bytes (currently only supports 'base64')")
       .define(CIPHER_MODE, Type.STRING, ConfigDef.NO_DEFAULT_VALUE, new CipherModeValidator(),
@@ -91,17 +98,43 @@ public abstract class CipherField<R extends ConnectRecord<R>> implements Transfo
       .define(KEK_CONFIG, Type.PASSWORD, KEK_CONFIG_DEFAULT, ConfigDef.Importance.LOW,
           "JSON object specifying the KMS-specific client authentication settings (currently only supports GCP Cloud KMS)")
       .define(KEK_URI, Type.PASSWORD, KEK_URI_DEFAULT, ConfigDef.Importance.LOW,
-          "remote/cloud KMS-specific URI to refer to the key encryption key if applicable (currently only supports GCP Cloud KMS key URIs)");
+          "remote/cloud KMS-specific URI to refer to the key encryption key if applicable (currently only supports GCP Cloud KMS key URIs)")
+      .define(CIPHER_ENGINE, Type.STRING, CIPHER_ENGINE_DEFAULT, new CipherEngineValidator(),
+          ConfigDef.Importance.LOW, "defines which crypto engine executes "+CIPHER_ALGORITHM_DEFAULT+" operations, either Tink itself or the wire-compatible javax.crypto based implementation")
+      .define(CIPHER_METADATA_MODE, Type.STRING, CIPHER_METADATA_MODE_DEFAULT, new CipherMetadataModeValidator(),
+          ConfigDef.Importance.LOW, "defines whether the payload meta-data (version, algorithm and key id) is kept within every encrypted field or only once per record in the '"+MetaDataHeader.VALUE_HEADER+"' (or '"+MetaDataHeader.KEY_HEADER+"') header")
+      .define(CIPHER_SCOPE, Type.STRING, CIPHER_SCOPE_DEFAULT, new CipherScopeValidator(), ConfigDef.Importance.MEDIUM,
+          "defines whether every matched field is encrypted on its own (FIELD) or all matched top-level fields are encrypted together into a single payload field (RECORD)")
+      .define(RECORD_PAYLOAD_FIELD, Type.STRING, RECORD_PAYLOAD_FIELD_DEFAULT, new NonEmptyString(), ConfigDef.Importance.LOW,
+          "name of the field which holds the encrypted payload in case of cipher_scope=RECORD")
+      .define(CIPHER_COMPRESSION, Type.STRING, CIPHER_COMPRESSION_DEFAULT, new CompressionTypeValidator(), ConfigDef.Importance.LOW,
+          "defines whether field values are compressed (LZ4 or ZSTD) before being encrypted or not at all (NONE)")
+      .define(CIPHER_COMPRESSION_MIN_BYTES, Type.INT, Integer.valueOf(CIPHER_COMPRESSION_MIN_BYTES_DEFAULT), Range.atLeast(0),
+          ConfigDef.Importance.LOW, "minimum size in bytes of a serialized field value to get compressed before its encryption")
+      .define(ENVELOPE_MODE, Type.STRING, ENVELOPE_MODE_DEFAULT, new EnvelopeModeValidator(), ConfigDef.Importance.MEDIUM,
+          "defines whether fields are encrypted directly with the configured keysets (NONE) or with an ephemeral data key per record which is wrapped with the default keyset and kept in the '"+DataKeyEnvelope.VALUE_HEADER+"' (or '"+DataKeyEnvelope.KEY_HEADER+"') header (DATA_KEY)")
+      .define(ENVELOPE_DATA_KEY_RECORDS, Type.LONG, Long.valueOf(ENVELOPE_DATA_KEY_RECORDS_DEFAULT), Range.atLeast(1),
+          ConfigDef.Importance.LOW, "number of consecutive records which share the same data key in case of envelope_mode=DATA_KEY")
+      .define(CIPHER_CACHE_MAX_BYTES, Type.LONG, Long.valueOf(CIPHER_CACHE_MAX_BYTES_DEFAULT), Range.atLeast(0),
+          ConfigDef.Importance.LOW, "upper bound in bytes for caching the results of deterministic encryption / decryption ("+CIPHER_CACHE_MAX_BYTES_DEFAULT+" disables the cache)")
+      .define(CIPHER_CACHE_MAX_ENTRY_BYTES, Type.LONG, Long.valueOf(CIPHER_CACHE_MAX_ENTRY_BYTES_DEFAULT), Range.atLeast(1),
+          ConfigDef.Importance.LOW, "upper bound in bytes for a single cache entry (plaintext and ciphertext) so that large values are never cached");
 
-  private static final String PURPOSE = "(de)cipher connect record fields";
+  static final String PURPOSE = "(de)cipher connect record fields";
 
   private static final Logger LOGGER = LoggerFactory.getLogger(CipherField.class);
   private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
-  private RecordHandler recordHandlerWithSchema;
-  private RecordHandler recordHandlerWithoutSchema;
+  private SchemaawareRecordHandler recordHandlerWithSchema;
+  private SchemalessRecordHandler recordHandlerWithoutSchema;
   private SchemaRewriter schemaRewriter;
-  private Cache<Schema, Schema> schemaCache;
+  private Cache<SchemaFingerprint, StructCopyPlan> schemaCache;
+  private IdentityCache<Schema, StructCopyPlan> schemaIdentityCache;
+  private CipherMode cipherMode;
+  private CipherMetadataMode metadataMode;
+  private RecordPayloadHandler recordPayloadHandler;
+  private DataKeyEnvelope dataKeyEnvelope;
+  private KryptoniteRegistry.Lease kryptoniteLease;
 
   @Override
   public R apply(R record) {
@@ -116,25 +149,72 @@ public abstract class CipherField<R extends ConnectRecord<R>> implements Transfo
   public R processWithoutSchema(R record) {
     LOGGER.debug("processing schemaless data");
     var valueMap = requireMap(operatingValue(record), PURPOSE);
-    var updatedValueMap = new LinkedHashMap<>(valueMap);
-    recordHandlerWithoutSchema.matchFields(null,valueMap,null,updatedValueMap,"");
+    var context = contextFor(record, valueMap);
+    var updatedValueMap = recordPayloadHandler != null
+        ? recordPayloadHandler.processRecord(context,valueMap)
+        : recordHandlerWithoutSchema.processRecord(context,valueMap);
     LOGGER.debug("resulting record data {}",updatedValueMap);
-    return newRecord(record,null,updatedValueMap);
+    return applyHeaders(newRecord(record,null,updatedValueMap), context);
   }
 
   public R processWithSchema(R record) {
     LOGGER.debug("processing schema-aware data");
     var valueStruct = requireStruct(operatingValue(record), PURPOSE);
-    var updatedSchema = schemaCache.get(valueStruct.schema());
-    if(updatedSchema == null) {
-      LOGGER.debug("adapting schema because record's schema not present in cache");
-      updatedSchema = schemaRewriter.adaptSchema(valueStruct.schema(),"");
-      schemaCache.put(valueStruct.schema(),updatedSchema);
-    }
-    var updatedValueStruct = new Struct(updatedSchema);
-    recordHandlerWithSchema.matchFields(valueStruct.schema(),valueStruct,updatedSchema,updatedValueStruct,"");
+    if (recordPayloadHandler != null) {
+      var context = contextFor(record, valueStruct);
+      var updatedValueStruct = recordPayloadHandler.processStruct(context,valueStruct);
+      LOGGER.debug("resulting record data {}",updatedValueStruct);
+      return applyHeaders(newRecord(record, updatedValueStruct.schema(), updatedValueStruct), context);
+    }
+    return processWithSchema(record, valueStruct, resolveStructPlan(valueStruct.schema()));
+  }
+
+  boolean usesStructPlans() {
+    return recordPayloadHandler == null;
+  }
+
+  /**
+   * @return the default key identifier the given record gets encrypted with in case it's read per record,
+   * otherwise {@code null} given that all records share it or it's only known from their ciphertexts
+   */
+  String resolveDynamicKeyId(R record) {
+    return recordHandlerWithoutSchema.hasDynamicKeyIds()
+        ? recordHandlerWithoutSchema.resolveDefaultKeyId(RecordContext.of(operatingValue(record)))
+        : null;
+  }
+
+  R processWithSchema(R record, Struct valueStruct, StructCopyPlan structPlan) {
+    var context = contextFor(record, valueStruct);
+    var updatedValueStruct = recordHandlerWithSchema.processStruct(structPlan,valueStruct,context);
     LOGGER.debug("resulting record data {}",updatedValueStruct);
-    return newRecord(record, updatedSchema, updatedValueStruct);
+    return applyHeaders(newRecord(record, structPlan.getSchemaNew(), updatedValueStruct), context);
+  }
+
+  private RecordContext contextFor(R record, Object data) {
+    var context = MetaDataHeader.contextFor(record, metaDataHeaderName(), data, cipherMode, metadataMode);
+    return dataKeyEnvelope != null ? dataKeyEnvelope.attachTo(record, dataKeyHeaderName(), context) : context;
+  }
+
+  private R applyHeaders(R record, RecordContext context) {
+    var updatedRecord = MetaDataHeader.applyTo(record, metaDataHeaderName(), context, cipherMode);
+    return dataKeyEnvelope != null ? dataKeyEnvelope.applyTo(updatedRecord, dataKeyHeaderName(), context) : updatedRecord;
+  }
+
+  StructCopyPlan resolveStructPlan(Schema schema) {
+    var structPlan = schemaIdentityCache.get(schema);
+    if(structPlan == null) {
+      var fingerprint = SchemaFingerprint.of(schema);
+      structPlan = schemaCache.get(fingerprint);
+      //NOTE: fingerprints aren't collision-resistant hence hits are verified against the plan's original schema
+      if(structPlan == null || !schema.equals(structPlan.getSchemaOriginal())) {
+        LOGGER.debug("adapting schema because record's schema not present in cache");
+        var updatedSchema = schemaRewriter.adaptSchema(schema,"");
+        structPlan = recordHandlerWithSchema.compilePlan(schema,updatedSchema);
+        schemaCache.put(fingerprint,structPlan);
+      }
+      schemaIdentityCache.put(schema,structPlan);
+    }
+    return structPlan;
   }
 
   @Override
@@ -144,18 +224,20 @@ public abstract class CipherField<R extends ConnectRecord<R>> implements Transfo
 
   @Override
   public void close() {
-
+    if (kryptoniteLease != null) {
+      kryptoniteLease.close();
+      kryptoniteLease = null;
+    }
   }
 
   @Override
   public void configure(Map<String, ?> props) {
     try {
       var config = new SimpleConfig(CONFIG_DEF, props);
-      var fieldPathMap =
-          OBJECT_MAPPER
-              .readValue(config.getString(FIELD_CONFIG), new TypeReference<Set<FieldConfig>>() {})
-              .stream().collect(Collectors.toMap(FieldConfig::getName, Function.identity()));
-      var kryptonite = Kryptonite.createFromConfig(adaptToNormalizedStringsMap(config));
+      var fieldPathMap = parseFieldConfig(config.getString(FIELD_CONFIG));
+      close();
+      kryptoniteLease = KryptoniteRegistry.acquire(adaptToNormalizedStringsMap(config));
+      var kryptonite = kryptoniteLease.kryptonite();
       var serdeProcessor = new KryoSerdeProcessor();
       recordHandlerWithSchema = new SchemaawareRecordHandler(config, serdeProcessor, kryptonite, CipherMode
           .valueOf(
@@ -165,13 +247,67 @@ public abstract class CipherField<R extends ConnectRecord<R>> implements Transfo
       schemaRewriter = new SchemaRewriter(fieldPathMap, FieldMode.valueOf(config.getString(
           FIELD_MODE)),CipherMode.valueOf(config.getString(CIPHER_MODE)), config.getString(PATH_DELIMITER));
       schemaCache = new SynchronizedCache<>(new LRUCache<>(16));
+      schemaIdentityCache = new IdentityCache<>(64);
+      cipherMode = CipherMode.valueOf(config.getString(CIPHER_MODE));
+      metadataMode = CipherMetadataMode.valueOf(config.getString(CIPHER_METADATA_MODE));
+      if (CipherScope.RECORD == CipherScope.valueOf(config.getString(CIPHER_SCOPE))
+          && Kryptonite.isPseudonymAlgorithm(config.getString(CIPHER_ALGORITHM))) {
+        throw new ConfigException(CIPHER_ALGORITHM, config.getString(CIPHER_ALGORITHM),
+            "one-way pseudonyms cannot be used for the record payload");
+      }
+      recordPayloadHandler = CipherScope.RECORD == CipherScope.valueOf(config.getString(CIPHER_SCOPE))
+          ? new RecordPayloadHandler(recordHandlerWithoutSchema, cipherMode, fieldPathMap, config.getString(RECORD_PAYLOAD_FIELD))
+          : null;
+      dataKeyEnvelope = createDataKeyEnvelope(config, fieldPathMap, kryptonite, recordHandlerWithoutSchema);
     } catch (JsonProcessingException e) {
       throw new ConfigException(e.getMessage());
+    } catch (RuntimeException e) {
+      close();
+      throw e;
     }
 
   }
 
-  private static Map<String,String> adaptToNormalizedStringsMap(SimpleConfig config) {
+  static Map<String, FieldConfig> parseFieldConfig(String fieldConfig) throws JsonProcessingException {
+    return OBJECT_MAPPER
+        .readValue(fieldConfig, new TypeReference<Set<FieldConfig>>() {})
+        .stream().collect(Collectors.toMap(FieldConfig::getName, Function.identity()));
+  }
+
+  static DataKeyEnvelope createDataKeyEnvelope(SimpleConfig config, Map<String, FieldConfig> fieldPathMap,
+      Kryptonite kryptonite, RecordHandler recordHandler) {
+    if (EnvelopeMode.DATA_KEY != EnvelopeMode.valueOf(config.getString(ENVELOPE_MODE))) {
+      return null;
+    }
+    //NOTE: all fields share the record's data key which is wrapped with the default keyset only, hence field-specific
+    // keysets would silently be downgraded to the default one and must be rejected instead
+    var defaultKeyId = config.getString(CIPHER_DATA_KEY_IDENTIFIER);
+    for (var fieldConfig : fieldPathMap.values()) {
+      var algorithm = fieldConfig.getAlgorithm().orElse(config.getString(CIPHER_ALGORITHM));
+      var keyId = fieldConfig.getKeyId().orElse(defaultKeyId);
+      if (!Kryptonite.isPseudonymAlgorithm(algorithm) && !keyId.equals(defaultKeyId)) {
+        throw new ConfigException(FIELD_CONFIG, config.getString(FIELD_CONFIG),
+            "field "+fieldConfig.getName()+" specifies key identifier "+keyId+" which differs from the default "
+                + "key identifier "+defaultKeyId+" that wraps the data keys");
+      }
+    }
+    //NOTE: all fields share the record's random data key hence deterministic encryption cannot be supported
+    var algorithms = fieldPathMap.values().stream()
+        .map(fc -> fc.getAlgorithm().orElse(config.getString(CIPHER_ALGORITHM)))
+        .collect(Collectors.toSet());
+    algorithms.add(config.getString(CIPHER_ALGORITHM));
+    algorithms.removeIf(Kryptonite::isPseudonymAlgorithm);
+    for (var algorithm : algorithms) {
+      if (Kryptonite.CipherSpec.fromName(algorithm).getAlgorithm().isDeterministic()) {
+        throw new ConfigException(ENVELOPE_MODE, config.getString(ENVELOPE_MODE),
+            "deterministic cipher algorithm "+algorithm+" cannot be used together with data keys");
+      }
+    }
+    return new DataKeyEnvelope(kryptonite, recordHandler, CipherMode.valueOf(config.getString(CIPHER_MODE)),
+        config.getLong(ENVELOPE_DATA_KEY_RECORDS));
+  }
+
+  static Map<String,String> adaptToNormalizedStringsMap(SimpleConfig config) {
     return Map.ofEntries(
       Map.entry(FIELD_CONFIG, config.getString(FIELD_CONFIG)),
       Map.entry(PATH_DELIMITER, Optional.ofNullable(config.getString(PATH_DELIMITER)).orElse(PATH_DELIMITER_DEFAULT)),
@@ -179,6 +315,7 @@ public abstract class CipherField<R extends ConnectRecord<R>> implements Transfo
       Map.entry(CIPHER_ALGORITHM, Optional.ofNullable(config.getString(CIPHER_ALGORITHM)).orElse(CIPHER_ALGORITHM_DEFAULT)),
       Map.entry(CIPHER_DATA_KEYS, Optional.ofNullable(config.getPassword(CIPHER_DATA_KEYS).value()).orElse(CIPHER_DATA_KEYS_DEFAULT)),
       Map.entry(CIPHER_DATA_KEY_IDENTIFIER, Optional.ofNullable(config.getString(CIPHER_DATA_KEY_IDENTIFIER)).orElse(CIPHER_DATA_KEY_IDENTIFIER_DEFAULT)),
+      Map.entry(DYNAMIC_KEY_ID_PREFIX, Optional.ofNullable(config.getString(DYNAMIC_KEY_ID_PREFIX)).orElse(DYNAMIC_KEY_ID_PREFIX_DEFAULT)),
       Map.entry(CIPHER_TEXT_ENCODING, Optional.ofNullable(config.getString(CIPHER_TEXT_ENCODING)).orElse(CIPHER_TEXT_ENCODING_DEFAULT)),
       Map.entry(CIPHER_MODE, config.getString(CIPHER_MODE)),
       Map.entry(KEY_SOURCE, Optional.ofNullable(config.getString(KEY_SOURCE)).orElse(KEY_SOURCE_DEFAULT)),
@@ -186,7 +323,17 @@ public abstract class CipherField<R extends ConnectRecord<R>> implements Transfo
       Map.entry(KMS_CONFIG, Optional.ofNullable(config.getPassword(KMS_CONFIG).value()).orElse(KMS_CONFIG_DEFAULT)),
       Map.entry(KEK_TYPE, Optional.ofNullable(config.getString(KEK_TYPE)).orElse(KEK_TYPE_DEFAULT)),
       Map.entry(KEK_CONFIG, Optional.ofNullable(config.getPassword(KEK_CONFIG).value()).orElse(KEK_CONFIG_DEFAULT)),
-      Map.entry(KEK_URI, Optional.ofNullable(config.getPassword(KEK_URI).value()).orElse(KEK_URI_DEFAULT))
+      Map.entry(KEK_URI, Optional.ofNullable(config.getPassword(KEK_URI).value()).orElse(KEK_URI_DEFAULT)),
+      Map.entry(CIPHER_ENGINE, Optional.ofNullable(config.getString(CIPHER_ENGINE)).orElse(CIPHER_ENGINE_DEFAULT)),
+      Map.entry(CIPHER_METADATA_MODE, Optional.ofNullable(config.getString(CIPHER_METADATA_MODE)).orElse(CIPHER_METADATA_MODE_DEFAULT)),
+      Map.entry(CIPHER_SCOPE, Optional.ofNullable(config.getString(CIPHER_SCOPE)).orElse(CIPHER_SCOPE_DEFAULT)),
+      Map.entry(RECORD_PAYLOAD_FIELD, Optional.ofNullable(config.getString(RECORD_PAYLOAD_FIELD)).orElse(RECORD_PAYLOAD_FIELD_DEFAULT)),
+      Map.entry(CIPHER_COMPRESSION, Optional.ofNullable(config.getString(CIPHER_COMPRESSION)).orElse(CIPHER_COMPRESSION_DEFAULT)),
+      Map.entry(CIPHER_COMPRESSION_MIN_BYTES, String.valueOf(config.getInt(CIPHER_COMPRESSION_MIN_BYTES))),
+      Map.entry(ENVELOPE_MODE, Optional.ofNullable(config.getString(ENVELOPE_MODE)).orElse(ENVELOPE_MODE_DEFAULT)),
+      Map.entry(ENVELOPE_DATA_KEY_RECORDS, String.valueOf(config.getLong(ENVELOPE_DATA_KEY_RECORDS))),
+      Map.entry(CIPHER_CACHE_MAX_BYTES, String.valueOf(config.getLong(CIPHER_CACHE_MAX_BYTES))),
+      Map.entry(CIPHER_CACHE_MAX_ENTRY_BYTES, String.valueOf(config.getLong(CIPHER_CACHE_MAX_ENTRY_BYTES)))
     );
   }
 
@@ -196,6 +343,10 @@ public abstract class CipherField<R extends ConnectRecord<R>> implements Transfo
 
   protected abstract R newRecord(R record, Schema updatedSchema, Object updatedValue);
 
+  protected abstract String metaDataHeaderName();
+
+  protected abstract String dataKeyHeaderName();
+
   public static final class Key<R extends ConnectRecord<R>> extends CipherField<R> {
     @Override
     protected Schema operatingSchema(R record) {
@@ -211,6 +362,16 @@ public abstract class CipherField<R extends ConnectRecord<R>> implements Transfo
     protected R newRecord(R record, Schema updatedSchema, Object updatedValue) {
       return record.newRecord(record.topic(), record.kafkaPartition(), updatedSchema, updatedValue, record.valueSchema(), record.value(), record.timestamp());
     }
+
+    @Override
+    protected String metaDataHeaderName() {
+      return MetaDataHeader.KEY_HEADER;
+    }
+
+    @Override
+    protected String dataKeyHeaderName() {
+      return DataKeyEnvelope.KEY_HEADER;
+    }
   }
 
   public static final class Value<R extends ConnectRecord<R>> extends CipherField<R> {
@@ -228,6 +389,16 @@ public abstract class CipherField<R extends ConnectRecord<R>> implements Transfo
     protected R newRecord(R record, Schema updatedSchema, Object updatedValue) {
       return record.newRecord(record.topic(), record.kafkaPartition(), record.keySchema(), record.key(), updatedSchema, updatedValue, record.timestamp());
     }
+
+    @Override
+    protected String metaDataHeaderName() {
+      return MetaDataHeader.VALUE_HEADER;
+    }
+
+    @Override
+    protected String dataKeyHeaderName() {
+      return DataKeyEnvelope.VALUE_HEADER;
+    }
   }
 
 }
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.connect.transforms.kryptonite;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hpgrahsl.kryptonite.CipherMode;
+import com.github.hpgrahsl.kryptonite.KryptoniteRegistry;
+import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings.CipherMetadataMode;
+import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings.CipherScope;
+import com.github.hpgrahsl.kryptonite.serdes.KryoSerdeProcessor;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.transforms.Transformation;
+import org.apache.kafka.connect.transforms.util.SimpleConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+import static com.github.hpgrahsl.kryptonite.config.KryptoniteSettings.*;
+
+/**
+ * "JSON-in, JSON-out" variant of {@link CipherField} for records whose key / value is a JSON document given
+ * either as string or as UTF-8 bytes. It replaces the chain {@code JsonStringReader -> CipherField -> JsonStringWriter}
+ * by streaming the document's tokens, so only matched fields get materialized while all other fields are
+ * copied as is. The result has the same type (string or bytes) as the original data.
+ */
+public abstract class CipherJsonField<R extends ConnectRecord<R>> implements Transformation<R> {
+
+  public static final String OVERVIEW_DOC =
+      "Encrypt / Decrypt specified fields of JSON string records without materializing the full JSON document.";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CipherJsonField.class);
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private JsonStreamRecordHandler recordHandler;
+  private CipherMode cipherMode;
+  private CipherMetadataMode metadataMode;
+  private DataKeyEnvelope dataKeyEnvelope;
+  private KryptoniteRegistry.Lease kryptoniteLease;
+
+  @Override
+  public R apply(R record) {
+    LOGGER.debug("SMT received record {}",record);
+    var data = operatingValue(record);
+    if (data == null) {
+      LOGGER.debug("data was null -> passing it through without SMT processing");
+      return record;
+    }
+    var context = MetaDataHeader.contextFor(record, metaDataHeaderName(), null, cipherMode, metadataMode);
+    if (dataKeyEnvelope != null) {
+      context = dataKeyEnvelope.attachTo(record, dataKeyHeaderName(), context);
+    }
+    if (data instanceof String) {
+      return applyHeaders(newRecord(record, recordHandler.processJson((String)data, context)), context);
+    }
+    if (data instanceof byte[]) {
+      return applyHeaders(newRecord(record, recordHandler.processJson((byte[])data, context)), context);
+    }
+    throw new DataException("error: data expected to be of type String or byte[] but was "
+        + data.getClass());
+  }
+
+  private R applyHeaders(R record, RecordContext context) {
+    var updatedRecord = MetaDataHeader.applyTo(record, metaDataHeaderName(), context, cipherMode);
+    return dataKeyEnvelope != null ? dataKeyEnvelope.applyTo(updatedRecord, dataKeyHeaderName(), context) : updatedRecord;
+  }
+
+  @Override
+  public ConfigDef config() {
+    return CipherField.CONFIG_DEF;
+  }
+
+  @Override
+  public void close() {
+    if (kryptoniteLease != null) {
+      kryptoniteLease.close();
+      kryptoniteLease = null;
+    }
+  }
+
+  @Override
+  public void configure(Map<String, ?> props) {
+    try {
+      var config = new SimpleConfig(CipherField.CONFIG_DEF, props);
+      var fieldPathMap = CipherField.parseFieldConfig(config.getString(FIELD_CONFIG));
+      close();
+      kryptoniteLease = KryptoniteRegistry.acquire(CipherField.adaptToNormalizedStringsMap(config));
+      var kryptonite = kryptoniteLease.kryptonite();
+      cipherMode = CipherMode.valueOf(config.getString(CIPHER_MODE));
+      metadataMode = CipherMetadataMode.valueOf(config.getString(CIPHER_METADATA_MODE));
+      var serdeProcessor = new KryoSerdeProcessor();
+      var recordPayloadHandler = CipherScope.RECORD == CipherScope.valueOf(config.getString(CIPHER_SCOPE))
+          ? new RecordPayloadHandler(new SchemalessRecordHandler(config, serdeProcessor, kryptonite, cipherMode, fieldPathMap),
+              cipherMode, fieldPathMap, config.getString(RECORD_PAYLOAD_FIELD))
+          : null;
+      recordHandler = new JsonStreamRecordHandler(config, serdeProcessor, kryptonite,
+          cipherMode, fieldPathMap, OBJECT_MAPPER, recordPayloadHandler);
+      dataKeyEnvelope = CipherField.createDataKeyEnvelope(config, fieldPathMap, kryptonite, recordHandler);
+      if (dataKeyEnvelope != null
+          && config.getString(CIPHER_DATA_KEY_IDENTIFIER).startsWith(config.getString(DYNAMIC_KEY_ID_PREFIX))) {
+        //NOTE: data keys are set up before the JSON document gets parsed
+        throw new ConfigException(CIPHER_DATA_KEY_IDENTIFIER, config.getString(CIPHER_DATA_KEY_IDENTIFIER),
+            "dynamic default key identifiers cannot be used together with data keys for JSON records");
+      }
+    } catch (JsonProcessingException e) {
+      throw new ConfigException(e.getMessage());
+    } catch (RuntimeException e) {
+      close();
+      throw e;
+    }
+  }
+
+  protected abstract Schema operatingSchema(R record);
+
+  protected abstract Object operatingValue(R record);
+
+  protected abstract R newRecord(R record, Object updatedValue);
+
+  protected abstract String metaDataHeaderName();
+
+  protected abstract String dataKeyHeaderName();
+
+  public static final class Key<R extends ConnectRecord<R>> extends CipherJsonField<R> {
+    @Override
+    protected Schema operatingSchema(R record) {
+      return record.keySchema();
+    }
+
+    @Override
+    protected Object operatingValue(R record) {
+      return record.key();
+    }
+
+    @Override
+    protected R newRecord(R record, Object updatedValue) {
+      return record.newRecord(record.topic(), record.kafkaPartition(), record.keySchema(), updatedValue, record.valueSchema(), record.value(), record.timestamp());
+    }
+
+    @Override
+    protected String metaDataHeaderName() {
+      return MetaDataHeader.KEY_HEADER;
+    }
+
+    @Override
+    protected String dataKeyHeaderName() {
+      return DataKeyEnvelope.KEY_HEADER;
+    }
+  }
+
+  public static final class Value<R extends ConnectRecord<R>> extends CipherJsonField<R> {
+    @Override
+    protected Schema operatingSchema(R record) {
+      return record.valueSchema();
+    }
+
+    @Override
+    protected Object operatingValue(R record) {
+      return record.value();
+    }
+
+    @Override
+    protected R newRecord(R record, Object updatedValue) {
+      return record.newRecord(record.topic(), record.kafkaPartition(), record.keySchema(), record.key(), record.valueSchema(), updatedValue, record.timestamp());
+    }
+
+    @Override
+    protected String metaDataHeaderName() {
+      return MetaDataHeader.VALUE_HEADER;
+    }
+
+    @Override
+    protected String dataKeyHeaderName() {
+      return DataKeyEnvelope.VALUE_HEADER;
+    }
+  }
+
+}
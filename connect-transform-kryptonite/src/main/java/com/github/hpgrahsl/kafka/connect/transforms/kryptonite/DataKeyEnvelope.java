@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.connect.transforms.kryptonite;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.github.hpgrahsl.kryptonite.CipherMode;
+import com.github.hpgrahsl.kryptonite.DataKey;
+import com.github.hpgrahsl.kryptonite.EncryptedField;
+import com.github.hpgrahsl.kryptonite.Kryptonite;
+import com.github.hpgrahsl.kryptonite.Kryptonite.CipherSpec;
+import com.github.hpgrahsl.kryptonite.PayloadMetaData;
+import com.github.hpgrahsl.kryptonite.crypto.tink.TinkAesGcm;
+import com.github.hpgrahsl.kryptonite.serdes.KryoInstance;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.apache.kafka.common.cache.Cache;
+import org.apache.kafka.common.cache.LRUCache;
+import org.apache.kafka.common.cache.SynchronizedCache;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.errors.DataException;
+
+/**
+ * Envelope encryption with ephemeral data keys. Instead of encrypting every field with a long-lived keyset,
+ * a random data key is generated for a record (or reused for the next N records), all fields of the record are
+ * encrypted with it and only the data key itself is wrapped with the keyset of the default key identifier.
+ * The wrapped data key is kept in a record header which decryption needs to unwrap the data key once per record.
+ * Since a record can only carry one wrapped data key, encrypting a record which already has such a header fails.
+ */
+public final class DataKeyEnvelope {
+
+  public static final String VALUE_HEADER = "k4k-dek";
+  public static final String KEY_HEADER = "k4k-dek-key";
+
+  private static final String WRAPPING_ALGORITHM_ID =
+      Kryptonite.CIPHERSPEC_ID_LUT.get(CipherSpec.fromName(TinkAesGcm.CIPHER_ALGORITHM));
+
+  private static final int MAX_CACHED_DATA_KEYS = 32;
+
+  private static final class ActiveDataKey {
+
+    private final DataKey dataKey;
+    private final byte[] associatedData;
+    private final String wrappedDataKey;
+    private long remainingRecords;
+
+    private ActiveDataKey(DataKey dataKey, byte[] associatedData, String wrappedDataKey, long remainingRecords) {
+      this.dataKey = dataKey;
+      this.associatedData = associatedData;
+      this.wrappedDataKey = wrappedDataKey;
+      this.remainingRecords = remainingRecords;
+    }
+
+  }
+
+  private final Kryptonite kryptonite;
+  private final RecordHandler recordHandler;
+  private final CipherMode cipherMode;
+  private final long recordsPerDataKey;
+  //NOTE: only accessed within the synchronized nextDataKey(), an evicted key id merely gets a new data key earlier
+  private final Cache<String, ActiveDataKey> activeDataKeys = new LRUCache<>(MAX_CACHED_DATA_KEYS);
+  private final Cache<String, ActiveDataKey> unwrappedDataKeys =
+      new SynchronizedCache<>(new LRUCache<>(MAX_CACHED_DATA_KEYS));
+
+  /**
+   * @param recordHandler resolves the (possibly dynamic) default key identifier used to wrap the data keys
+   * @param recordsPerDataKey for how many consecutive records a generated data key is used
+   */
+  public DataKeyEnvelope(Kryptonite kryptonite, RecordHandler recordHandler,
+      CipherMode cipherMode, long recordsPerDataKey) {
+    this.kryptonite = kryptonite;
+    this.recordHandler = recordHandler;
+    this.cipherMode = cipherMode;
+    this.recordsPerDataKey = recordsPerDataKey;
+  }
+
+  /**
+   * Attaches the data key for the given record to its context, i.e. the current or a newly generated one when
+   * encrypting, or the unwrapped one from the record header when decrypting.
+   */
+  public RecordContext attachTo(ConnectRecord<?> record, String headerName, RecordContext context) {
+    if (CipherMode.ENCRYPT == cipherMode && record.headers().lastWithName(headerName) != null) {
+      throw new DataException("error: record already has a '" + headerName
+          + "' header with a wrapped data key, envelope encryption cannot be applied twice to the same record");
+    }
+    var activeDataKey = CipherMode.ENCRYPT == cipherMode
+        ? nextDataKey(recordHandler.resolveDefaultKeyId(context))
+        : unwrapDataKey(record, headerName);
+    return context.withDataKey(activeDataKey.dataKey, activeDataKey.associatedData, activeDataKey.wrappedDataKey);
+  }
+
+  /**
+   * Adds (encryption) or removes (decryption) the wrapped data key header to / from the already processed record.
+   */
+  public <R extends ConnectRecord<R>> R applyTo(R record, String headerName, RecordContext context) {
+    if (CipherMode.ENCRYPT == cipherMode) {
+      record.headers().addString(headerName, context.getWrappedDataKey());
+    } else {
+      record.headers().remove(headerName);
+    }
+    return record;
+  }
+
+  private synchronized ActiveDataKey nextDataKey(String keyId) {
+    var activeDataKey = activeDataKeys.get(keyId);
+    if (activeDataKey == null || activeDataKey.remainingRecords <= 0) {
+      activeDataKey = generateDataKey(keyId);
+      activeDataKeys.put(keyId, activeDataKey);
+    }
+    activeDataKey.remainingRecords--;
+    return activeDataKey;
+  }
+
+  private ActiveDataKey generateDataKey(String keyId) {
+    var metaData = new PayloadMetaData(Kryptonite.KRYPTONITE_VERSION, WRAPPING_ALGORITHM_ID, keyId);
+    var dataKey = kryptonite.generateDataKey();
+    var output = new Output(new ByteArrayOutputStream());
+    KryoInstance.get().writeObject(output, kryptonite.wrapDataKey(dataKey, metaData));
+    return new ActiveDataKey(dataKey, metaData.asBytes(),
+        Base64.getEncoder().encodeToString(output.toBytes()), recordsPerDataKey);
+  }
+
+  private ActiveDataKey unwrapDataKey(ConnectRecord<?> record, String headerName) {
+    var header = record.headers().lastWithName(headerName);
+    if (header == null || header.value() == null) {
+      throw new DataException("error: record lacks the '" + headerName + "' header with the wrapped data key");
+    }
+    var wrappedDataKey = header.value() instanceof byte[]
+        ? new String((byte[]) header.value(), StandardCharsets.UTF_8)
+        : header.value().toString();
+    var activeDataKey = unwrappedDataKeys.get(wrappedDataKey);
+    if (activeDataKey == null) {
+      try {
+        var encryptedField = KryoInstance.get().readObject(
+            new Input(Base64.getDecoder().decode(wrappedDataKey)), EncryptedField.class);
+        activeDataKey = new ActiveDataKey(kryptonite.unwrapDataKey(encryptedField),
+            encryptedField.getMetaData().asBytes(), wrappedDataKey, 0);
+      } catch (RuntimeException e) {
+        throw new DataException("error: unwrapping the data key of header '" + headerName + "' failed", e);
+      }
+      unwrappedDataKeys.put(wrappedDataKey, activeDataKey);
+    }
+    return activeDataKey;
+  }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.connect.transforms.kryptonite;
+
+import java.util.Map;
+import java.util.regex.Pattern;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+
+/**
+ * Resolves the key identifier for a record from one of its own fields. The field path is split into its
+ * segments once at configuration time, so that per record only the nested maps / structs are walked
+ * down without any further string processing. The extracted value must be a non-empty string.
+ */
+public final class DynamicKeyIdExtractor {
+
+  private final String fieldPath;
+  private final String[] segments;
+
+  private DynamicKeyIdExtractor(String fieldPath, String[] segments) {
+    this.fieldPath = fieldPath;
+    this.segments = segments;
+  }
+
+  /**
+   * @return an extractor if the given key identifier starts with the dynamic key id prefix, otherwise {@code null}
+   */
+  public static DynamicKeyIdExtractor forKeyId(String keyId, String dynamicKeyIdPrefix, String pathDelimiter) {
+    if (keyId == null || dynamicKeyIdPrefix.isEmpty() || !keyId.startsWith(dynamicKeyIdPrefix)) {
+      return null;
+    }
+    var fieldPath = keyId.substring(dynamicKeyIdPrefix.length());
+    if (fieldPath.isEmpty()) {
+      throw new IllegalArgumentException("error: dynamic key identifier '" + keyId + "' lacks a field path");
+    }
+    return new DynamicKeyIdExtractor(fieldPath, fieldPath.split(Pattern.quote(pathDelimiter)));
+  }
+
+  public String getFieldPath() {
+    return fieldPath;
+  }
+
+  public String extract(Object record) {
+    var current = record;
+    for (var segment : segments) {
+      if (current instanceof Map) {
+        current = ((Map<?, ?>) current).get(segment);
+      } else if (current instanceof Struct) {
+        var struct = (Struct) current;
+        current = struct.schema().field(segment) != null ? struct.get(segment) : null;
+      } else {
+        current = null;
+      }
+      if (current == null) {
+        break;
+      }
+    }
+    if (!(current instanceof String) || ((String) current).isEmpty()) {
+      throw new DataException("error: key identifier extraction failed -> either the dynamic key identifier has an"
+          + " invalid field path '" + fieldPath + "' set or the record itself doesn't contain the specified field(s)");
+    }
+    return (String) current;
+  }
+
+}
@@ -29,6 +29,8 @@ public class FieldConfig {
 
   private CipherField.FieldMode fieldMode;
 
+  private Boolean blindIndex;
+
   public FieldConfig() {
   }
 
@@ -41,6 +43,12 @@ public class FieldConfig {
     this.fieldMode = fieldMode;
   }
 
+  public FieldConfig(String name, String algorithm, String keyId,
+                     Map<String, Object> schema, CipherField.FieldMode fieldMode, Boolean blindIndex) {
+    this(name, algorithm, keyId, schema, fieldMode);
+    this.blindIndex = blindIndex;
+  }
+
   public String getName() {
     return name;
   }
@@ -61,17 +69,21 @@ public class FieldConfig {
     return Optional.ofNullable(fieldMode);
   }
 
+  public Optional<Boolean> getBlindIndex() {
+    return Optional.ofNullable(blindIndex);
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
     if (o == null || getClass() != o.getClass()) return false;
     FieldConfig that = (FieldConfig) o;
-    return Objects.equals(name, that.name) && Objects.equals(algorithm, that.algorithm) && Objects.equals(keyId, that.keyId) && Objects.equals(schema, that.schema) && fieldMode == that.fieldMode;
+    return Objects.equals(name, that.name) && Objects.equals(algorithm, that.algorithm) && Objects.equals(keyId, that.keyId) && Objects.equals(schema, that.schema) && fieldMode == that.fieldMode && Objects.equals(blindIndex, that.blindIndex);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(name, algorithm, keyId, schema, fieldMode);
+    return Objects.hash(name, algorithm, keyId, schema, fieldMode, blindIndex);
   }
 
   @Override
@@ -82,6 +94,7 @@ public class FieldConfig {
             ", keyId='" + keyId + '\'' +
             ", schema=" + schema +
             ", fieldMode=" + fieldMode +
+            ", blindIndex=" + blindIndex +
             '}';
   }
 
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.connect.transforms.kryptonite;
+
+import org.apache.kafka.common.cache.Cache;
+import org.apache.kafka.common.cache.LRUCache;
+import org.apache.kafka.common.cache.SynchronizedCache;
+
+/**
+ * Bounded LRU cache which compares its keys by identity. It is meant as front cache for objects that are usually
+ * handed out as the very same instance over and over again, such as connect schemas from converters,
+ * so that lookups neither need to compute any hash code nor compare the keys' contents. Keys are held strongly,
+ * hence the bound also limits how many of them are kept reachable by the cache.
+ */
+public class IdentityCache<K, V> {
+
+  private static final class IdentityKey {
+
+    private final Object referent;
+
+    private IdentityKey(Object referent) {
+      this.referent = referent;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof IdentityKey && referent == ((IdentityKey) o).referent;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(referent);
+    }
+
+  }
+
+  private final Cache<IdentityKey, V> entries;
+
+  public IdentityCache(int maxEntries) {
+    this.entries = new SynchronizedCache<>(new LRUCache<>(maxEntries));
+  }
+
+  public V get(K key) {
+    return entries.get(new IdentityKey(key));
+  }
+
+  public void put(K key, V value) {
+    entries.put(new IdentityKey(key), value);
+  }
+
+  public long size() {
+    return entries.size();
+  }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.connect.transforms.kryptonite;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hpgrahsl.kryptonite.CipherMode;
+import com.github.hpgrahsl.kryptonite.Kryptonite;
+import com.github.hpgrahsl.kryptonite.serdes.SerdeProcessor;
+import org.apache.kafka.common.config.AbstractConfig;
+import org.apache.kafka.connect.errors.DataException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Processes JSON documents given as string or UTF-8 bytes by streaming their tokens from a {@link JsonParser}
+ * to a {@link JsonGenerator}. Only the values of matched fields are materialized and (de)ciphered, all other
+ * fields are copied token by token without building any intermediate maps for the whole document.
+ * Field matching follows the exact same rules as for schemaless records in {@link SchemalessRecordHandler}.
+ * If any key identifier is dynamic, i.e. read from the record itself, or fields are processed on record level,
+ * the document is fully materialized instead, because this requires the whole document at once.
+ */
+public class JsonStreamRecordHandler extends SchemalessRecordHandler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(JsonStreamRecordHandler.class);
+
+  private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+  private final ObjectMapper objectMapper;
+  private final RecordPayloadHandler recordPayloadHandler;
+  private final boolean fullRecordRequired;
+
+  public JsonStreamRecordHandler(AbstractConfig config,
+                                 SerdeProcessor serdeProcessor, Kryptonite kryptonite,
+                                 CipherMode cipherMode,
+                                 Map<String, FieldConfig> fieldConfig,
+                                 ObjectMapper objectMapper) {
+    this(config, serdeProcessor, kryptonite, cipherMode, fieldConfig, objectMapper, null);
+  }
+
+  /**
+   * @param recordPayloadHandler if not null, matched fields are processed on record level which needs the full document
+   */
+  public JsonStreamRecordHandler(AbstractConfig config,
+                                 SerdeProcessor serdeProcessor, Kryptonite kryptonite,
+                                 CipherMode cipherMode,
+                                 Map<String, FieldConfig> fieldConfig,
+                                 ObjectMapper objectMapper,
+                                 RecordPayloadHandler recordPayloadHandler) {
+    super(config, serdeProcessor, kryptonite, cipherMode, fieldConfig);
+    this.objectMapper = objectMapper;
+    this.recordPayloadHandler = recordPayloadHandler;
+    this.fullRecordRequired = hasDynamicKeyIds() || recordPayloadHandler != null;
+  }
+
+  public String processJson(String json) {
+    return processJson(json, RecordContext.of(null));
+  }
+
+  public String processJson(String json, RecordContext context) {
+    if (fullRecordRequired) {
+      try {
+        var record = objectMapper.readValue(json, MAP_TYPE);
+        return objectMapper.writeValueAsString(processFullRecord(context.forRecord(record), record));
+      } catch (IOException e) {
+        throw new DataException("error: processing the JSON string '" + json + "' failed", e);
+      }
+    }
+    var output = new ByteArrayOutputStream(json.length() + (json.length() >> 1));
+    try (var parser = objectMapper.getFactory().createParser(json);
+         var generator = objectMapper.getFactory().createGenerator(output)) {
+      processDocument(parser, generator, context);
+    } catch (IOException e) {
+      throw new DataException("error: processing the JSON string '" + json + "' failed", e);
+    }
+    return output.toString(StandardCharsets.UTF_8);
+  }
+
+  public byte[] processJson(byte[] json) {
+    return processJson(json, RecordContext.of(null));
+  }
+
+  public byte[] processJson(byte[] json, RecordContext context) {
+    if (fullRecordRequired) {
+      try {
+        var record = objectMapper.readValue(json, MAP_TYPE);
+        return objectMapper.writeValueAsBytes(processFullRecord(context.forRecord(record), record));
+      } catch (IOException e) {
+        throw new DataException("error: processing the JSON bytes failed", e);
+      }
+    }
+    var output = new ByteArrayOutputStream(json.length + (json.length >> 1));
+    try (var parser = objectMapper.getFactory().createParser(json);
+         var generator = objectMapper.getFactory().createGenerator(output)) {
+      processDocument(parser, generator, context);
+    } catch (IOException e) {
+      throw new DataException("error: processing the JSON bytes failed", e);
+    }
+    return output.toByteArray();
+  }
+
+  private Map<String, Object> processFullRecord(RecordContext context, Map<String, Object> record) {
+    return recordPayloadHandler != null
+        ? recordPayloadHandler.processRecord(context, record)
+        : processRecord(context, record);
+  }
+
+  private void processDocument(JsonParser parser, JsonGenerator generator, RecordContext context) throws IOException {
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      throw new DataException("error: JSON data expected to be an object but found " + parser.currentToken());
+    }
+    generator.writeStartObject();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      var name = parser.currentName();
+      var fc = fieldConfig.get(name);
+      parser.nextToken();
+      generator.writeFieldName(name);
+      if (fc == null) {
+        LOGGER.trace("copying non-matched field '{}'", name);
+        generator.copyCurrentStructure(parser);
+        continue;
+      }
+      LOGGER.trace("matched field '{}'", name);
+      var value = objectMapper.readValue(parser, Object.class);
+      generator.writeObject(processMatchedField(context, fc, value, name));
+      if (emitsBlindIndex(fc)) {
+        generator.writeFieldName(name + BLIND_INDEX_SUFFIX);
+        generator.writeObject(blindIndex(context, value, name));
+      }
+    }
+    generator.writeEndObject();
+  }
+
+}
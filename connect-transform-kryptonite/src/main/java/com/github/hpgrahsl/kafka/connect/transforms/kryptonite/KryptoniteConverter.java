@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.connect.transforms.kryptonite;
+
+import com.github.hpgrahsl.kryptonite.CipherMode;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigDef.Type;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.utils.Utils;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaAndValue;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.header.ConnectHeaders;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.apache.kafka.connect.storage.Converter;
+import org.apache.kafka.connect.transforms.util.SimpleConfig;
+
+import static com.github.hpgrahsl.kryptonite.config.KryptoniteSettings.CIPHER_MODE;
+
+/**
+ * Converter which applies {@link CipherField} right at the (de)serialization boundary instead of as separate
+ * SMT. It wraps a delegate converter (e.g. JSON or Avro) and encrypts the Connect data before handing it over
+ * to {@code fromConnectData} (<code>cipher_mode=ENCRYPT</code>) or decrypts the Connect data resulting from
+ * {@code toConnectData} (<code>cipher_mode=DECRYPT</code>). The other direction is left to the delegate as is.
+ * Rewritten schemas are resolved through the same per-schema plan caches the SMT uses. Any config prefixed by
+ * <code>delegate_converter.</code> is passed on to the delegate converter without the prefix. Closing the converter
+ * releases its shared {@code Kryptonite} instance and closes the delegate if it's closeable.
+ */
+public class KryptoniteConverter implements Converter, AutoCloseable {
+
+  public static final String DELEGATE_CONVERTER = "delegate_converter";
+  public static final String DELEGATE_CONVERTER_PREFIX = DELEGATE_CONVERTER + ".";
+
+  public static final ConfigDef CONFIG_DEF = new ConfigDef(CipherField.CONFIG_DEF)
+      .define(DELEGATE_CONVERTER, Type.CLASS, ConfigDef.NO_DEFAULT_VALUE, ConfigDef.Importance.HIGH,
+          "fully qualified class name of the converter which does the actual (de)serialization of the records");
+
+  private static final ConfigDef DELEGATE_CONFIG_DEF = new ConfigDef()
+      .define(DELEGATE_CONVERTER, Type.CLASS, ConfigDef.NO_DEFAULT_VALUE, ConfigDef.Importance.HIGH, "");
+
+  private Converter delegate;
+  private CipherField<SinkRecord> cipherField;
+  private CipherMode cipherMode;
+  private boolean isKey;
+  private List<String> headerNames;
+
+  @Override
+  public void configure(Map<String, ?> configs, boolean isKey) {
+    var delegateConfigs = new HashMap<String, Object>();
+    var cipherConfigs = new HashMap<String, Object>();
+    configs.forEach((name, value) -> {
+      if (name.startsWith(DELEGATE_CONVERTER_PREFIX)) {
+        delegateConfigs.put(name.substring(DELEGATE_CONVERTER_PREFIX.length()), value);
+      } else if (!DELEGATE_CONVERTER.equals(name)) {
+        cipherConfigs.put(name, value);
+      }
+    });
+    var delegateConfig = new SimpleConfig(DELEGATE_CONFIG_DEF, configs);
+    delegate = Utils.newInstance(delegateConfig.getClass(DELEGATE_CONVERTER), Converter.class);
+    delegate.configure(delegateConfigs, isKey);
+    cipherField = isKey ? new CipherField.Key<>() : new CipherField.Value<>();
+    cipherField.configure(cipherConfigs);
+    cipherMode = CipherMode.valueOf(new SimpleConfig(CipherField.CONFIG_DEF, cipherConfigs).getString(CIPHER_MODE));
+    this.isKey = isKey;
+    this.headerNames = isKey
+        ? List.of(MetaDataHeader.KEY_HEADER, DataKeyEnvelope.KEY_HEADER)
+        : List.of(MetaDataHeader.VALUE_HEADER, DataKeyEnvelope.VALUE_HEADER);
+  }
+
+  @Override
+  public ConfigDef config() {
+    return CONFIG_DEF;
+  }
+
+  @Override
+  public void close() {
+    if (cipherField != null) {
+      cipherField.close();
+    }
+    if (delegate instanceof AutoCloseable) {
+      Utils.closeQuietly((AutoCloseable) delegate, "delegate converter");
+    }
+  }
+
+  @Override
+  public byte[] fromConnectData(String topic, Schema schema, Object value) {
+    return fromConnectData(topic, null, schema, value);
+  }
+
+  @Override
+  public byte[] fromConnectData(String topic, Headers headers, Schema schema, Object value) {
+    if (CipherMode.ENCRYPT != cipherMode || value == null) {
+      return delegate.fromConnectData(topic, headers, schema, value);
+    }
+    var record = cipherField.apply(recordFor(topic, headers, schema, value));
+    writeHeaders(record, headers);
+    return isKey
+        ? delegate.fromConnectData(topic, headers, record.keySchema(), record.key())
+        : delegate.fromConnectData(topic, headers, record.valueSchema(), record.value());
+  }
+
+  @Override
+  public SchemaAndValue toConnectData(String topic, byte[] value) {
+    return toConnectData(topic, null, value);
+  }
+
+  @Override
+  public SchemaAndValue toConnectData(String topic, Headers headers, byte[] value) {
+    var schemaAndValue = delegate.toConnectData(topic, headers, value);
+    if (CipherMode.DECRYPT != cipherMode || schemaAndValue == null || schemaAndValue.value() == null) {
+      return schemaAndValue;
+    }
+    var record = cipherField.apply(recordFor(topic, headers, schemaAndValue.schema(), schemaAndValue.value()));
+    return isKey
+        ? new SchemaAndValue(record.keySchema(), record.key())
+        : new SchemaAndValue(record.valueSchema(), record.value());
+  }
+
+  private SinkRecord recordFor(String topic, Headers headers, Schema schema, Object value) {
+    //NOTE: only the headers the cipher field itself reads are bridged from the kafka client headers
+    var connectHeaders = new ConnectHeaders();
+    if (headers != null) {
+      for (var name : headerNames) {
+        var header = headers.lastHeader(name);
+        if (header != null) {
+          connectHeaders.addBytes(name, header.value());
+        }
+      }
+    }
+    return isKey
+        ? new SinkRecord(topic, 0, schema, value, null, null, 0, null, TimestampType.NO_TIMESTAMP_TYPE, connectHeaders)
+        : new SinkRecord(topic, 0, null, null, schema, value, 0, null, TimestampType.NO_TIMESTAMP_TYPE, connectHeaders);
+  }
+
+  private void writeHeaders(SinkRecord record, Headers headers) {
+    for (var name : headerNames) {
+      var header = record.headers().lastWithName(name);
+      if (header == null) {
+        continue;
+      }
+      if (headers == null) {
+        throw new DataException("error: the '" + name + "' header cannot be written without record headers");
+      }
+      headers.remove(name);
+      headers.add(name, header.value().toString().getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+}
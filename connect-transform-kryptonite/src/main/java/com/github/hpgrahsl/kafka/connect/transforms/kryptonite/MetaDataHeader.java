@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.connect.transforms.kryptonite;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hpgrahsl.kryptonite.CipherMode;
+import com.github.hpgrahsl.kryptonite.PayloadMetaData;
+import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings.CipherMetadataMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.errors.DataException;
+
+/**
+ * Keeps the payload meta-data (version, algorithm id and key id) of all encrypted fields of a record once
+ * within a record header instead of repeating it within every single encrypted field. The header value is a
+ * JSON array of {@code [version, algorithmId, keyId]} entries and each encrypted field only refers to its entry
+ * by a one byte index in front of the ciphertext. Since the meta-data is authenticated as associated data
+ * of every ciphertext, tampering with the header makes decryption fail. Chained SMTs append their entries to
+ * the table of a previous SMT. Likewise, decryption only replaces the entries it used by {@code null} and removes
+ * the header once all of its entries have been used.
+ */
+public final class MetaDataHeader {
+
+  public static final String VALUE_HEADER = "k4k-meta";
+  public static final String KEY_HEADER = "k4k-meta-key";
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final TypeReference<List<List<String>>> ENTRIES_TYPE = new TypeReference<>() {};
+
+  private MetaDataHeader() {
+  }
+
+  /**
+   * Creates the context for processing the given record data, i.e. starts the meta-data table when encrypting
+   * in header mode, continuing the table of a previous SMT if there is one, or reads the existing table from the
+   * record header when decrypting. If there is no such header, decryption falls back to the meta-data within each
+   * encrypted field.
+   */
+  public static RecordContext contextFor(ConnectRecord<?> record, String headerName, Object data,
+      CipherMode cipherMode, CipherMetadataMode metadataMode) {
+    if (CipherMode.ENCRYPT == cipherMode && CipherMetadataMode.HEADER != metadataMode) {
+      return RecordContext.of(data);
+    }
+    var header = record.headers().lastWithName(headerName);
+    if (header == null || header.value() == null) {
+      return CipherMode.ENCRYPT == cipherMode
+          ? RecordContext.withMetaData(data, new ArrayList<>())
+          : RecordContext.of(data);
+    }
+    return RecordContext.withMetaData(data, new ArrayList<>(decode(header.value())));
+  }
+
+  /**
+   * Adds or extends (encryption) respectively removes (decryption) the meta-data header to / from the already
+   * processed record. Decryption keeps the header as long as other fields might still refer to any of its entries.
+   */
+  public static <R extends ConnectRecord<R>> R applyTo(R record, String headerName,
+      RecordContext context, CipherMode cipherMode) {
+    if (!context.usesHeaderMetaData()) {
+      return record;
+    }
+    if (CipherMode.ENCRYPT == cipherMode) {
+      if (context.addedMetaData()) {
+        record.headers().remove(headerName);
+        record.headers().addString(headerName, encode(context.getMetaData()));
+      }
+    } else {
+      var remaining = context.remainingMetaData();
+      record.headers().remove(headerName);
+      if (remaining != null) {
+        record.headers().addString(headerName, encode(remaining));
+      }
+    }
+    return record;
+  }
+
+  static String encode(List<PayloadMetaData> metaData) {
+    var entries = new ArrayList<List<String>>(metaData.size());
+    for (var md : metaData) {
+      entries.add(md != null ? List.of(md.getVersion(), md.getAlgorithmId(), md.getKeyId()) : null);
+    }
+    try {
+      return OBJECT_MAPPER.writeValueAsString(entries);
+    } catch (JsonProcessingException e) {
+      throw new DataException("error: encoding the payload meta-data header failed", e);
+    }
+  }
+
+  static List<PayloadMetaData> decode(Object headerValue) {
+    try {
+      List<?> entries;
+      if (headerValue instanceof List) {
+        //NOTE: header converters such as the SimpleHeaderConverter already parse JSON array strings into lists
+        entries = (List<?>) headerValue;
+      } else if (headerValue instanceof byte[]) {
+        entries = OBJECT_MAPPER.readValue(new String((byte[]) headerValue, StandardCharsets.UTF_8), ENTRIES_TYPE);
+      } else {
+        entries = OBJECT_MAPPER.readValue(headerValue.toString(), ENTRIES_TYPE);
+      }
+      var metaData = new ArrayList<PayloadMetaData>(entries.size());
+      for (var entry : entries) {
+        if (entry == null) {
+          metaData.add(null);
+          continue;
+        }
+        var fields = (List<?>) entry;
+        metaData.add(new PayloadMetaData((String) fields.get(0), (String) fields.get(1), (String) fields.get(2)));
+      }
+      return metaData;
+    } catch (JsonProcessingException | RuntimeException e) {
+      throw new DataException("error: decoding the payload meta-data header '" + headerValue + "' failed", e);
+    }
+  }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.connect.transforms.kryptonite;
+
+import com.github.hpgrahsl.kryptonite.DataKey;
+import com.github.hpgrahsl.kryptonite.PayloadMetaData;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import org.apache.kafka.connect.errors.DataException;
+
+/**
+ * Per-record state which is shared by all (de)ciphered fields of a single record, i.e. the whole original record
+ * needed to resolve dynamic key identifiers as well as the table of payload meta-data entries in case these
+ * are kept in a record header (see {@link MetaDataHeader}) instead of within every single encrypted field.
+ * In envelope mode it additionally carries the record's ephemeral data key (see {@link DataKeyEnvelope}).
+ */
+public final class RecordContext {
+
+  static final int MAX_META_DATA_ENTRIES = 256;
+
+  private final Object record;
+  private final List<PayloadMetaData> metaData;
+  private final int ownMetaDataOffset;
+  private final BitSet referencedMetaData;
+  private final DataKey dataKey;
+  private final byte[] dataKeyAssociatedData;
+  private final String wrappedDataKey;
+
+  private RecordContext(Object record, List<PayloadMetaData> metaData, int ownMetaDataOffset,
+      BitSet referencedMetaData, DataKey dataKey, byte[] dataKeyAssociatedData, String wrappedDataKey) {
+    this.record = record;
+    this.metaData = metaData;
+    this.ownMetaDataOffset = ownMetaDataOffset;
+    this.referencedMetaData = referencedMetaData;
+    this.dataKey = dataKey;
+    this.dataKeyAssociatedData = dataKeyAssociatedData;
+    this.wrappedDataKey = wrappedDataKey;
+  }
+
+  public static RecordContext of(Object record) {
+    return new RecordContext(record, null, 0, null, null, null, null);
+  }
+
+  /**
+   * @param metaData either a mutable list to be filled during encryption, which already contains the entries of
+   * a previous SMT's record header, if any, or the entries read from a record header for decryption
+   */
+  public static RecordContext withMetaData(Object record, List<PayloadMetaData> metaData) {
+    return new RecordContext(record, metaData, metaData.size(), new BitSet(), null, null, null);
+  }
+
+  public RecordContext forRecord(Object record) {
+    return new RecordContext(record, metaData, ownMetaDataOffset, referencedMetaData,
+        dataKey, dataKeyAssociatedData, wrappedDataKey);
+  }
+
+  /**
+   * @param wrappedDataKey the encoded data key as it is kept in the record header
+   */
+  public RecordContext withDataKey(DataKey dataKey, byte[] associatedData, String wrappedDataKey) {
+    return new RecordContext(record, metaData, ownMetaDataOffset, referencedMetaData,
+        dataKey, associatedData, wrappedDataKey);
+  }
+
+  public Object getRecord() {
+    return record;
+  }
+
+  public boolean usesHeaderMetaData() {
+    return metaData != null;
+  }
+
+  public List<PayloadMetaData> getMetaData() {
+    return metaData;
+  }
+
+  public boolean usesDataKey() {
+    return dataKey != null;
+  }
+
+  public DataKey getDataKey() {
+    return dataKey;
+  }
+
+  public byte[] getDataKeyAssociatedData() {
+    return dataKeyAssociatedData;
+  }
+
+  public String getWrappedDataKey() {
+    return wrappedDataKey;
+  }
+
+  /**
+   * @return whether encryption added any entries to the meta-data table
+   */
+  public boolean addedMetaData() {
+    return metaData.size() > ownMetaDataOffset;
+  }
+
+  /**
+   * @return the meta-data table with all entries decryption referred to replaced by null placeholders, which
+   * keeps the indexes of the remaining entries intact, or null if there are no remaining entries at all
+   */
+  public List<PayloadMetaData> remainingMetaData() {
+    var remaining = new ArrayList<>(metaData);
+    var anyRemaining = false;
+    for (int i = 0; i < remaining.size(); i++) {
+      if (referencedMetaData.get(i)) {
+        remaining.set(i, null);
+      } else if (remaining.get(i) != null) {
+        anyRemaining = true;
+      }
+    }
+    return anyRemaining ? remaining : null;
+  }
+
+  int indexOf(PayloadMetaData payloadMetaData) {
+    //NOTE: entries of a previous SMT are never shared so that each SMT's fields only refer to entries of its own
+    var index = metaData.subList(ownMetaDataOffset, metaData.size()).indexOf(payloadMetaData);
+    if (index >= 0) {
+      return ownMetaDataOffset + index;
+    }
+    if (metaData.size() >= MAX_META_DATA_ENTRIES) {
+      throw new DataException("error: more than " + MAX_META_DATA_ENTRIES
+          + " distinct payload meta-data entries within a single record aren't supported");
+    }
+    metaData.add(payloadMetaData);
+    return metaData.size() - 1;
+  }
+
+  PayloadMetaData metaDataAt(int index) {
+    if (index >= metaData.size() || metaData.get(index) == null) {
+      throw new DataException("error: payload meta-data entry " + index + " not found in record header");
+    }
+    referencedMetaData.set(index);
+    return metaData.get(index);
+  }
+
+}
@@ -28,16 +28,45 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public abstract class RecordHandler implements FieldPathMatcher {
 
+  /**
+   * Cipher settings of a field path which are resolved once at configuration time. The key identifier is either
+   * static or read per record by means of a precompiled {@link DynamicKeyIdExtractor}.
+   */
+  private static final class FieldCipherSettings {
+
+    private final String algorithm;
+    private final boolean pseudonymize;
+    private final String keyId;
+    private final DynamicKeyIdExtractor keyIdExtractor;
+
+    private FieldCipherSettings(String algorithm, String keyId, String dynamicKeyIdPrefix, String pathDelimiter) {
+      this.algorithm = algorithm;
+      this.pseudonymize = Kryptonite.isPseudonymAlgorithm(algorithm);
+      this.keyId = keyId;
+      this.keyIdExtractor = DynamicKeyIdExtractor.forKeyId(keyId, dynamicKeyIdPrefix, pathDelimiter);
+    }
+
+    private String resolveKeyId(RecordContext context) {
+      return keyIdExtractor != null ? keyIdExtractor.extract(context != null ? context.getRecord() : null) : keyId;
+    }
+
+  }
+
+  public static final String BLIND_INDEX_SUFFIX = "_bidx";
+
   private static final Logger LOGGER = LoggerFactory.getLogger(RecordHandler.class);
 
   private final AbstractConfig config;
   private final SerdeProcessor serdeProcessor;
   private final Kryptonite kryptonite;
+  private final FieldCipherSettings defaultCipherSettings;
+  private final Map<String, FieldCipherSettings> fieldCipherSettings;
 
   protected final String pathDelimiter;
   protected final CipherMode cipherMode;
@@ -53,6 +82,16 @@ public abstract class RecordHandler implements FieldPathMatcher {
     this.pathDelimiter = config.getString(KryptoniteSettings.PATH_DELIMITER);
     this.cipherMode = cipherMode;
     this.fieldConfig = fieldConfig;
+    var dynamicKeyIdPrefix = config.getString(KryptoniteSettings.DYNAMIC_KEY_ID_PREFIX);
+    this.defaultCipherSettings = new FieldCipherSettings(
+        config.getString(KryptoniteSettings.CIPHER_ALGORITHM),
+        config.getString(KryptoniteSettings.CIPHER_DATA_KEY_IDENTIFIER),
+        dynamicKeyIdPrefix, pathDelimiter);
+    this.fieldCipherSettings = new HashMap<>();
+    fieldConfig.forEach((path, fc) -> fieldCipherSettings.put(path, new FieldCipherSettings(
+        fc.getAlgorithm().orElse(defaultCipherSettings.algorithm),
+        fc.getKeyId().orElse(defaultCipherSettings.keyId),
+        dynamicKeyIdPrefix, pathDelimiter)));
   }
 
   public AbstractConfig getConfig() {
@@ -64,14 +103,37 @@ public abstract class RecordHandler implements FieldPathMatcher {
   }
 
   public Object processField(Object object,String matchedPath) {
+    return processField(null,object,matchedPath);
+  }
+
+  /**
+   * @param context the per-record context which is needed to resolve dynamic key identifiers
+   *                and to refer to payload meta-data kept in a record header
+   */
+  public Object processField(RecordContext context,Object object,String matchedPath) {
     try {
       LOGGER.debug("{} field {}",cipherMode,matchedPath);
-      var fieldMetaData = determineFieldMetaData(object,matchedPath);
-      LOGGER.trace("field meta-data for path '{}' {}",matchedPath,fieldMetaData);
+      var settings = fieldCipherSettings.getOrDefault(matchedPath,defaultCipherSettings);
+      if (settings.pseudonymize) {
+        //NOTE: pseudonyms are one-way hence decryption leaves them as they are
+        return CipherMode.ENCRYPT == cipherMode ? pseudonymize(context,settings,object) : object;
+      }
+      if (context != null && context.usesDataKey()) {
+        return processFieldWithDataKey(context,object);
+      }
       if (CipherMode.ENCRYPT == cipherMode) {
+        var fieldMetaData = determineFieldMetaData(context,object,settings);
+        LOGGER.trace("field meta-data for path '{}' {}",matchedPath,fieldMetaData);
         var valueBytes = serdeProcessor.objectToBytes(object);
-        var encryptedField = kryptonite.cipherField(valueBytes, PayloadMetaData.from(fieldMetaData));
+        var payloadMetaData = PayloadMetaData.from(fieldMetaData);
+        var encryptedField = kryptonite.cipherField(valueBytes, payloadMetaData);
         LOGGER.debug("encrypted field: {}",encryptedField);
+        if (context != null && context.usesHeaderMetaData()) {
+          var encodedField = Base64.getEncoder().encodeToString(
+              withMetaDataIndex(context.indexOf(encryptedField.getMetaData()),encryptedField.ciphertext()));
+          LOGGER.trace("encoded field without meta-data: {}",encodedField);
+          return encodedField;
+        }
         var output = new Output(new ByteArrayOutputStream());
         KryoInstance.get().writeObject(output,encryptedField);
         var encodedField = Base64.getEncoder().encodeToString(output.toBytes());
@@ -80,7 +142,10 @@ public abstract class RecordHandler implements FieldPathMatcher {
       } else {
         var decodedField = Base64.getDecoder().decode((String)object);
         LOGGER.trace("decoded field: {}",decodedField);
-        var encryptedField = KryoInstance.get().readObject(new Input(decodedField), EncryptedField.class);
+        var encryptedField = context != null && context.usesHeaderMetaData()
+            ? new EncryptedField(context.metaDataAt(decodedField[0] & 0xFF),
+                Arrays.copyOfRange(decodedField,1,decodedField.length))
+            : KryoInstance.get().readObject(new Input(decodedField), EncryptedField.class);
         var plaintext = kryptonite.decipherField(encryptedField);
         LOGGER.trace("decrypted field: {}",plaintext);
         var restoredField = serdeProcessor.bytesToObject(plaintext);
@@ -93,42 +158,130 @@ public abstract class RecordHandler implements FieldPathMatcher {
   }
 
   public List<?> processListField(List<?> list,String matchedPath) {
-    return list.stream().map(e -> {
-          if(e instanceof List)
-            return processListField((List<?>)e,matchedPath);
-          if(e instanceof Map)
-            return processMapField((Map<?,?>)e,matchedPath);
-          return processField(e,matchedPath);
-        }
-    ).collect(Collectors.toList());
+    return processListField(null,list,matchedPath);
+  }
+
+  public List<?> processListField(RecordContext context,List<?> list,String matchedPath) {
+    var processed = new ArrayList<Object>(list.size());
+    for (var e : list) {
+      processed.add(processElement(context,e,matchedPath));
+    }
+    return processed;
   }
 
   public Map<?, ?> processMapField(Map<?, ?> map,String matchedPath) {
-    return map.entrySet().stream()
-        .map(e -> {
-          var pathUpdate = matchedPath+pathDelimiter+e.getKey();
-            if(e.getValue() instanceof List)
-              return new AbstractMap.SimpleEntry<>(e.getKey(),processListField((List<?>)e.getValue(),pathUpdate));
-            if(e.getValue() instanceof Map)
-              return new AbstractMap.SimpleEntry<>(e.getKey(), processMapField((Map<?,?>)e.getValue(),pathUpdate));
-            return new AbstractMap.SimpleEntry<>(e.getKey(), processField(e.getValue(),pathUpdate));
-        }).collect(LinkedHashMap::new,(lhm,e) -> lhm.put(e.getKey(),e.getValue()), HashMap::putAll);
-  }
-
-  private FieldMetaData determineFieldMetaData(Object object, String fieldPath) {
-    return Optional.ofNullable(fieldConfig.get(fieldPath))
-        .map(fc -> new FieldMetaData(
-            fc.getAlgorithm().orElseGet(() -> config.getString(KryptoniteSettings.CIPHER_ALGORITHM)),
-            Optional.ofNullable(object).map(o -> o.getClass().getName()).orElse(""),
-            fc.getKeyId().orElseGet(() -> config.getString(KryptoniteSettings.CIPHER_DATA_KEY_IDENTIFIER))
-            )
-        ).orElseGet(
-            () -> new FieldMetaData(
-                config.getString(KryptoniteSettings.CIPHER_ALGORITHM),
-                Optional.ofNullable(object).map(o -> o.getClass().getName()).orElse(""),
-                config.getString(KryptoniteSettings.CIPHER_DATA_KEY_IDENTIFIER)
-            )
-        );
+    return processMapField(null,map,matchedPath);
+  }
+
+  public Map<?, ?> processMapField(RecordContext context,Map<?, ?> map,String matchedPath) {
+    var processed = new LinkedHashMap<Object, Object>(capacityFor(map.size()));
+    var pathPrefix = matchedPath+pathDelimiter;
+    for (var e : map.entrySet()) {
+      processed.put(e.getKey(),processElement(context,e.getValue(),pathPrefix+e.getKey()));
+    }
+    return processed;
+  }
+
+  /**
+   * @return whether a companion blind index field is to be emitted next to the matched field, callers skip it
+   * nonetheless if the record already has a field of that name
+   */
+  public boolean emitsBlindIndex(FieldConfig fc) {
+    return CipherMode.ENCRYPT == cipherMode && fc.getBlindIndex().orElse(false);
+  }
+
+  /**
+   * Computes the blind index of the original field value with the field's keyset. Strings are normalized
+   * (NFKC, stripped, lower case) beforehand so that lookups match irrespective of such minor differences,
+   * other values except for raw bytes are hashed on their serialized form.
+   */
+  public String blindIndex(RecordContext context, Object object, String matchedPath) {
+    if (object == null) {
+      return null;
+    }
+    try {
+      var settings = fieldCipherSettings.getOrDefault(matchedPath,defaultCipherSettings);
+      var index = kryptonite.blindIndex(normalizeForBlindIndex(object),settings.resolveKeyId(context));
+      return Base64.getEncoder().withoutPadding().encodeToString(index);
+    } catch (Exception e) {
+      throw new DataException("error: blind index of field path '"+matchedPath+"' failed unexpectedly",e);
+    }
+  }
+
+  byte[] normalizeForBlindIndex(Object object) {
+    if (object instanceof byte[]) {
+      return (byte[])object;
+    }
+    if (object instanceof String) {
+      return Normalizer.normalize(((String)object).strip(),Normalizer.Form.NFKC).toLowerCase(Locale.ROOT)
+          .getBytes(StandardCharsets.UTF_8);
+    }
+    //NOTE: other values are hashed on their serialized bytes since their string representation may be ambiguous
+    return serdeProcessor.objectToBytes(object);
+  }
+
+  /**
+   * @return the key identifier of the default cipher settings for the given record which is e.g. used to wrap data keys
+   */
+  public String resolveDefaultKeyId(RecordContext context) {
+    return defaultCipherSettings.resolveKeyId(context);
+  }
+
+  /**
+   * @return whether any field requires the whole record in order to resolve its key identifier
+   */
+  public boolean hasDynamicKeyIds() {
+    return CipherMode.ENCRYPT == cipherMode
+        && (defaultCipherSettings.keyIdExtractor != null
+            || fieldCipherSettings.values().stream().anyMatch(s -> s.keyIdExtractor != null));
+  }
+
+  private String pseudonymize(RecordContext context, FieldCipherSettings settings, Object object) {
+    var pseudonym = kryptonite.pseudonymizeField(serdeProcessor.objectToBytes(object),settings.resolveKeyId(context));
+    var encodedField = Base64.getEncoder().withoutPadding().encodeToString(pseudonym);
+    LOGGER.trace("encoded pseudonym: {}",encodedField);
+    return encodedField;
+  }
+
+  private Object processFieldWithDataKey(RecordContext context, Object object) {
+    var dataKey = context.getDataKey();
+    if (CipherMode.ENCRYPT == cipherMode) {
+      var ciphertext = dataKey.encrypt(serdeProcessor.objectToBytes(object),context.getDataKeyAssociatedData());
+      var encodedField = Base64.getEncoder().encodeToString(ciphertext);
+      LOGGER.trace("encoded field encrypted with data key: {}",encodedField);
+      return encodedField;
+    }
+    var plaintext = dataKey.decrypt(Base64.getDecoder().decode((String)object),context.getDataKeyAssociatedData());
+    var restoredField = serdeProcessor.bytesToObject(plaintext);
+    LOGGER.debug("restored field: {}",restoredField);
+    return restoredField;
+  }
+
+  private Object processElement(RecordContext context, Object element, String path) {
+    if(element instanceof List)
+      return processListField(context,(List<?>)element,path);
+    if(element instanceof Map)
+      return processMapField(context,(Map<?,?>)element,path);
+    return processField(context,element,path);
+  }
+
+  private static byte[] withMetaDataIndex(int index, byte[] ciphertext) {
+    var bytes = new byte[ciphertext.length + 1];
+    bytes[0] = (byte)index;
+    System.arraycopy(ciphertext,0,bytes,1,ciphertext.length);
+    return bytes;
+  }
+
+  private static int capacityFor(int size) {
+    return size < 3 ? size + 1 : (int)(size / 0.75f) + 1;
+  }
+
+  private FieldMetaData determineFieldMetaData(RecordContext context, Object object, FieldCipherSettings settings) {
+    return new FieldMetaData(
+        settings.algorithm,
+        object != null ? object.getClass().getName() : "",
+        settings.resolveKeyId(context)
+    );
   }
 
 }
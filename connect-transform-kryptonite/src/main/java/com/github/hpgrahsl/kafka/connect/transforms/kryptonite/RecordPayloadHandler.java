@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.connect.transforms.kryptonite;
+
+import com.github.hpgrahsl.kryptonite.CipherMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.common.cache.Cache;
+import org.apache.kafka.common.cache.LRUCache;
+import org.apache.kafka.common.cache.SynchronizedCache;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.transforms.util.SchemaUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Record-level counterpart of the field-level processing in {@link RecordHandler}. All matched top-level fields
+ * of a record are serialized together, encrypted with a single AEAD call and stored in one payload field while
+ * all other fields are left as is. For schema-aware records the matched fields are kept as a struct so that
+ * the payload carries its own schema, hence decryption restores the original field schemas without any schema
+ * specs in the field config. Restored fields are appended after the remaining fields of the record.
+ */
+public class RecordPayloadHandler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RecordPayloadHandler.class);
+
+  /**
+   * Precompiled layout for a specific pair of original and resulting schema.
+   */
+  private static final class PayloadPlan {
+
+    private final Schema schemaNew;
+    private final Field[] remainingOriginal;
+    private final Field[] remainingNew;
+    private final Field[] payloadFields;
+    private final Schema payloadSchema;
+    private final Field payloadField;
+    private final Cache<SchemaFingerprint, PayloadPlan> restoredPlans;
+
+    private PayloadPlan(Schema schemaNew, Field[] remainingOriginal, Field[] remainingNew,
+        Field[] payloadFields, Schema payloadSchema, Field payloadField) {
+      this.schemaNew = schemaNew;
+      this.remainingOriginal = remainingOriginal;
+      this.remainingNew = remainingNew;
+      this.payloadFields = payloadFields;
+      this.payloadSchema = payloadSchema;
+      this.payloadField = payloadField;
+      this.restoredPlans = payloadField != null && payloadSchema == null
+          ? new SynchronizedCache<>(new LRUCache<>(16)) : null;
+    }
+
+  }
+
+  private final RecordHandler recordHandler;
+  private final CipherMode cipherMode;
+  private final String payloadFieldName;
+  private final Map<String, FieldConfig> fieldConfig;
+  private final IdentityCache<Schema, PayloadPlan> plans = new IdentityCache<>(64);
+
+  public RecordPayloadHandler(RecordHandler recordHandler, CipherMode cipherMode,
+      Map<String, FieldConfig> fieldConfig, String payloadFieldName) {
+    this.recordHandler = recordHandler;
+    this.cipherMode = cipherMode;
+    this.fieldConfig = fieldConfig;
+    this.payloadFieldName = payloadFieldName;
+  }
+
+  public Map<String, Object> processRecord(RecordContext context, Map<String, Object> dataOriginal) {
+    if (CipherMode.ENCRYPT == cipherMode) {
+      var dataNew = new LinkedHashMap<String, Object>(dataOriginal.size());
+      var payload = new LinkedHashMap<String, Object>();
+      dataOriginal.forEach((f, v) -> {
+        if (fieldConfig.containsKey(f)) {
+          payload.put(f, v);
+        } else {
+          dataNew.put(f, v);
+        }
+      });
+      if (payload.isEmpty()) {
+        return dataOriginal;
+      }
+      LOGGER.trace("encrypting fields {} into payload field '{}'", payload.keySet(), payloadFieldName);
+      dataNew.put(payloadFieldName, recordHandler.processField(context, payload, payloadFieldName));
+      return dataNew;
+    }
+    var encodedPayload = dataOriginal.get(payloadFieldName);
+    if (encodedPayload == null) {
+      return dataOriginal;
+    }
+    var restored = recordHandler.processField(context, encodedPayload, payloadFieldName);
+    if (!(restored instanceof Map)) {
+      throw new DataException("error: payload field '" + payloadFieldName + "' expected to contain a map but found "
+          + (restored != null ? restored.getClass().getName() : null));
+    }
+    var dataNew = new LinkedHashMap<>(dataOriginal);
+    dataNew.remove(payloadFieldName);
+    ((Map<?, ?>) restored).forEach((f, v) -> dataNew.put((String) f, v));
+    return dataNew;
+  }
+
+  public Struct processStruct(RecordContext context, Struct dataOriginal) {
+    var plan = plans.get(dataOriginal.schema());
+    if (plan == null) {
+      plan = CipherMode.ENCRYPT == cipherMode
+          ? compileEncryptPlan(dataOriginal.schema())
+          : compileDecryptPlan(dataOriginal.schema());
+      plans.put(dataOriginal.schema(), plan);
+    }
+    if (plan.payloadField == null) {
+      return dataOriginal;
+    }
+    if (CipherMode.ENCRYPT == cipherMode) {
+      var payload = new Struct(plan.payloadSchema);
+      for (var f : plan.payloadFields) {
+        payload.put(f.name(), dataOriginal.get(f));
+      }
+      var dataNew = new Struct(plan.schemaNew);
+      copyFields(plan.remainingOriginal, dataOriginal, plan.remainingNew, dataNew);
+      dataNew.put(plan.payloadField, recordHandler.processField(context, payload, payloadFieldName));
+      return dataNew;
+    }
+    var encodedPayload = dataOriginal.get(plan.payloadField);
+    if (encodedPayload == null) {
+      throw new DataException("error: payload field '" + payloadFieldName + "' must not be null");
+    }
+    var restored = recordHandler.processField(context, encodedPayload, payloadFieldName);
+    if (!(restored instanceof Struct)) {
+      throw new DataException("error: payload field '" + payloadFieldName + "' expected to contain a struct but found "
+          + (restored != null ? restored.getClass().getName() : null));
+    }
+    var payload = (Struct) restored;
+    var restoredPlan = restoredPlanFor(plan, dataOriginal.schema(), payload.schema());
+    var dataNew = new Struct(restoredPlan.schemaNew);
+    copyFields(plan.remainingOriginal, dataOriginal, restoredPlan.remainingNew, dataNew);
+    for (int i = 0; i < restoredPlan.payloadFields.length; i++) {
+      dataNew.put(restoredPlan.payloadFields[i], payload.get(payload.schema().fields().get(i)));
+    }
+    return dataNew;
+  }
+
+  private PayloadPlan compileEncryptPlan(Schema schemaOriginal) {
+    var builder = SchemaUtil.copySchemaBasics(schemaOriginal);
+    var payloadBuilder = SchemaBuilder.struct();
+    var remaining = new ArrayList<Field>();
+    var selected = new ArrayList<Field>();
+    for (var f : schemaOriginal.fields()) {
+      if (fieldConfig.containsKey(f.name())) {
+        payloadBuilder.field(f.name(), f.schema());
+        selected.add(f);
+      } else {
+        builder.field(f.name(), f.schema());
+        remaining.add(f);
+      }
+    }
+    if (selected.isEmpty()) {
+      return new PayloadPlan(schemaOriginal, null, null, null, null, null);
+    }
+    builder.field(payloadFieldName, Schema.STRING_SCHEMA);
+    var schemaNew = schemaOriginal.isOptional() ? builder.optional().build() : builder.build();
+    return new PayloadPlan(schemaNew, remaining.toArray(new Field[0]), fieldsOf(schemaNew, remaining),
+        selected.toArray(new Field[0]), payloadBuilder.build(), schemaNew.field(payloadFieldName));
+  }
+
+  private PayloadPlan compileDecryptPlan(Schema schemaOriginal) {
+    var payloadField = schemaOriginal.field(payloadFieldName);
+    if (payloadField == null) {
+      return new PayloadPlan(schemaOriginal, null, null, null, null, null);
+    }
+    var remaining = new ArrayList<Field>();
+    for (var f : schemaOriginal.fields()) {
+      if (!f.name().equals(payloadFieldName)) {
+        remaining.add(f);
+      }
+    }
+    return new PayloadPlan(null, remaining.toArray(new Field[0]), null, null, null, payloadField);
+  }
+
+  private PayloadPlan restoredPlanFor(PayloadPlan plan, Schema schemaOriginal, Schema payloadSchema) {
+    var fingerprint = SchemaFingerprint.of(payloadSchema);
+    var restoredPlan = plan.restoredPlans.get(fingerprint);
+    //NOTE: fingerprints aren't collision-resistant hence hits are verified against the payload schema they were built for
+    if (restoredPlan == null || !payloadSchema.equals(restoredPlan.payloadSchema)) {
+      var builder = SchemaUtil.copySchemaBasics(schemaOriginal);
+      var remaining = List.of(plan.remainingOriginal);
+      remaining.forEach(f -> builder.field(f.name(), f.schema()));
+      payloadSchema.fields().forEach(f -> builder.field(f.name(), f.schema()));
+      var schemaNew = schemaOriginal.isOptional() ? builder.optional().build() : builder.build();
+      restoredPlan = new PayloadPlan(schemaNew, null, fieldsOf(schemaNew, remaining),
+          fieldsOf(schemaNew, payloadSchema.fields()), payloadSchema, null);
+      plan.restoredPlans.put(fingerprint, restoredPlan);
+    }
+    return restoredPlan;
+  }
+
+  private static void copyFields(Field[] fieldsOriginal, Struct dataOriginal, Field[] fieldsNew, Struct dataNew) {
+    for (int i = 0; i < fieldsOriginal.length; i++) {
+      dataNew.put(fieldsNew[i], dataOriginal.get(fieldsOriginal[i]));
+    }
+  }
+
+  private static Field[] fieldsOf(Schema schema, List<Field> fields) {
+    var result = new Field[fields.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = schema.field(fields.get(i).name());
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.connect.transforms.kryptonite;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+
+/**
+ * 128-bit structural fingerprint of a connect {@link Schema}. It covers everything that {@code ConnectSchema.equals}
+ * compares, i.e. type, optionality, default value, name, version, doc, parameters, fields as well as key and value
+ * schemas. Default values are hashed by their full content, including nested lists, maps and structs. The fingerprint
+ * is computed with a single pass over the schema tree and afterwards serves as cache key, so that cache lookups only
+ * need to compare two longs. It isn't collision-resistant though, hence a cache hit must still be verified against
+ * the schema the cached entry was built for before using it.
+ */
+public final class SchemaFingerprint {
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+  private static final long MIX_MULTIPLIER_1 = 0x9e3779b97f4a7c15L;
+  private static final long MIX_MULTIPLIER_2 = 0xc2b2ae3d27d4eb4fL;
+
+  private final long high;
+  private final long low;
+
+  private SchemaFingerprint(long high, long low) {
+    this.high = high;
+    this.low = low;
+  }
+
+  public static SchemaFingerprint of(Schema schema) {
+    var hasher = new Hasher();
+    hasher.putSchema(schema);
+    return new SchemaFingerprint(hasher.h1, hasher.h2);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof SchemaFingerprint)) return false;
+    SchemaFingerprint that = (SchemaFingerprint) o;
+    return high == that.high && low == that.low;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(high ^ low);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%016x%016x", high, low);
+  }
+
+  private static final class Hasher {
+
+    private long h1 = FNV_OFFSET_BASIS;
+    private long h2 = MIX_MULTIPLIER_2;
+
+    private void putLong(long value) {
+      h1 = (h1 ^ value) * FNV_PRIME;
+      h2 = Long.rotateLeft(h2 ^ (value * MIX_MULTIPLIER_1), 29) * MIX_MULTIPLIER_2;
+    }
+
+    private void putString(String value) {
+      if (value == null) {
+        putLong(-1L);
+        return;
+      }
+      putLong(value.length());
+      for (int i = 0; i < value.length(); i++) {
+        putLong(value.charAt(i));
+      }
+    }
+
+    private void putSchema(Schema schema) {
+      if (schema == null) {
+        putLong(-2L);
+        return;
+      }
+      putLong(schema.type().ordinal());
+      putLong(schema.isOptional() ? 1L : 0L);
+      putString(schema.name());
+      putLong(schema.version() == null ? -1L : schema.version());
+      putString(schema.doc());
+      putValue(schema.defaultValue());
+      putParameters(schema.parameters());
+      switch (schema.type()) {
+        case STRUCT:
+          putLong(schema.fields().size());
+          for (var field : schema.fields()) {
+            putString(field.name());
+            putLong(field.index());
+            putSchema(field.schema());
+          }
+          break;
+        case ARRAY:
+          putSchema(schema.valueSchema());
+          break;
+        case MAP:
+          putSchema(schema.keySchema());
+          putSchema(schema.valueSchema());
+          break;
+        default:
+      }
+    }
+
+    private void putValue(Object value) {
+      //NOTE: every kind of value is tagged upfront so that values of different types never hash alike
+      if (value == null) {
+        putLong(-1L);
+      } else if (value instanceof String) {
+        putLong(1L);
+        putString((String) value);
+      } else if (value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof Long) {
+        putLong(2L);
+        putLong(((Number) value).longValue());
+      } else if (value instanceof Float) {
+        putLong(3L);
+        putLong(Float.floatToIntBits((Float) value));
+      } else if (value instanceof Double) {
+        putLong(4L);
+        putLong(Double.doubleToLongBits((Double) value));
+      } else if (value instanceof Boolean) {
+        putLong(5L);
+        putLong((Boolean) value ? 1L : 0L);
+      } else if (value instanceof byte[]) {
+        putLong(6L);
+        putBytes(ByteBuffer.wrap((byte[]) value));
+      } else if (value instanceof ByteBuffer) {
+        putLong(6L);
+        putBytes(((ByteBuffer) value).duplicate());
+      } else if (value instanceof BigDecimal) {
+        putLong(7L);
+        putString(value.toString());
+      } else if (value instanceof Date) {
+        putLong(8L);
+        putLong(((Date) value).getTime());
+      } else if (value instanceof List) {
+        putLong(9L);
+        var list = (List<?>) value;
+        putLong(list.size());
+        list.forEach(this::putValue);
+      } else if (value instanceof Map) {
+        putLong(10L);
+        //NOTE: maps are compared irrespective of their order hence entries are combined commutatively
+        var map = (Map<?, ?>) value;
+        long combined = 0L;
+        for (var entry : map.entrySet()) {
+          var entryHasher = new Hasher();
+          entryHasher.putValue(entry.getKey());
+          entryHasher.putValue(entry.getValue());
+          combined += entryHasher.h1 ^ entryHasher.h2;
+        }
+        putLong(map.size());
+        putLong(combined);
+      } else if (value instanceof Struct) {
+        putLong(11L);
+        var struct = (Struct) value;
+        putSchema(struct.schema());
+        struct.schema().fields().forEach(field -> putValue(struct.get(field)));
+      } else {
+        putLong(12L);
+        putString(value.getClass().getName());
+        putString(value.toString());
+      }
+    }
+
+    private void putBytes(ByteBuffer bytes) {
+      putLong(bytes.remaining());
+      while (bytes.hasRemaining()) {
+        putLong(bytes.get());
+      }
+    }
+
+    private void putParameters(Map<String, String> parameters) {
+      if (parameters == null) {
+        putLong(-1L);
+        return;
+      }
+      //NOTE: parameter maps are compared irrespective of their order hence entries are combined commutatively
+      long combined = 0L;
+      for (var entry : parameters.entrySet()) {
+        var entryHasher = new Hasher();
+        entryHasher.putString(entry.getKey());
+        entryHasher.putString(entry.getValue());
+        combined += entryHasher.h1 ^ entryHasher.h2;
+      }
+      putLong(parameters.size());
+      putLong(combined);
+    }
+
+  }
+
+}
@@ -18,6 +18,7 @@ package com.github.hpgrahsl.kafka.connect.transforms.kryptonite;
 
 import com.github.hpgrahsl.kafka.connect.transforms.kryptonite.CipherField.FieldMode;
 import com.github.hpgrahsl.kryptonite.CipherMode;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -42,6 +43,21 @@ public class SchemaRewriter {
   private final CipherMode cipherMode;
   private final String pathDelimiter;
   private final TypeSchemaMapper typeSchemaMapper;
+  private final Map<String, DecryptSpec> decryptSpecs;
+
+  private static final class DecryptSpec {
+
+    private final Type type;
+    private final Schema schema;
+    private final DataException error;
+
+    private DecryptSpec(Type type, Schema schema, DataException error) {
+      this.type = type;
+      this.schema = schema;
+      this.error = error;
+    }
+
+  }
 
   public SchemaRewriter(
       Map<String, FieldConfig> fieldConfig,
@@ -51,6 +67,7 @@ public class SchemaRewriter {
     this.cipherMode = cipherMode;
     this.pathDelimiter = pathDelimiter;
     this.typeSchemaMapper = new DefaultTypeSchemaMapper();
+    this.decryptSpecs = precompileDecryptSpecs();
   }
 
   public SchemaRewriter(
@@ -62,6 +79,52 @@ public class SchemaRewriter {
     this.cipherMode = cipherMode;
     this.pathDelimiter = pathDelimiter;
     this.typeSchemaMapper = typeSchemaMapper;
+    this.decryptSpecs = precompileDecryptSpecs();
+  }
+
+  /**
+   * In DECRYPT mode the target schemas are fully specified in the field config, hence they are parsed only once
+   * up-front instead of whenever a new input schema arrives. Invalid specs don't fail right away, instead the
+   * error is kept and raised as soon as the affected field is actually matched, exactly as without precompilation.
+   */
+  private Map<String, DecryptSpec> precompileDecryptSpecs() {
+    if (CipherMode.DECRYPT != cipherMode) {
+      return Map.of();
+    }
+    var specs = new HashMap<String, DecryptSpec>();
+    fieldConfig.forEach((path, fc) -> {
+      try {
+        var fieldSpec = extractFieldSpecFromConfig(path);
+        var type = extractTypeFromConfig(fieldSpec, path);
+        Schema schema = null;
+        switch (type) {
+          case ARRAY:
+            schema = extractAndAdaptArraySchemaFromConfig(fieldSpec, path);
+            break;
+          case MAP:
+            schema = extractAndAdaptMapSchemaFromConfig(fieldSpec, path);
+            break;
+          case STRUCT:
+            schema = extractAndAdaptStructSchemaFromConfig(fieldSpec, path);
+            break;
+          default:
+            //NOTE: primitive target schemas depend on the optional flag of the original field
+        }
+        specs.put(path, new DecryptSpec(type, schema, null));
+      } catch (IllegalArgumentException | ClassCastException | DataException exc) {
+        specs.put(path, new DecryptSpec(null, null,
+            exc instanceof DataException ? (DataException) exc : new DataException("hit invalid type spec for field path "+path, exc)));
+      }
+    });
+    return specs;
+  }
+
+  private DecryptSpec decryptSpecFor(String fieldPath) {
+    var spec = decryptSpecs.get(fieldPath);
+    if (spec.error != null) {
+      throw spec.error;
+    }
+    return spec;
   }
 
   public Schema adaptSchema(Schema original, String matchedPath) {
@@ -72,6 +135,11 @@ public class SchemaRewriter {
       if (fieldConfig.containsKey(updatedPath)) {
         LOGGER.debug("adapting schema for matched field '{}'",updatedPath);
         adaptField(derivePrimaryType(field,updatedPath),builder,field,updatedPath);
+        //NOTE: an already existing field of the same name is copied as is instead of being replaced by the blind index
+        if (CipherMode.ENCRYPT == cipherMode && fieldConfig.get(updatedPath).getBlindIndex().orElse(false)
+            && original.field(field.name() + RecordHandler.BLIND_INDEX_SUFFIX) == null) {
+          builder.field(field.name() + RecordHandler.BLIND_INDEX_SUFFIX, Schema.OPTIONAL_STRING_SCHEMA);
+        }
       } else {
         LOGGER.debug("copying schema for non-matched field '{}'",updatedPath);
         builder.field(field.name(), field.schema());
@@ -113,9 +181,8 @@ public class SchemaRewriter {
       } else {
         //NOTE: whether or not the array itself is optional is specified
         // in the config instead of taken from field.schema().isOptional()
-        LOGGER.trace("rebuilding field schema for type {} from config",Type.ARRAY);
-        var fieldSpec = extractFieldSpecFromConfig(fieldPath);
-        builder.field(field.name(), extractAndAdaptArraySchemaFromConfig(fieldSpec,fieldPath));
+        LOGGER.trace("using precompiled field schema for type {} from config",Type.ARRAY);
+        builder.field(field.name(), decryptSpecFor(fieldPath).schema);
       }
     } catch(IllegalArgumentException | ClassCastException exc) {
       throw new DataException("hit invalid type spec for field path "+fieldPath,exc);
@@ -135,9 +202,8 @@ public class SchemaRewriter {
       } else {
         //NOTE: whether or not the map itself is optional is specified
         // in the config instead of taken from field.schema().isOptional()
-        LOGGER.trace("rebuilding field schema for type {} from config",Type.MAP);
-        var fieldSpec = extractFieldSpecFromConfig(fieldPath);
-        builder.field(field.name(), extractAndAdaptMapSchemaFromConfig(fieldSpec,fieldPath));
+        LOGGER.trace("using precompiled field schema for type {} from config",Type.MAP);
+        builder.field(field.name(), decryptSpecFor(fieldPath).schema);
       }
     } catch(IllegalArgumentException | ClassCastException exc) {
       throw new DataException("hit invalid type spec for field path "+fieldPath,exc);
@@ -155,9 +221,8 @@ public class SchemaRewriter {
       } else {
         //NOTE: whether or not the struct itself is optional is specified
         // in the config instead of taken from field.schema().isOptional()
-        LOGGER.trace("rebuilding field schema for type {} from config",Type.STRUCT);
-        var fieldSpec = extractFieldSpecFromConfig(fieldPath);
-        builder.field(field.name(),extractAndAdaptStructSchemaFromConfig(fieldSpec,fieldPath));
+        LOGGER.trace("using precompiled field schema for type {} from config",Type.STRUCT);
+        builder.field(field.name(),decryptSpecFor(fieldPath).schema);
       }
   }
 
@@ -165,13 +230,7 @@ public class SchemaRewriter {
     try {
       if(CipherMode.ENCRYPT == cipherMode)
         return field.schema().type();
-      var fc = fieldConfig.get(fieldPath);
-      var fs = fc.getSchema().orElseThrow(
-          () -> new DataException(
-              "schema-aware data needs schema spec for "+cipherMode+" but none was given"
-                  + " for field path '"+fieldPath+"'")
-      );
-      return extractTypeFromConfig(fs,fieldPath);
+      return decryptSpecFor(fieldPath).type;
     } catch(IllegalArgumentException exc) {
       throw new DataException("hit invalid type spec for field path "+fieldPath,exc);
     }
@@ -42,9 +42,57 @@ public class SchemaawareRecordHandler extends RecordHandler {
     super(config, serdeProcessor, kryptonite, cipherMode, fieldConfig);
   }
 
+  public StructCopyPlan compilePlan(Schema schemaOriginal, Schema schemaNew) {
+    return StructCopyPlan.compile(schemaOriginal, schemaNew, fieldConfig,
+        FieldMode.valueOf(getConfig().getString(KryptoniteSettings.FIELD_MODE)), pathDelimiter, "");
+  }
+
+  /**
+   * Builds the resulting struct according to a precompiled {@link StructCopyPlan} which yields the
+   * same result as {@link #matchFields(Schema, Object, Schema, Object, String)} but doesn't need to
+   * match any field paths and bulk copies all non-matched fields.
+   */
+  public Struct processStruct(StructCopyPlan plan, Struct dataOriginal) {
+    return processStruct(plan, dataOriginal, RecordContext.of(dataOriginal));
+  }
+
+  public Struct processStruct(StructCopyPlan plan, Struct dataOriginal, RecordContext context) {
+    var dataNew = new Struct(plan.getSchemaNew());
+    plan.copyNonMatchedFields(dataOriginal, dataNew);
+    for (var mf : plan.getMatchedFields()) {
+      var value = dataOriginal.get(mf.original);
+      switch (mf.action) {
+        case PROCESS_LIST_ELEMENTS:
+          dataNew.put(mf.updated, processListField(context, (List<?>)value, mf.path));
+          break;
+        case PROCESS_MAP_ELEMENTS:
+          dataNew.put(mf.updated, processMapField(context, (Map<?,?>)value, mf.path));
+          break;
+        case PROCESS_STRUCT_ELEMENTS:
+          if (value != null) {
+            dataNew.put(mf.updated, processStruct(mf.nestedPlan, (Struct)value, context));
+          } else {
+            LOGGER.trace("value of {} field was null -> skip element-wise sub-field matching",Type.STRUCT);
+          }
+          break;
+        default:
+          dataNew.put(mf.updated, processField(context, value, mf.path));
+      }
+      if (mf.blindIndex != null) {
+        dataNew.put(mf.blindIndex, blindIndex(context, value, mf.path));
+      }
+    }
+    return dataNew;
+  }
+
   @Override
   public Object matchFields(Schema schemaOriginal, Object objectOriginal, Schema schemaNew,
       Object objectNew, String matchedPath) {
+    return matchFields(schemaOriginal, objectOriginal, schemaNew, objectNew, matchedPath, RecordContext.of(objectOriginal));
+  }
+
+  private Object matchFields(Schema schemaOriginal, Object objectOriginal, Schema schemaNew,
+      Object objectNew, String matchedPath, RecordContext context) {
     LOGGER.debug("checking fields in record {}",objectOriginal);
     var dataOriginal = (Struct)objectOriginal;
     var dataNew = (Struct)objectNew;
@@ -57,25 +105,28 @@ public class SchemaawareRecordHandler extends RecordHandler {
                   .orElse(FieldMode.valueOf(getConfig().getString(KryptoniteSettings.FIELD_MODE)))) {
             if(f.schema().type() == Type.ARRAY){
               LOGGER.trace("processing {} field element-wise",Type.ARRAY);
-              dataNew.put(schemaNew.field(f.name()), processListField((List<?>)dataOriginal.get(f.name()),updatedPath));
+              dataNew.put(schemaNew.field(f.name()), processListField(context,(List<?>)dataOriginal.get(f.name()),updatedPath));
             } else if(f.schema().type() == Type.MAP) {
               LOGGER.trace("processing {} field element-wise",Type.MAP);
-              dataNew.put(schemaNew.field(f.name()), processMapField((Map<?,?>)dataOriginal.get(f.name()),updatedPath));
+              dataNew.put(schemaNew.field(f.name()), processMapField(context,(Map<?,?>)dataOriginal.get(f.name()),updatedPath));
             } else if(f.schema().type() == Type.STRUCT) {
               if (dataOriginal.get(f.name()) != null) {
                 LOGGER.trace("processing {} field element-wise",Type.STRUCT);
                 dataNew.put(schemaNew.field(f.name()),
-                    matchFields(f.schema(),dataOriginal.get(f.name()),schemaNew.field(f.name()).schema(),new Struct(schemaNew.field(f.name()).schema()),updatedPath));
+                    matchFields(f.schema(),dataOriginal.get(f.name()),schemaNew.field(f.name()).schema(),new Struct(schemaNew.field(f.name()).schema()),updatedPath,context));
               } else {
                 LOGGER.trace("value of {} field was null -> skip element-wise sub-field matching",Type.STRUCT);
               }
             } else {
               LOGGER.trace("processing primitive field of type {}",f.schema().type());
-              dataNew.put(schemaNew.field(f.name()), processField(dataOriginal.get(f.name()), updatedPath));
+              dataNew.put(schemaNew.field(f.name()), processField(context, dataOriginal.get(f.name()), updatedPath));
             }
           } else {
             LOGGER.trace("processing field of type {}",f.schema().type());
-            dataNew.put(schemaNew.field(f.name()), processField(dataOriginal.get(f.name()), updatedPath));
+            dataNew.put(schemaNew.field(f.name()), processField(context, dataOriginal.get(f.name()), updatedPath));
+          }
+          if(emitsBlindIndex(fc) && schemaOriginal.field(f.name()+BLIND_INDEX_SUFFIX) == null) {
+            dataNew.put(schemaNew.field(f.name()+BLIND_INDEX_SUFFIX), blindIndex(context, dataOriginal.get(f.name()), updatedPath));
           }
         } else {
           LOGGER.trace("copying non-matched field '{}'",updatedPath);
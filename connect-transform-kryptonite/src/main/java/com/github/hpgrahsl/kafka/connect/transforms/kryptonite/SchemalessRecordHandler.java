@@ -26,6 +26,7 @@ import org.apache.kafka.connect.data.Schema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -33,11 +34,43 @@ public class SchemalessRecordHandler extends RecordHandler {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(SchemalessRecordHandler.class);
 
+  protected final FieldMode defaultFieldMode;
+
   public SchemalessRecordHandler(AbstractConfig config,
                                  SerdeProcessor serdeProcessor, Kryptonite kryptonite,
                                  CipherMode cipherMode,
                                  Map<String, FieldConfig> fieldConfig) {
     super(config, serdeProcessor, kryptonite, cipherMode, fieldConfig);
+    this.defaultFieldMode = FieldMode.valueOf(config.getString(KryptoniteSettings.FIELD_MODE));
+  }
+
+  /**
+   * Copy-on-write variant of {@link #matchFields(Schema, Object, Schema, Object, String)}. Instead of visiting
+   * every field of the record, only the configured field paths are looked up. The top-level map is cloned once
+   * upon the first matching field and all non-matched values are shared with the original record. If no field
+   * matches at all, the original record is returned as is.
+   */
+  public Map<String, Object> processRecord(Map<String, Object> dataOriginal) {
+    return processRecord(RecordContext.of(dataOriginal), dataOriginal);
+  }
+
+  public Map<String, Object> processRecord(RecordContext context, Map<String, Object> dataOriginal) {
+    Map<String, Object> dataNew = null;
+    for (var entry : fieldConfig.entrySet()) {
+      var f = entry.getKey();
+      if (!dataOriginal.containsKey(f)) {
+        continue;
+      }
+      LOGGER.trace("matched field '{}'",f);
+      if (dataNew == null) {
+        dataNew = new LinkedHashMap<>(dataOriginal);
+      }
+      dataNew.put(f, processMatchedField(context, entry.getValue(), dataOriginal.get(f), f));
+      if (emitsBlindIndex(entry.getValue()) && !dataOriginal.containsKey(f + BLIND_INDEX_SUFFIX)) {
+        dataNew.put(f + BLIND_INDEX_SUFFIX, blindIndex(context, dataOriginal.get(f), f));
+      }
+    }
+    return dataNew != null ? dataNew : dataOriginal;
   }
 
   @SuppressWarnings("unchecked")
@@ -47,26 +80,15 @@ public class SchemalessRecordHandler extends RecordHandler {
     LOGGER.debug("checking fields in record {}",objectOriginal);
     var dataOriginal = (Map<String, Object>)objectOriginal;
     var dataNew =  (Map<String, Object>)objectNew;
+    var context = RecordContext.of(objectOriginal);
     dataOriginal.forEach((f,v) -> {
       var updatedPath = matchedPath.isEmpty() ? f : matchedPath+pathDelimiter+f;
       var fc = fieldConfig.get(updatedPath);
       if(fc != null) {
             LOGGER.trace("matched field '{}'",updatedPath);
-            if(FieldMode.ELEMENT == fc.getFieldMode()
-                    .orElse(FieldMode.valueOf(getConfig().getString(KryptoniteSettings.FIELD_MODE)))) {
-              if(v instanceof List) {
-                LOGGER.trace("processing {} field element-wise", List.class.getSimpleName());
-                dataNew.put(f, processListField((List<?>)dataOriginal.get(f),updatedPath));
-              } else if(v instanceof Map) {
-                LOGGER.trace("processing {} field element-wise", Map.class.getSimpleName());
-                dataNew.put(f, processMapField((Map<?,?>)dataOriginal.get(f),updatedPath));
-              } else {
-                LOGGER.trace("processing primitive field");
-                dataNew.put(f, processField(dataOriginal.get(f), updatedPath));
-              }
-            } else {
-              LOGGER.trace("processing field");
-              dataNew.put(f, processField(dataOriginal.get(f), updatedPath));
+            dataNew.put(f, processMatchedField(context, fc, v, updatedPath));
+            if(emitsBlindIndex(fc) && !dataOriginal.containsKey(f + BLIND_INDEX_SUFFIX)) {
+              dataNew.put(f + BLIND_INDEX_SUFFIX, blindIndex(context, v, updatedPath));
             }
           } else {
             LOGGER.trace("copying non-matched field '{}'",updatedPath);
@@ -76,4 +98,21 @@ public class SchemalessRecordHandler extends RecordHandler {
     return dataNew;
   }
 
+  protected Object processMatchedField(RecordContext context, FieldConfig fc, Object v, String path) {
+    if(FieldMode.ELEMENT == fc.getFieldMode().orElse(defaultFieldMode)) {
+      if(v instanceof List) {
+        LOGGER.trace("processing {} field element-wise", List.class.getSimpleName());
+        return processListField(context,(List<?>)v,path);
+      }
+      if(v instanceof Map) {
+        LOGGER.trace("processing {} field element-wise", Map.class.getSimpleName());
+        return processMapField(context,(Map<?,?>)v,path);
+      }
+      LOGGER.trace("processing primitive field");
+      return processField(context, v, path);
+    }
+    LOGGER.trace("processing field");
+    return processField(context, v, path);
+  }
+
 }
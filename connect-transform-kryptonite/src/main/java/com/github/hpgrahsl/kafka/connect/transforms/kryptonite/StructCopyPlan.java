@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.connect.transforms.kryptonite;
+
+import com.github.hpgrahsl.kafka.connect.transforms.kryptonite.CipherField.FieldMode;
+import java.util.ArrayList;
+import java.util.Map;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Schema.Type;
+import org.apache.kafka.connect.data.Struct;
+
+/**
+ * Precompiled plan to build the resulting {@link Struct} for a specific pair of original and adapted schema.
+ * Field matching happens once per schema instead of once per record, i.e. both non-matched fields, which are
+ * copied as is, and (de)ciphered fields are written with {@link Struct#put(Field, Object)} using the fields
+ * resolved by the plan instead of looking them up by name for every record.
+ */
+public class StructCopyPlan {
+
+  enum Action {
+    PROCESS_FIELD,
+    PROCESS_LIST_ELEMENTS,
+    PROCESS_MAP_ELEMENTS,
+    PROCESS_STRUCT_ELEMENTS
+  }
+
+  static final class MatchedField {
+
+    final Field original;
+    final Field updated;
+    final String path;
+    final Action action;
+    final StructCopyPlan nestedPlan;
+    final Field blindIndex;
+
+    MatchedField(Field original, Field updated, String path, Action action, StructCopyPlan nestedPlan, Field blindIndex) {
+      this.original = original;
+      this.updated = updated;
+      this.path = path;
+      this.action = action;
+      this.nestedPlan = nestedPlan;
+      this.blindIndex = blindIndex;
+    }
+
+  }
+
+  private final Schema schemaOriginal;
+  private final Schema schemaNew;
+  private final Field[] copiedOriginal;
+  private final Field[] copiedUpdated;
+  private final MatchedField[] matchedFields;
+
+  private StructCopyPlan(Schema schemaOriginal, Schema schemaNew,
+      Field[] copiedOriginal, Field[] copiedUpdated, MatchedField[] matchedFields) {
+    this.schemaOriginal = schemaOriginal;
+    this.schemaNew = schemaNew;
+    this.copiedOriginal = copiedOriginal;
+    this.copiedUpdated = copiedUpdated;
+    this.matchedFields = matchedFields;
+  }
+
+  public static StructCopyPlan compile(Schema schemaOriginal, Schema schemaNew,
+      Map<String, FieldConfig> fieldConfig, FieldMode defaultFieldMode, String pathDelimiter, String matchedPath) {
+    var copiedOriginal = new ArrayList<Field>();
+    var copiedUpdated = new ArrayList<Field>();
+    var matchedFields = new ArrayList<MatchedField>();
+    for (var f : schemaOriginal.fields()) {
+      var updatedPath = matchedPath.isEmpty() ? f.name() : matchedPath+pathDelimiter+f.name();
+      var updatedField = schemaNew.field(f.name());
+      var fc = fieldConfig.get(updatedPath);
+      if (fc == null) {
+        copiedOriginal.add(f);
+        copiedUpdated.add(updatedField);
+        continue;
+      }
+      var action = Action.PROCESS_FIELD;
+      StructCopyPlan nestedPlan = null;
+      if (FieldMode.ELEMENT == fc.getFieldMode().orElse(defaultFieldMode)) {
+        if (f.schema().type() == Type.ARRAY) {
+          action = Action.PROCESS_LIST_ELEMENTS;
+        } else if (f.schema().type() == Type.MAP) {
+          action = Action.PROCESS_MAP_ELEMENTS;
+        } else if (f.schema().type() == Type.STRUCT) {
+          action = Action.PROCESS_STRUCT_ELEMENTS;
+          nestedPlan = compile(f.schema(), updatedField.schema(), fieldConfig, defaultFieldMode, pathDelimiter, updatedPath);
+        }
+      }
+      //NOTE: the blind index field only needs to be filled if it has been added by the schema rewriter
+      var blindIndexName = f.name() + RecordHandler.BLIND_INDEX_SUFFIX;
+      var blindIndexField = fc.getBlindIndex().orElse(false) && schemaOriginal.field(blindIndexName) == null
+          ? schemaNew.field(blindIndexName) : null;
+      matchedFields.add(new MatchedField(f, updatedField, updatedPath, action, nestedPlan, blindIndexField));
+    }
+    return new StructCopyPlan(schemaOriginal, schemaNew,
+        copiedOriginal.toArray(new Field[0]), copiedUpdated.toArray(new Field[0]),
+        matchedFields.toArray(new MatchedField[0]));
+  }
+
+  public Schema getSchemaOriginal() {
+    return schemaOriginal;
+  }
+
+  public Schema getSchemaNew() {
+    return schemaNew;
+  }
+
+  MatchedField[] getMatchedFields() {
+    return matchedFields;
+  }
+
+  /**
+   * Copies the values of all non-matched fields by reference, i.e. nested structs, lists and maps are reused
+   * instead of being copied. Note that this still validates every value, since {@link Struct} doesn't offer any
+   * way to put a value without validating it, which includes a deep validation of nested structs, lists and maps.
+   * Skipping this validation for values which stem from an already valid original struct isn't supported for now.
+   */
+  void copyNonMatchedFields(Struct dataOriginal, Struct dataNew) {
+    for (int i = 0; i < copiedOriginal.length; i++) {
+      dataNew.put(copiedUpdated[i], dataOriginal.get(copiedOriginal[i]));
+    }
+  }
+
+}
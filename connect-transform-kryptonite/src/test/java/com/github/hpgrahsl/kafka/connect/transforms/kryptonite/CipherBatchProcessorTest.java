@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.connect.transforms.kryptonite;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class CipherBatchProcessorTest {
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 3})
+  @DisplayName("apply batch processing decrypt(encrypt(plaintext)) = plaintext for mixed records of several partitions")
+  void encryptDecryptBatchTest(int parallelism) {
+    var originals = new ArrayList<SinkRecord>();
+    for (int i = 0; i < 30; i++) {
+      var partition = i % 3;
+      originals.add(i % 2 == 0
+          ? new SinkRecord("some-kafka-topic", partition, null, null,
+              TestFixtures.TEST_OBJ_SCHEMA_1, TestFixtures.TEST_OBJ_STRUCT_1, i)
+          : new SinkRecord("some-kafka-topic", partition, null, null,
+              null, new LinkedHashMap<>(TestFixtures.TEST_OBJ_MAP_1), i));
+    }
+
+    try (var encryptor = new CipherBatchProcessor<>(transform("ENCRYPT"), parallelism);
+         var decryptor = new CipherBatchProcessor<>(transform("DECRYPT"), parallelism)) {
+      var encrypted = encryptor.process(originals);
+      var decrypted = decryptor.process(encrypted);
+      assertEquals(originals.size(), decrypted.size());
+      for (int i = 0; i < originals.size(); i++) {
+        var original = originals.get(i);
+        var expectedOffset = original.kafkaOffset();
+        var encryptedRecord = encrypted.get(i);
+        var decryptedRecord = decrypted.get(i);
+        assertAll(
+            () -> assertEquals(expectedOffset, encryptedRecord.kafkaOffset()),
+            () -> assertEquals(original.kafkaPartition(), decryptedRecord.kafkaPartition()),
+            () -> assertNotEquals(valueOf(original, "myString"), valueOf(encryptedRecord, "myString")),
+            () -> assertEquals(valueOf(original, "myInt32"), valueOf(encryptedRecord, "myInt32")),
+            () -> assertEquals(valueOf(original, "myString"), valueOf(decryptedRecord, "myString")),
+            () -> assertEquals(valueOf(original, "myInt64"), valueOf(decryptedRecord, "myInt64")),
+            () -> assertArrayEquals((byte[])valueOf(original, "myBytes"), (byte[])valueOf(decryptedRecord, "myBytes"))
+        );
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("apply batch processing to records of one schema and key identifier in parallel per partition")
+  void processPartitionsInParallelTest() {
+    var threadNames = ConcurrentHashMap.<String>newKeySet();
+    var originals = new ArrayList<SinkRecord>();
+    for (int i = 0; i < 30; i++) {
+      originals.add(new SinkRecord("some-kafka-topic", i % 3, null, null,
+          null, new LinkedHashMap<>(TestFixtures.TEST_OBJ_MAP_1), i) {
+        @Override
+        public Object value() {
+          threadNames.add(Thread.currentThread().getName());
+          return super.value();
+        }
+      });
+    }
+
+    try (var encryptor = new CipherBatchProcessor<>(transform("ENCRYPT"), 3)) {
+      assertEquals(3, encryptor.groupByPartitionSchemaAndKeyId(originals.toArray(new SinkRecord[0])).size());
+      var encrypted = encryptor.process(originals);
+      assertAll(
+          () -> assertEquals(originals.size(), encrypted.size()),
+          () -> assertTrue(threadNames.size() > 1, "expected several threads but got " + threadNames),
+          () -> assertTrue(threadNames.stream().allMatch(name -> name.startsWith("kryptonite-batch-")))
+      );
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2})
+  @DisplayName("apply batch processing to invalid records fails with the SMT's original exception")
+  void rejectInvalidRecordsTest(int parallelism) {
+    var records = List.of(
+        new SinkRecord("some-kafka-topic", 0, null, null, null, new LinkedHashMap<>(TestFixtures.TEST_OBJ_MAP_1), 0),
+        new SinkRecord("some-kafka-topic", 1, null, null, null, "no map", 1)
+    );
+    try (var encryptor = new CipherBatchProcessor<>(transform("ENCRYPT"), parallelism)) {
+      assertThrows(DataException.class, () -> encryptor.process(records));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2})
+  @DisplayName("apply batch processing with records grouped by schema and dynamic key identifier")
+  void encryptDecryptBatchWithDynamicKeyIdsTest(int parallelism) {
+    var tenantSchema = SchemaBuilder.struct().field("keyId", Schema.STRING_SCHEMA).build();
+    var schema = SchemaBuilder.struct()
+        .field("tenant", tenantSchema)
+        .field("myString", Schema.STRING_SCHEMA)
+        .build();
+    var originals = new ArrayList<SinkRecord>();
+    for (int i = 0; i < 20; i++) {
+      var keyId = i % 2 == 0 ? "keyA" : "keyB";
+      if (i % 4 < 2) {
+        var original = new LinkedHashMap<String, Object>();
+        original.put("tenant", Map.of("keyId", keyId));
+        original.put("myString", "some foo bla text " + i);
+        originals.add(new SinkRecord("some-kafka-topic", 0, null, null, null, original, i));
+      } else {
+        var original = new Struct(schema)
+            .put("tenant", new Struct(tenantSchema).put("keyId", keyId))
+            .put("myString", "some foo bla text " + i);
+        originals.add(new SinkRecord("some-kafka-topic", 0, null, null, schema, original, i));
+      }
+    }
+
+    var encryptProps = new HashMap<String, Object>();
+    encryptProps.put(KryptoniteSettings.CIPHER_MODE, "ENCRYPT");
+    encryptProps.put(KryptoniteSettings.FIELD_CONFIG, "[{\"name\":\"myString\"}]");
+    encryptProps.put(KryptoniteSettings.CIPHER_DATA_KEYS, TestFixtures.CIPHER_DATA_KEYS_CONFIG);
+    encryptProps.put(KryptoniteSettings.CIPHER_DATA_KEY_IDENTIFIER, "__#tenant.keyId");
+    var encryptTransform = new CipherField.Value<SinkRecord>();
+    encryptTransform.configure(encryptProps);
+    var decryptProps = new HashMap<String, Object>(encryptProps);
+    decryptProps.put(KryptoniteSettings.CIPHER_MODE, "DECRYPT");
+    decryptProps.put(KryptoniteSettings.FIELD_CONFIG, "[{\"name\":\"myString\",\"schema\": {\"type\": \"STRING\"}}]");
+    var decryptTransform = new CipherField.Value<SinkRecord>();
+    decryptTransform.configure(decryptProps);
+
+    try (var encryptor = new CipherBatchProcessor<>(encryptTransform, parallelism);
+         var decryptor = new CipherBatchProcessor<>(decryptTransform, parallelism)) {
+      assertEquals(4, encryptor.groupByPartitionSchemaAndKeyId(originals.toArray(new SinkRecord[0])).size());
+      var encrypted = encryptor.process(originals);
+      //NOTE: groups compiling the plan of the same schema concurrently may end up with distinct encrypted schemas
+      Set<Schema> encryptedSchemas = Collections.newSetFromMap(new IdentityHashMap<>());
+      encrypted.forEach(record -> encryptedSchemas.add(record.valueSchema()));
+      assertEquals(encryptedSchemas.size(),
+          decryptor.groupByPartitionSchemaAndKeyId(encrypted.toArray(new SinkRecord[0])).size());
+      var decrypted = decryptor.process(encrypted);
+      for (int i = 0; i < originals.size(); i++) {
+        var expectedKeyId = i % 2 == 0 ? "keyA" : "keyB";
+        var original = originals.get(i);
+        var encryptedRecord = encrypted.get(i);
+        var decryptedRecord = decrypted.get(i);
+        assertAll(
+            () -> assertEquals(expectedKeyId,
+                CipherFieldSmtFunctionalTest.WithoutCloudKmsConfig.encryptedKeyId(valueOf(encryptedRecord, "myString"))),
+            () -> assertEquals(valueOf(original, "myString"), valueOf(decryptedRecord, "myString"))
+        );
+      }
+    }
+  }
+
+  static Object valueOf(SinkRecord record, String field) {
+    return record.value() instanceof Struct
+        ? ((Struct)record.value()).get(field)
+        : ((Map<?, ?>)record.value()).get(field);
+  }
+
+  static CipherField.Value<SinkRecord> transform(String cipherMode) {
+    var props = new HashMap<String, Object>();
+    props.put(KryptoniteSettings.CIPHER_MODE, cipherMode);
+    props.put(KryptoniteSettings.FIELD_CONFIG, "["
+        + "{\"name\":\"myString\",\"schema\": {\"type\": \"STRING\"}},"
+        + "{\"name\":\"myInt64\",\"schema\": {\"type\": \"INT64\"}},"
+        + "{\"name\":\"myBytes\",\"schema\": {\"type\": \"BYTES\"}}"
+        + "]");
+    props.put(KryptoniteSettings.CIPHER_DATA_KEYS, TestFixtures.CIPHER_DATA_KEYS_CONFIG);
+    props.put(KryptoniteSettings.CIPHER_DATA_KEY_IDENTIFIER, "keyA");
+    var transform = new CipherField.Value<SinkRecord>();
+    transform.configure(props);
+    return transform;
+  }
+
+}
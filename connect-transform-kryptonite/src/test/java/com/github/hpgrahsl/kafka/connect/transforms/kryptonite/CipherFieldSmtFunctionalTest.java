@@ -18,10 +18,17 @@ package com.github.hpgrahsl.kafka.connect.transforms.kryptonite;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.esotericsoftware.kryo.io.Input;
 import com.github.hpgrahsl.kafka.connect.transforms.kryptonite.CipherField.FieldMode;
+import com.github.hpgrahsl.kryptonite.EncryptedField;
 import com.github.hpgrahsl.kryptonite.Kryptonite.CipherSpec;
 import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings;
 import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings.KekType;
@@ -29,24 +36,35 @@ import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings.KeySource;
 import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings.KmsType;
 import com.github.hpgrahsl.kryptonite.crypto.tink.TinkAesGcm;
 import com.github.hpgrahsl.kryptonite.crypto.tink.TinkAesGcmSiv;
+import com.github.hpgrahsl.kryptonite.serdes.KryoInstance;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.apache.kafka.common.config.ConfigException;
 import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
 import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
 import org.apache.kafka.connect.sink.SinkRecord;
 import org.apache.kafka.connect.source.SourceRecord;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 import org.junit.jupiter.api.function.Executable;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 public class CipherFieldSmtFunctionalTest {
@@ -94,6 +112,485 @@ public class CipherFieldSmtFunctionalTest {
   }
 
   @SuppressWarnings("unchecked")
+  @Test
+  @DisplayName("apply SMT to schemaless record and share all non-matched fields with the original record")
+  void encryptSchemalessRecordCopyOnWriteTest() {
+    var props = new HashMap<String, Object>();
+    props.put(KryptoniteSettings.CIPHER_MODE, "ENCRYPT");
+    props.put(KryptoniteSettings.FIELD_CONFIG, "[{\"name\":\"myString\"},{\"name\":\"unknownField\"}]");
+    props.put(KryptoniteSettings.CIPHER_DATA_KEYS, TestFixtures.CIPHER_DATA_KEYS_CONFIG);
+    props.put(KryptoniteSettings.CIPHER_DATA_KEY_IDENTIFIER, "keyA");
+    var encryptTransform = new CipherField.Value<SourceRecord>();
+    encryptTransform.configure(props);
+
+    var original = new LinkedHashMap<>(TestFixtures.TEST_OBJ_MAP_1);
+    @SuppressWarnings("unchecked")
+    var encrypted = (Map<String,Object>)encryptTransform.apply(
+        new SourceRecord(null,null,"some-kafka-topic",0,null,original)
+    ).value();
+    assertAll(
+        () -> assertNotSame(original, encrypted),
+        () -> assertEquals(TestFixtures.TEST_OBJ_MAP_1.get("myString"), original.get("myString")),
+        () -> assertNotEquals(original.get("myString"), encrypted.get("myString")),
+        () -> assertEquals(List.copyOf(original.keySet()), List.copyOf(encrypted.keySet())),
+        () -> assertSame(original.get("mySubDoc1"), encrypted.get("mySubDoc1")),
+        () -> assertSame(original.get("myBytes"), encrypted.get("myBytes"))
+    );
+
+    var unmatched = new LinkedHashMap<String,Object>(Map.of("otherField", "some text"));
+    assertSame(unmatched, encryptTransform.apply(
+        new SourceRecord(null,null,"some-kafka-topic",0,null,unmatched)
+    ).value());
+  }
+
+  @Test
+  @DisplayName("apply SMT with dynamic key identifiers which are read per record from a nested field")
+  void encryptDecryptRecordsWithDynamicKeyIdsTest() {
+    var props = new HashMap<String, Object>();
+    props.put(KryptoniteSettings.CIPHER_MODE, "ENCRYPT");
+    props.put(KryptoniteSettings.FIELD_CONFIG,
+        "[{\"name\":\"myString\",\"keyId\":\"__#tenant.keyId\"},{\"name\":\"myArray1\"}]");
+    props.put(KryptoniteSettings.CIPHER_DATA_KEYS, TestFixtures.CIPHER_DATA_KEYS_CONFIG);
+    props.put(KryptoniteSettings.CIPHER_DATA_KEY_IDENTIFIER, "__#tenant.keyId");
+    var encryptTransform = new CipherField.Value<SourceRecord>();
+    encryptTransform.configure(props);
+    props.put(KryptoniteSettings.CIPHER_MODE, "DECRYPT");
+    props.put(KryptoniteSettings.FIELD_CONFIG, "["
+        + "{\"name\":\"myString\",\"schema\": {\"type\": \"STRING\"}},"
+        + "{\"name\":\"myArray1\",\"schema\": {\"type\": \"ARRAY\", \"valueSchema\": {\"type\": \"STRING\"}}}"
+        + "]");
+    var decryptTransform = new CipherField.Value<SinkRecord>();
+    decryptTransform.configure(props);
+
+    var tenantSchema = SchemaBuilder.struct().field("keyId", Schema.STRING_SCHEMA).build();
+    var schema = SchemaBuilder.struct()
+        .field("tenant", tenantSchema)
+        .field("myString", Schema.STRING_SCHEMA)
+        .field("myArray1", SchemaBuilder.array(Schema.STRING_SCHEMA).build())
+        .build();
+
+    for (var keyId : List.of("keyA", "keyB")) {
+      var original = new LinkedHashMap<String, Object>();
+      original.put("tenant", Map.of("keyId", keyId));
+      original.put("myString", "some foo bla text");
+      original.put("myArray1", List.of("str_1", "str_2"));
+      @SuppressWarnings("unchecked")
+      var encrypted = (Map<String, Object>)encryptTransform.apply(
+          new SourceRecord(null,null,"some-kafka-topic",0,null,original)
+      ).value();
+      var decrypted = decryptTransform.apply(
+          new SinkRecord("some-kafka-topic",0,null,null,null,encrypted,0)
+      ).value();
+      assertAll(
+          () -> assertEquals(keyId, encryptedKeyId(encrypted.get("myString"))),
+          () -> assertEquals(keyId, encryptedKeyId(((List<?>)encrypted.get("myArray1")).get(1))),
+          () -> assertEquals(original, decrypted)
+      );
+
+      var originalStruct = new Struct(schema)
+          .put("tenant", new Struct(tenantSchema).put("keyId", keyId))
+          .put("myString", "some foo bla text")
+          .put("myArray1", List.of("str_1", "str_2"));
+      var encryptedStruct = (Struct)encryptTransform.apply(
+          new SourceRecord(null,null,"some-kafka-topic",0,schema,originalStruct)
+      ).value();
+      var encryptedRecord = new SinkRecord("some-kafka-topic",0,null,null,encryptedStruct.schema(),encryptedStruct,0);
+      assertAll(
+          () -> assertEquals(keyId, encryptedKeyId(encryptedStruct.get("myString"))),
+          () -> assertEquals(keyId, encryptedKeyId(encryptedStruct.getArray("myArray1").get(0))),
+          () -> assertEquals(originalStruct, decryptTransform.apply(encryptedRecord).value())
+      );
+    }
+
+    var missingTenant = new LinkedHashMap<String, Object>(Map.of("myString", "some foo bla text"));
+    assertThrows(DataException.class, () -> encryptTransform.apply(
+        new SourceRecord(null,null,"some-kafka-topic",0,null,missingTenant)
+    ));
+  }
+
+  @Test
+  @DisplayName("apply SMT decrypt(encrypt(plaintext)) = plaintext with payload meta-data kept in a record header")
+  void encryptDecryptRecordsWithHeaderMetaDataTest() {
+    var encProps = new HashMap<String, Object>();
+    encProps.put(KryptoniteSettings.CIPHER_MODE, "ENCRYPT");
+    encProps.put(KryptoniteSettings.FIELD_CONFIG,
+        "[{\"name\":\"id\",\"keyId\":\"keyB\"},{\"name\":\"myString\"},{\"name\":\"myArray1\"}]");
+    encProps.put(KryptoniteSettings.CIPHER_DATA_KEYS, TestFixtures.CIPHER_DATA_KEYS_CONFIG);
+    encProps.put(KryptoniteSettings.CIPHER_DATA_KEY_IDENTIFIER, "keyA");
+    encProps.put(KryptoniteSettings.CIPHER_METADATA_MODE, "HEADER");
+    var encryptHeaderTransform = new CipherField.Value<SourceRecord>();
+    encryptHeaderTransform.configure(encProps);
+    encProps.put(KryptoniteSettings.CIPHER_METADATA_MODE, "FIELD");
+    var encryptFieldTransform = new CipherField.Value<SourceRecord>();
+    encryptFieldTransform.configure(encProps);
+
+    var decProps = new HashMap<String, Object>(encProps);
+    decProps.put(KryptoniteSettings.CIPHER_MODE, "DECRYPT");
+    decProps.put(KryptoniteSettings.FIELD_CONFIG, "["
+        + "{\"name\":\"id\",\"schema\": {\"type\": \"STRING\"}},"
+        + "{\"name\":\"myString\",\"schema\": {\"type\": \"STRING\"}},"
+        + "{\"name\":\"myArray1\",\"schema\": {\"type\": \"ARRAY\", \"valueSchema\": {\"type\": \"STRING\"}}}"
+        + "]");
+    var decryptTransform = new CipherField.Value<SinkRecord>();
+    decryptTransform.configure(decProps);
+
+    var headerEncrypted = encryptHeaderTransform.apply(
+        new SourceRecord(null,null,"some-kafka-topic",0,null,new LinkedHashMap<>(TestFixtures.TEST_OBJ_MAP_1)));
+    var fieldEncrypted = encryptFieldTransform.apply(
+        new SourceRecord(null,null,"some-kafka-topic",0,null,new LinkedHashMap<>(TestFixtures.TEST_OBJ_MAP_1)));
+    var header = headerEncrypted.headers().lastWithName(MetaDataHeader.VALUE_HEADER);
+    @SuppressWarnings("unchecked")
+    var headerEncryptedMap = (Map<String, Object>)headerEncrypted.value();
+    @SuppressWarnings("unchecked")
+    var fieldEncryptedMap = (Map<String, Object>)fieldEncrypted.value();
+    assertAll(
+        () -> assertEquals(2, MetaDataHeader.decode(header.value()).size()),
+        () -> assertTrue(((String)headerEncryptedMap.get("myString")).length()
+            < ((String)fieldEncryptedMap.get("myString")).length()),
+        () -> assertEquals(null, fieldEncrypted.headers().lastWithName(MetaDataHeader.VALUE_HEADER))
+    );
+
+    var headerDecrypted = decryptTransform.apply(new SinkRecord("some-kafka-topic",0,null,null,null,
+        headerEncrypted.value(),0,null,null,headerEncrypted.headers()));
+    var fieldDecrypted = decryptTransform.apply(
+        new SinkRecord("some-kafka-topic",0,null,null,null,fieldEncrypted.value(),0));
+    assertAll(
+        () -> assertAllResultingFieldsSchemalessRecord(TestFixtures.TEST_OBJ_MAP_1, asMap(headerDecrypted.value())),
+        () -> assertAllResultingFieldsSchemalessRecord(TestFixtures.TEST_OBJ_MAP_1, asMap(fieldDecrypted.value())),
+        () -> assertEquals(null, headerDecrypted.headers().lastWithName(MetaDataHeader.VALUE_HEADER))
+    );
+
+    var structEncrypted = encryptHeaderTransform.apply(new SourceRecord(null,null,"some-kafka-topic",0,
+        TestFixtures.TEST_OBJ_SCHEMA_1,TestFixtures.TEST_OBJ_STRUCT_1));
+    var structDecrypted = decryptTransform.apply(new SinkRecord("some-kafka-topic",0,null,null,
+        structEncrypted.valueSchema(),structEncrypted.value(),0,null,null,structEncrypted.headers()));
+    assertAllResultingFieldsSchemafulRecord(TestFixtures.TEST_OBJ_STRUCT_1, (Struct)structDecrypted.value());
+
+    var tampered = new SinkRecord("some-kafka-topic",0,null,null,null,headerEncrypted.value(),0);
+    tampered.headers().addString(MetaDataHeader.VALUE_HEADER, "[[\"k9\",\"02\",\"keyA\"],[\"k9\",\"02\",\"keyB\"]]");
+    assertThrows(DataException.class, () -> decryptTransform.apply(tampered));
+  }
+
+  @Test
+  @DisplayName("apply chained SMTs decrypt(encrypt(plaintext)) = plaintext sharing one meta-data record header")
+  void encryptDecryptRecordsWithChainedHeaderMetaDataTest() {
+    var encProps = new HashMap<String, Object>();
+    encProps.put(KryptoniteSettings.CIPHER_MODE, "ENCRYPT");
+    encProps.put(KryptoniteSettings.CIPHER_DATA_KEYS, TestFixtures.CIPHER_DATA_KEYS_CONFIG);
+    encProps.put(KryptoniteSettings.CIPHER_METADATA_MODE, "HEADER");
+    encProps.put(KryptoniteSettings.FIELD_CONFIG, "[{\"name\":\"myString\"}]");
+    encProps.put(KryptoniteSettings.CIPHER_DATA_KEY_IDENTIFIER, "keyA");
+    var encryptFirstTransform = new CipherField.Value<SourceRecord>();
+    encryptFirstTransform.configure(encProps);
+    encProps.put(KryptoniteSettings.FIELD_CONFIG, "[{\"name\":\"myArray1\"}]");
+    encProps.put(KryptoniteSettings.CIPHER_DATA_KEY_IDENTIFIER, "keyB");
+    var encryptSecondTransform = new CipherField.Value<SourceRecord>();
+    encryptSecondTransform.configure(encProps);
+
+    var decProps = new HashMap<String, Object>(encProps);
+    decProps.put(KryptoniteSettings.CIPHER_MODE, "DECRYPT");
+    decProps.put(KryptoniteSettings.FIELD_CONFIG,
+        "[{\"name\":\"myString\",\"schema\": {\"type\": \"STRING\"}}]");
+    var decryptFirstTransform = new CipherField.Value<SinkRecord>();
+    decryptFirstTransform.configure(decProps);
+    decProps.put(KryptoniteSettings.FIELD_CONFIG,
+        "[{\"name\":\"myArray1\",\"schema\": {\"type\": \"ARRAY\", \"valueSchema\": {\"type\": \"STRING\"}}}]");
+    var decryptSecondTransform = new CipherField.Value<SinkRecord>();
+    decryptSecondTransform.configure(decProps);
+
+    var encrypted = encryptSecondTransform.apply(encryptFirstTransform.apply(
+        new SourceRecord(null,null,"some-kafka-topic",0,null,new LinkedHashMap<>(TestFixtures.TEST_OBJ_MAP_1))));
+    var header = encrypted.headers().lastWithName(MetaDataHeader.VALUE_HEADER);
+    assertAll(
+        () -> assertEquals(2, MetaDataHeader.decode(header.value()).size())
+    );
+
+    var partiallyDecrypted = decryptSecondTransform.apply(new SinkRecord("some-kafka-topic",0,null,null,null,
+        encrypted.value(),0,null,null,encrypted.headers()));
+    assertAll(
+        () -> assertEquals(TestFixtures.TEST_OBJ_MAP_1.get("myArray1"), asMap(partiallyDecrypted.value()).get("myArray1")),
+        () -> assertNotEquals(TestFixtures.TEST_OBJ_MAP_1.get("myString"), asMap(partiallyDecrypted.value()).get("myString")),
+        () -> assertEquals(Arrays.asList(MetaDataHeader.decode(header.value()).get(0), null), MetaDataHeader.decode(
+            partiallyDecrypted.headers().lastWithName(MetaDataHeader.VALUE_HEADER).value()))
+    );
+
+    var decrypted = decryptFirstTransform.apply(partiallyDecrypted);
+    assertAll(
+        () -> assertAllResultingFieldsSchemalessRecord(TestFixtures.TEST_OBJ_MAP_1, asMap(decrypted.value())),
+        () -> assertEquals(null, decrypted.headers().lastWithName(MetaDataHeader.VALUE_HEADER))
+    );
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"FIELD", "HEADER"})
+  @DisplayName("apply SMT decrypt(encrypt(plaintext)) = plaintext with all matched fields encrypted into one payload field")
+  void encryptDecryptRecordsWithRecordScopeTest(String metadataMode) {
+    var props = new HashMap<String, Object>();
+    props.put(KryptoniteSettings.CIPHER_MODE, "ENCRYPT");
+    props.put(KryptoniteSettings.FIELD_CONFIG,
+        "[{\"name\":\"myString\"},{\"name\":\"mySubDoc1\"},{\"name\":\"myArray1\"},{\"name\":\"myBytes\"}]");
+    props.put(KryptoniteSettings.CIPHER_DATA_KEYS, TestFixtures.CIPHER_DATA_KEYS_CONFIG);
+    props.put(KryptoniteSettings.CIPHER_DATA_KEY_IDENTIFIER, "keyA");
+    props.put(KryptoniteSettings.CIPHER_SCOPE, "RECORD");
+    props.put(KryptoniteSettings.CIPHER_METADATA_MODE, metadataMode);
+    var encryptTransform = new CipherField.Value<SourceRecord>();
+    encryptTransform.configure(props);
+    props.put(KryptoniteSettings.CIPHER_MODE, "DECRYPT");
+    var decryptTransform = new CipherField.Value<SinkRecord>();
+    decryptTransform.configure(props);
+    var payloadField = KryptoniteSettings.RECORD_PAYLOAD_FIELD_DEFAULT;
+
+    var encrypted = encryptTransform.apply(new SourceRecord(null,null,"some-kafka-topic",0,
+        null,new LinkedHashMap<>(TestFixtures.TEST_OBJ_MAP_1)));
+    var encryptedMap = asMap(encrypted.value());
+    assertAll(
+        () -> assertEquals(List.of("id","myInt32","myInt64","myBoolean","mySubDoc2",payloadField),
+            List.copyOf(encryptedMap.keySet())),
+        () -> assertTrue(encryptedMap.get(payloadField) instanceof String)
+    );
+    var decrypted = decryptTransform.apply(new SinkRecord("some-kafka-topic",0,null,null,null,
+        encrypted.value(),0,null,null,encrypted.headers()));
+    assertAll(
+        () -> assertEquals(TestFixtures.TEST_OBJ_MAP_1.keySet(), asMap(decrypted.value()).keySet()),
+        () -> assertAllResultingFieldsSchemalessRecord(TestFixtures.TEST_OBJ_MAP_1, asMap(decrypted.value()))
+    );
+
+    var encryptedStruct = encryptTransform.apply(new SourceRecord(null,null,"some-kafka-topic",0,
+        TestFixtures.TEST_OBJ_SCHEMA_1,TestFixtures.TEST_OBJ_STRUCT_1));
+    assertEquals(List.of("id","myInt32","myInt64","myBoolean","mySubDoc2",payloadField),
+        encryptedStruct.valueSchema().fields().stream().map(f -> f.name()).collect(Collectors.toList()));
+    var decryptedStruct = decryptTransform.apply(new SinkRecord("some-kafka-topic",0,null,null,
+        encryptedStruct.valueSchema(),encryptedStruct.value(),0,null,null,encryptedStruct.headers()));
+    var decryptedValue = (Struct)decryptedStruct.value();
+    assertDoesNotThrow(decryptedValue::validate);
+    assertAll(
+        TestFixtures.TEST_OBJ_SCHEMA_1.fields().stream().map(f -> () -> {
+          assertEquals(f.schema(), decryptedStruct.valueSchema().field(f.name()).schema());
+          if (f.schema().type() == Schema.Type.BYTES) {
+            assertArrayEquals((byte[])TestFixtures.TEST_OBJ_STRUCT_1.get(f.name()), (byte[])decryptedValue.get(f.name()));
+          } else {
+            assertEquals(TestFixtures.TEST_OBJ_STRUCT_1.get(f.name()), decryptedValue.get(f.name()));
+          }
+        })
+    );
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"FIELD", "HEADER"})
+  @DisplayName("apply SMT decrypt(encrypt(plaintext)) = plaintext with large field values compressed before encryption")
+  void encryptDecryptRecordsWithCompressionTest(String metadataMode) {
+    var props = new HashMap<String, Object>();
+    props.put(KryptoniteSettings.CIPHER_MODE, "ENCRYPT");
+    props.put(KryptoniteSettings.FIELD_CONFIG, "[{\"name\":\"myString\"},{\"name\":\"myText\"}]");
+    props.put(KryptoniteSettings.CIPHER_DATA_KEYS, TestFixtures.CIPHER_DATA_KEYS_CONFIG);
+    props.put(KryptoniteSettings.CIPHER_DATA_KEY_IDENTIFIER, "keyA");
+    props.put(KryptoniteSettings.CIPHER_METADATA_MODE, metadataMode);
+    props.put(KryptoniteSettings.CIPHER_COMPRESSION, "ZSTD");
+    var encryptTransform = new CipherField.Value<SourceRecord>();
+    encryptTransform.configure(props);
+    props.put(KryptoniteSettings.CIPHER_MODE, "DECRYPT");
+    props.put(KryptoniteSettings.CIPHER_COMPRESSION, "NONE");
+    var decryptTransform = new CipherField.Value<SinkRecord>();
+    decryptTransform.configure(props);
+
+    var original = new LinkedHashMap<String, Object>(TestFixtures.TEST_OBJ_MAP_1);
+    var text = "{\"comment\":\"some lengthy and rather repetitive review text\"}".repeat(50);
+    original.put("myText", text);
+    var encrypted = encryptTransform.apply(new SourceRecord(null,null,"some-kafka-topic",0,null,new LinkedHashMap<>(original)));
+    assertTrue(((String)asMap(encrypted.value()).get("myText")).length() < text.length() / 4);
+    var decrypted = decryptTransform.apply(new SinkRecord("some-kafka-topic",0,null,null,null,
+        encrypted.value(),0,null,null,encrypted.headers()));
+    assertAll(
+        () -> assertEquals(text, asMap(decrypted.value()).get("myText")),
+        () -> assertEquals(original.get("myString"), asMap(decrypted.value()).get("myString"))
+    );
+  }
+
+  @Test
+  @DisplayName("apply SMT encrypt(plaintext) with fields pseudonymized by keyed hashes which decryption leaves as is")
+  void encryptDecryptRecordsWithPseudonymsTest() {
+    var props = new HashMap<String, Object>();
+    props.put(KryptoniteSettings.CIPHER_MODE, "ENCRYPT");
+    props.put(KryptoniteSettings.FIELD_CONFIG, "["
+        + "{\"name\":\"id\",\"algorithm\":\"JDK/HMAC_SHA256\",\"keyId\":\"keyB\",\"schema\": {\"type\": \"STRING\"}},"
+        + "{\"name\":\"myString\",\"schema\": {\"type\": \"STRING\"}}"
+        + "]");
+    props.put(KryptoniteSettings.CIPHER_DATA_KEYS, TestFixtures.CIPHER_DATA_KEYS_CONFIG);
+    props.put(KryptoniteSettings.CIPHER_DATA_KEY_IDENTIFIER, "keyA");
+    var encryptTransform = new CipherField.Value<SourceRecord>();
+    encryptTransform.configure(props);
+    props.put(KryptoniteSettings.CIPHER_MODE, "DECRYPT");
+    var decryptTransform = new CipherField.Value<SinkRecord>();
+    decryptTransform.configure(props);
+
+    var first = encryptTransform.apply(new SourceRecord(null,null,"some-kafka-topic",0,
+        null,new LinkedHashMap<>(TestFixtures.TEST_OBJ_MAP_1)));
+    var second = encryptTransform.apply(new SourceRecord(null,null,"some-kafka-topic",0,
+        TestFixtures.TEST_OBJ_SCHEMA_1,TestFixtures.TEST_OBJ_STRUCT_1));
+    var pseudonym = (String)asMap(first.value()).get("id");
+    assertAll(
+        () -> assertEquals(22, pseudonym.length()),
+        () -> assertEquals(pseudonym, ((Struct)second.value()).get("id")),
+        () -> assertNotEquals(asMap(first.value()).get("myString"), ((Struct)second.value()).get("myString"))
+    );
+
+    var decrypted = decryptTransform.apply(new SinkRecord("some-kafka-topic",0,null,null,null,first.value(),0));
+    var decryptedStruct = decryptTransform.apply(new SinkRecord("some-kafka-topic",0,null,null,
+        second.valueSchema(),second.value(),0));
+    assertAll(
+        () -> assertEquals(pseudonym, asMap(decrypted.value()).get("id")),
+        () -> assertEquals(TestFixtures.TEST_OBJ_MAP_1.get("myString"), asMap(decrypted.value()).get("myString")),
+        () -> assertEquals(pseudonym, ((Struct)decryptedStruct.value()).get("id")),
+        () -> assertEquals(TestFixtures.TEST_OBJ_STRUCT_1.get("myString"), ((Struct)decryptedStruct.value()).get("myString"))
+    );
+  }
+
+  @Test
+  @DisplayName("apply SMT encrypt(plaintext) with blind index fields emitted next to the encrypted fields")
+  void encryptDecryptRecordsWithBlindIndexTest() {
+    var props = new HashMap<String, Object>();
+    props.put(KryptoniteSettings.CIPHER_MODE, "ENCRYPT");
+    props.put(KryptoniteSettings.FIELD_CONFIG, "["
+        + "{\"name\":\"myString\",\"blindIndex\":true,\"schema\": {\"type\": \"STRING\"}},"
+        + "{\"name\":\"myInt64\",\"schema\": {\"type\": \"INT64\"}}"
+        + "]");
+    props.put(KryptoniteSettings.CIPHER_DATA_KEYS, TestFixtures.CIPHER_DATA_KEYS_CONFIG);
+    props.put(KryptoniteSettings.CIPHER_DATA_KEY_IDENTIFIER, "keyA");
+    var encryptTransform = new CipherField.Value<SourceRecord>();
+    encryptTransform.configure(props);
+    props.put(KryptoniteSettings.CIPHER_MODE, "DECRYPT");
+    var decryptTransform = new CipherField.Value<SinkRecord>();
+    decryptTransform.configure(props);
+    var blindIndexField = "myString" + RecordHandler.BLIND_INDEX_SUFFIX;
+
+    var variant = new LinkedHashMap<String, Object>(TestFixtures.TEST_OBJ_MAP_1);
+    variant.put("myString", "  " + ((String)TestFixtures.TEST_OBJ_MAP_1.get("myString")).toUpperCase() + " ");
+    var encrypted = encryptTransform.apply(new SourceRecord(null,null,"some-kafka-topic",0,
+        null,new LinkedHashMap<>(TestFixtures.TEST_OBJ_MAP_1)));
+    var encryptedVariant = encryptTransform.apply(new SourceRecord(null,null,"some-kafka-topic",0,null,variant));
+    var encryptedStruct = encryptTransform.apply(new SourceRecord(null,null,"some-kafka-topic",0,
+        TestFixtures.TEST_OBJ_SCHEMA_1,TestFixtures.TEST_OBJ_STRUCT_1));
+    var blindIndex = (String)asMap(encrypted.value()).get(blindIndexField);
+    assertAll(
+        () -> assertEquals(11, blindIndex.length()),
+        () -> assertEquals(blindIndex, asMap(encryptedVariant.value()).get(blindIndexField)),
+        () -> assertEquals(Schema.OPTIONAL_STRING_SCHEMA, encryptedStruct.valueSchema().field(blindIndexField).schema()),
+        () -> assertEquals(blindIndex, ((Struct)encryptedStruct.value()).get(blindIndexField)),
+        () -> assertEquals(null, asMap(encrypted.value()).get("myInt64" + RecordHandler.BLIND_INDEX_SUFFIX))
+    );
+
+    var decrypted = decryptTransform.apply(new SinkRecord("some-kafka-topic",0,null,null,null,encrypted.value(),0));
+    var decryptedStruct = decryptTransform.apply(new SinkRecord("some-kafka-topic",0,null,null,
+        encryptedStruct.valueSchema(),encryptedStruct.value(),0));
+    assertAll(
+        () -> assertEquals(TestFixtures.TEST_OBJ_MAP_1.get("myString"), asMap(decrypted.value()).get("myString")),
+        () -> assertEquals(blindIndex, asMap(decrypted.value()).get(blindIndexField)),
+        () -> assertEquals(TestFixtures.TEST_OBJ_STRUCT_1.get("myString"), ((Struct)decryptedStruct.value()).get("myString")),
+        () -> assertEquals(blindIndex, ((Struct)decryptedStruct.value()).get(blindIndexField))
+    );
+
+    var existingSchema = SchemaBuilder.struct()
+        .field("myString", Schema.STRING_SCHEMA)
+        .field(blindIndexField, Schema.STRING_SCHEMA)
+        .build();
+    var existingStruct = new Struct(existingSchema).put("myString", "some foo bla text").put(blindIndexField, "existing");
+    var existingMap = new LinkedHashMap<String, Object>(Map.of("myString", "some foo bla text", blindIndexField, "existing"));
+    var encryptedExistingStruct = encryptTransform.apply(new SourceRecord(null,null,"some-kafka-topic",0,
+        existingSchema,existingStruct));
+    var encryptedExistingMap = encryptTransform.apply(new SourceRecord(null,null,"some-kafka-topic",0,
+        null,existingMap));
+    assertAll(
+        () -> assertEquals(Schema.STRING_SCHEMA, encryptedExistingStruct.valueSchema().field(blindIndexField).schema()),
+        () -> assertEquals("existing", ((Struct)encryptedExistingStruct.value()).get(blindIndexField)),
+        () -> assertEquals("existing", asMap(encryptedExistingMap.value()).get(blindIndexField))
+    );
+  }
+
+  @Test
+  @DisplayName("apply SMT decrypt(encrypt(plaintext)) = plaintext with fields encrypted by wrapped per-record data keys")
+  void encryptDecryptRecordsWithDataKeyEnvelopeTest() {
+    var encProps = new HashMap<String, Object>();
+    encProps.put(KryptoniteSettings.CIPHER_MODE, "ENCRYPT");
+    encProps.put(KryptoniteSettings.FIELD_CONFIG,
+        "[{\"name\":\"id\"},{\"name\":\"myString\"},{\"name\":\"myArray1\"},{\"name\":\"myBytes\"}]");
+    encProps.put(KryptoniteSettings.CIPHER_DATA_KEYS, TestFixtures.CIPHER_DATA_KEYS_CONFIG);
+    encProps.put(KryptoniteSettings.CIPHER_DATA_KEY_IDENTIFIER, "keyA");
+    encProps.put(KryptoniteSettings.ENVELOPE_MODE, "DATA_KEY");
+    encProps.put(KryptoniteSettings.ENVELOPE_DATA_KEY_RECORDS, "3");
+    var encryptTransform = new CipherField.Value<SourceRecord>();
+    encryptTransform.configure(encProps);
+
+    var decProps = new HashMap<String, Object>(encProps);
+    decProps.put(KryptoniteSettings.CIPHER_MODE, "DECRYPT");
+    decProps.put(KryptoniteSettings.FIELD_CONFIG, "["
+        + "{\"name\":\"id\",\"schema\": {\"type\": \"STRING\"}},"
+        + "{\"name\":\"myString\",\"schema\": {\"type\": \"STRING\"}},"
+        + "{\"name\":\"myArray1\",\"schema\": {\"type\": \"ARRAY\", \"valueSchema\": {\"type\": \"STRING\"}}},"
+        + "{\"name\":\"myBytes\",\"schema\": {\"type\": \"BYTES\"}}"
+        + "]");
+    var decryptTransform = new CipherField.Value<SinkRecord>();
+    decryptTransform.configure(decProps);
+
+    var wrappedDataKeys = new ArrayList<Object>();
+    for (int i = 0; i < 4; i++) {
+      var encrypted = encryptTransform.apply(
+          new SourceRecord(null,null,"some-kafka-topic",0,null,new LinkedHashMap<>(TestFixtures.TEST_OBJ_MAP_1)));
+      var header = encrypted.headers().lastWithName(DataKeyEnvelope.VALUE_HEADER);
+      wrappedDataKeys.add(header.value());
+      assertNotEquals(TestFixtures.TEST_OBJ_MAP_1.get("myString"), asMap(encrypted.value()).get("myString"));
+      var decrypted = decryptTransform.apply(new SinkRecord("some-kafka-topic",0,null,null,null,
+          encrypted.value(),0,null,null,encrypted.headers()));
+      assertAllResultingFieldsSchemalessRecord(TestFixtures.TEST_OBJ_MAP_1, asMap(decrypted.value()));
+      assertEquals(null, decrypted.headers().lastWithName(DataKeyEnvelope.VALUE_HEADER));
+    }
+    assertAll(
+        () -> assertEquals(wrappedDataKeys.get(0), wrappedDataKeys.get(1)),
+        () -> assertEquals(wrappedDataKeys.get(0), wrappedDataKeys.get(2)),
+        () -> assertNotEquals(wrappedDataKeys.get(0), wrappedDataKeys.get(3))
+    );
+
+    var structEncrypted = encryptTransform.apply(new SourceRecord(null,null,"some-kafka-topic",0,
+        TestFixtures.TEST_OBJ_SCHEMA_1,TestFixtures.TEST_OBJ_STRUCT_1));
+    var structDecrypted = decryptTransform.apply(new SinkRecord("some-kafka-topic",0,null,null,
+        structEncrypted.valueSchema(),structEncrypted.value(),0,null,null,structEncrypted.headers()));
+    assertAllResultingFieldsSchemafulRecord(TestFixtures.TEST_OBJ_STRUCT_1, (Struct)structDecrypted.value());
+
+    var missingHeader = new SinkRecord("some-kafka-topic",0,null,null,null,structEncrypted.value(),0);
+    assertThrows(DataException.class, () -> decryptTransform.apply(missingHeader));
+
+    var chainedProps = new HashMap<String, Object>(encProps);
+    chainedProps.put(KryptoniteSettings.FIELD_CONFIG, "[{\"name\":\"myBoolean\"}]");
+    var chainedEncryptTransform = new CipherField.Value<SourceRecord>();
+    chainedEncryptTransform.configure(chainedProps);
+    var enveloped = encryptTransform.apply(
+        new SourceRecord(null,null,"some-kafka-topic",0,null,new LinkedHashMap<>(TestFixtures.TEST_OBJ_MAP_1)));
+    var wrappedDataKey = enveloped.headers().lastWithName(DataKeyEnvelope.VALUE_HEADER).value();
+    assertAll(
+        () -> assertThrows(DataException.class, () -> chainedEncryptTransform.apply(enveloped)),
+        () -> assertEquals(wrappedDataKey, enveloped.headers().lastWithName(DataKeyEnvelope.VALUE_HEADER).value())
+    );
+
+    var fieldKeyIdProps = new HashMap<String, Object>(encProps);
+    fieldKeyIdProps.put(KryptoniteSettings.FIELD_CONFIG, "[{\"name\":\"id\"},{\"name\":\"myString\",\"keyId\":\"keyB\"}]");
+    assertThrows(ConfigException.class, () -> new CipherField.Value<SourceRecord>().configure(fieldKeyIdProps));
+    fieldKeyIdProps.put(KryptoniteSettings.FIELD_CONFIG, "[{\"name\":\"id\"},{\"name\":\"myString\",\"keyId\":\"keyA\"}]");
+    new CipherField.Value<SourceRecord>().configure(fieldKeyIdProps);
+
+    encProps.put(KryptoniteSettings.CIPHER_ALGORITHM, TinkAesGcmSiv.CIPHER_ALGORITHM);
+    assertThrows(ConfigException.class, () -> new CipherField.Value<SourceRecord>().configure(encProps));
+  }
+
+  @SuppressWarnings("unchecked")
+  static Map<String, Object> asMap(Object value) {
+    return (Map<String, Object>)value;
+  }
+
+  static String encryptedKeyId(Object encodedField) {
+    var encryptedField = KryoInstance.get().readObject(
+        new Input(Base64.getDecoder().decode((String)encodedField)), EncryptedField.class);
+    return encryptedField.getMetaData().getKeyId();
+  }
+
   void performSchemalessRecordTest(String cipherDataKeys,FieldMode fieldMode, CipherSpec cipherSpec, String keyId1, String keyId2, 
         KeySource keySource, KmsType kmsType, String kmsConfig, KekType kekType, String kekConfig, String kekUri) {
       
@@ -277,6 +774,8 @@ var encProps = new HashMap<String, Object>();
           new SinkRecord("some-kafka-topic",0,null,null,encryptedRecord.schema(),encryptedRecord,0)
       ).value();
   
+      assertDoesNotThrow(encryptedRecord::validate);
+      assertDoesNotThrow(decryptedRecord::validate);
       assertAllResultingFieldsSchemafulRecord(TestFixtures.TEST_OBJ_STRUCT_1,decryptedRecord);
     }
   }
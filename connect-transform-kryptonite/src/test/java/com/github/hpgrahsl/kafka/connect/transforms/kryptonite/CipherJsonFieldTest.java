@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.connect.transforms.kryptonite;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hpgrahsl.kafka.connect.transforms.kryptonite.CipherField.FieldMode;
+import com.github.hpgrahsl.kafka.connect.transforms.kryptonite.util.JsonStringReader;
+import com.github.hpgrahsl.kafka.connect.transforms.kryptonite.util.JsonStringWriter;
+import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+public class CipherJsonFieldTest {
+
+  static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  static final String FIELD_CONFIG = "["
+      + "    {\"name\":\"id\",\"keyId\":\"keyB\"},"
+      + "    {\"name\":\"myString\",\"algorithm\":\"TINK/AES_GCM_SIV\",\"keyId\":\"key9\"},"
+      + "    {\"name\":\"myInt64\"},"
+      + "    {\"name\":\"mySubDoc1\"},"
+      + "    {\"name\":\"myArray1\"},"
+      + "    {\"name\":\"mySubDoc2\"}"
+      + "]";
+
+  @ParameterizedTest
+  @EnumSource(FieldMode.class)
+  @DisplayName("apply SMT decrypt(encrypt(plaintext)) = plaintext for JSON string and JSON bytes records")
+  void encryptDecryptJsonRecordTest(FieldMode fieldMode) throws Exception {
+    var json = OBJECT_MAPPER.writeValueAsString(TestFixtures.TEST_OBJ_MAP_1);
+
+    var encrypted = (String)transform(fieldMode, "ENCRYPT").apply(record(json)).value();
+    var encryptedMap = OBJECT_MAPPER.readValue(encrypted, LinkedHashMap.class);
+    assertAll(
+        () -> assertEquals(List.copyOf(TestFixtures.TEST_OBJ_MAP_1.keySet()), List.copyOf(encryptedMap.keySet())),
+        () -> assertNotEquals(TestFixtures.TEST_OBJ_MAP_1.get("id"), encryptedMap.get("id")),
+        () -> assertEquals(TestFixtures.TEST_OBJ_MAP_1.get("myInt32"), encryptedMap.get("myInt32")),
+        () -> assertTrue(fieldMode == FieldMode.OBJECT
+            ? encryptedMap.get("mySubDoc2") instanceof String
+            : encryptedMap.get("mySubDoc2") instanceof Map)
+    );
+
+    var decrypted = (String)transform(fieldMode, "DECRYPT").apply(record(encrypted)).value();
+    assertEquals(OBJECT_MAPPER.readTree(json), OBJECT_MAPPER.readTree(decrypted));
+
+    var encryptedBytes = (byte[])transform(fieldMode, "ENCRYPT")
+        .apply(record(json.getBytes(StandardCharsets.UTF_8))).value();
+    var decryptedBytes = (byte[])transform(fieldMode, "DECRYPT").apply(record(encryptedBytes)).value();
+    assertEquals(OBJECT_MAPPER.readTree(json), OBJECT_MAPPER.readTree(decryptedBytes));
+  }
+
+  @ParameterizedTest
+  @EnumSource(FieldMode.class)
+  @DisplayName("apply streaming SMT to decrypt records encrypted with the JsonStringReader / CipherField / JsonStringWriter chain")
+  void decryptJsonRecordEncryptedByTransformChainTest(FieldMode fieldMode) throws Exception {
+    var json = OBJECT_MAPPER.writeValueAsString(TestFixtures.TEST_OBJ_MAP_1);
+
+    var encryptTransform = new CipherField.Value<SourceRecord>();
+    encryptTransform.configure(props(fieldMode, "ENCRYPT"));
+    var encryptedRecord = new JsonStringWriter.Value<SourceRecord>().apply(
+        encryptTransform.apply(new JsonStringReader.Value<SourceRecord>().apply(
+            new SourceRecord(null, null, "some-kafka-topic", 0, Schema.STRING_SCHEMA, json)))
+    );
+
+    var decrypted = (String)transform(fieldMode, "DECRYPT").apply(
+        new SinkRecord("some-kafka-topic", 0, null, null, Schema.STRING_SCHEMA, encryptedRecord.value(), 0)
+    ).value();
+    assertEquals(OBJECT_MAPPER.readTree(json), OBJECT_MAPPER.readTree(decrypted));
+  }
+
+  @Test
+  @DisplayName("apply SMT decrypt(encrypt(plaintext)) = plaintext for JSON records with all matched fields in one payload field")
+  void encryptDecryptJsonRecordWithRecordScopeTest() throws Exception {
+    var json = OBJECT_MAPPER.writeValueAsString(TestFixtures.TEST_OBJ_MAP_1);
+    var encProps = props(FieldMode.OBJECT, "ENCRYPT");
+    encProps.put(KryptoniteSettings.CIPHER_SCOPE, "RECORD");
+    var encryptTransform = new CipherJsonField.Value<SinkRecord>();
+    encryptTransform.configure(encProps);
+    var decProps = props(FieldMode.OBJECT, "DECRYPT");
+    decProps.put(KryptoniteSettings.CIPHER_SCOPE, "RECORD");
+    var decryptTransform = new CipherJsonField.Value<SinkRecord>();
+    decryptTransform.configure(decProps);
+
+    var encrypted = (String)encryptTransform.apply(record(json)).value();
+    var encryptedMap = OBJECT_MAPPER.readValue(encrypted, LinkedHashMap.class);
+    assertEquals(List.of("myInt32","myBoolean","myBytes",KryptoniteSettings.RECORD_PAYLOAD_FIELD_DEFAULT),
+        List.copyOf(encryptedMap.keySet()));
+    var decrypted = (String)decryptTransform.apply(record(encrypted)).value();
+    assertEquals(OBJECT_MAPPER.readTree(json), OBJECT_MAPPER.readTree(decrypted));
+  }
+
+  @Test
+  @DisplayName("apply SMT to records which are no JSON objects")
+  void rejectNonObjectJsonRecordTest() {
+    var transform = transform(FieldMode.ELEMENT, "ENCRYPT");
+    assertAll(
+        () -> assertEquals(null, transform.apply(record(null)).value()),
+        () -> assertThrows(DataException.class, () -> transform.apply(record("[1,2,3]"))),
+        () -> assertThrows(DataException.class, () -> transform.apply(record(42)))
+    );
+  }
+
+  static CipherJsonField.Value<SinkRecord> transform(FieldMode fieldMode, String cipherMode) {
+    var transform = new CipherJsonField.Value<SinkRecord>();
+    transform.configure(props(fieldMode, cipherMode));
+    return transform;
+  }
+
+  static Map<String, Object> props(FieldMode fieldMode, String cipherMode) {
+    var props = new HashMap<String, Object>();
+    props.put(KryptoniteSettings.CIPHER_MODE, cipherMode);
+    props.put(KryptoniteSettings.FIELD_CONFIG, FIELD_CONFIG);
+    props.put(KryptoniteSettings.CIPHER_DATA_KEYS, TestFixtures.CIPHER_DATA_KEYS_CONFIG);
+    props.put(KryptoniteSettings.CIPHER_DATA_KEY_IDENTIFIER, "keyA");
+    props.put(KryptoniteSettings.FIELD_MODE, fieldMode.name());
+    return props;
+  }
+
+  static SinkRecord record(Object value) {
+    return new SinkRecord("some-kafka-topic", 0, null, null, null, value, 0);
+  }
+
+}
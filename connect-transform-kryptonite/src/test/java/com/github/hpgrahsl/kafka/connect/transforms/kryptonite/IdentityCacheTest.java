@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.connect.transforms.kryptonite;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class IdentityCacheTest {
+
+  @Test
+  @DisplayName("entries are found by key identity only and the least recently used one is evicted once full")
+  void lookupByIdentityAndLeastRecentlyUsedEviction() {
+    var cache = new IdentityCache<Schema, String>(2);
+    var schemaA = SchemaBuilder.struct().field("id", Schema.STRING_SCHEMA).build();
+    var schemaB = SchemaBuilder.struct().field("id", Schema.STRING_SCHEMA).build();
+    var schemaC = SchemaBuilder.struct().field("other", Schema.STRING_SCHEMA).build();
+    cache.put(schemaA, "A");
+    assertAll(
+        () -> assertEquals(schemaA, schemaB),
+        () -> assertEquals("A", cache.get(schemaA)),
+        () -> assertNull(cache.get(schemaB))
+    );
+    cache.put(schemaB, "B");
+    cache.get(schemaA);
+    cache.put(schemaC, "C");
+    assertAll(
+        () -> assertEquals(2, cache.size()),
+        () -> assertEquals("A", cache.get(schemaA)),
+        () -> assertNull(cache.get(schemaB)),
+        () -> assertEquals("C", cache.get(schemaC))
+    );
+  }
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.connect.transforms.kryptonite;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaAndValue;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.storage.Converter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class KryptoniteConverterTest {
+
+  static final String FIELD_CONFIG = "["
+      + "{\"name\":\"id\",\"schema\": {\"type\": \"STRING\"}},"
+      + "{\"name\":\"myString\",\"schema\": {\"type\": \"STRING\"}},"
+      + "{\"name\":\"myInt64\",\"schema\": {\"type\": \"INT64\"}},"
+      + "{\"name\":\"myArray1\",\"schema\": {\"type\": \"ARRAY\", \"valueSchema\": {\"type\": \"STRING\"}}}"
+      + "]";
+
+  /**
+   * Stand-in for a serializing converter which merely keeps the Connect data by reference.
+   */
+  public static class InMemoryConverter implements Converter {
+
+    static final Map<Long, SchemaAndValue> STORE = new ConcurrentHashMap<>();
+    static final AtomicLong IDS = new AtomicLong();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+    }
+
+    @Override
+    public byte[] fromConnectData(String topic, Schema schema, Object value) {
+      var id = IDS.incrementAndGet();
+      STORE.put(id, new SchemaAndValue(schema, value));
+      return ByteBuffer.allocate(Long.BYTES).putLong(id).array();
+    }
+
+    @Override
+    public SchemaAndValue toConnectData(String topic, byte[] value) {
+      return STORE.get(ByteBuffer.wrap(value).getLong());
+    }
+
+    static SchemaAndValue stored(byte[] value) {
+      return STORE.get(ByteBuffer.wrap(value).getLong());
+    }
+
+  }
+
+  @Test
+  @DisplayName("apply converter decrypt(encrypt(plaintext)) = plaintext for schemaless data with header meta-data")
+  void encryptDecryptSchemalessDataTest() {
+    var encryptConverter = newConverter("ENCRYPT", "HEADER");
+    var decryptConverter = newConverter("DECRYPT", "HEADER");
+    var headers = new RecordHeaders();
+
+    var serialized = encryptConverter.fromConnectData("some-kafka-topic", headers, null,
+        new LinkedHashMap<>(TestFixtures.TEST_OBJ_MAP_1));
+    @SuppressWarnings("unchecked")
+    var encrypted = (Map<String, Object>) InMemoryConverter.stored(serialized).value();
+    assertAll(
+        () -> assertNotNull(headers.lastHeader(MetaDataHeader.VALUE_HEADER)),
+        () -> assertTrue(encrypted.get("myString") instanceof String),
+        () -> assertNotEquals(TestFixtures.TEST_OBJ_MAP_1.get("myString"), encrypted.get("myString")),
+        () -> assertEquals(TestFixtures.TEST_OBJ_MAP_1.get("myInt32"), encrypted.get("myInt32"))
+    );
+
+    var deserialized = decryptConverter.toConnectData("some-kafka-topic", headers, serialized);
+    @SuppressWarnings("unchecked")
+    var decrypted = (Map<String, Object>) deserialized.value();
+    assertAll(
+        () -> assertNull(deserialized.schema()),
+        () -> assertEquals(TestFixtures.TEST_OBJ_MAP_1.get("id"), decrypted.get("id")),
+        () -> assertEquals(TestFixtures.TEST_OBJ_MAP_1.get("myString"), decrypted.get("myString")),
+        () -> assertEquals(TestFixtures.TEST_OBJ_MAP_1.get("myArray1"), decrypted.get("myArray1"))
+    );
+  }
+
+  @Test
+  @DisplayName("apply converter decrypt(encrypt(plaintext)) = plaintext for schema-aware data")
+  void encryptDecryptSchemaawareDataTest() {
+    var encryptConverter = newConverter("ENCRYPT", "FIELD");
+    var decryptConverter = newConverter("DECRYPT", "FIELD");
+
+    var serialized = encryptConverter.fromConnectData("some-kafka-topic",
+        TestFixtures.TEST_OBJ_SCHEMA_1, TestFixtures.TEST_OBJ_STRUCT_1);
+    var encrypted = InMemoryConverter.stored(serialized);
+    assertAll(
+        () -> assertEquals(Schema.STRING_SCHEMA, encrypted.schema().field("myInt64").schema()),
+        () -> assertTrue(((Struct) encrypted.value()).get("myString") instanceof String),
+        () -> assertNotEquals(TestFixtures.TEST_OBJ_STRUCT_1.get("myString"), ((Struct) encrypted.value()).get("myString"))
+    );
+    //NOTE: encrypting the same schema once more must reuse the rewritten schema
+    var serializedAgain = encryptConverter.fromConnectData("some-kafka-topic",
+        TestFixtures.TEST_OBJ_SCHEMA_1, TestFixtures.TEST_OBJ_STRUCT_1);
+    assertTrue(encrypted.schema() == InMemoryConverter.stored(serializedAgain).schema());
+
+    var deserialized = decryptConverter.toConnectData("some-kafka-topic", serialized);
+    var decrypted = (Struct) deserialized.value();
+    assertAll(
+        () -> assertDoesNotThrow(decrypted::validate),
+        () -> assertEquals(TestFixtures.TEST_OBJ_STRUCT_1.get("id"), decrypted.get("id")),
+        () -> assertEquals(TestFixtures.TEST_OBJ_STRUCT_1.get("myString"), decrypted.get("myString")),
+        () -> assertEquals(TestFixtures.TEST_OBJ_STRUCT_1.get("myArray1"), decrypted.get("myArray1")),
+        () -> assertEquals(TestFixtures.TEST_OBJ_STRUCT_1.get("myInt64"), decrypted.get("myInt64"))
+    );
+  }
+
+  @Test
+  @DisplayName("apply converter to tombstones and without delegate converter")
+  void tombstonesAndMissingDelegateTest() {
+    var encryptConverter = newConverter("ENCRYPT", "FIELD");
+    var serialized = encryptConverter.fromConnectData("some-kafka-topic", null, null);
+    assertNull(InMemoryConverter.stored(serialized).value());
+
+    var props = new HashMap<String, Object>();
+    props.put(KryptoniteSettings.CIPHER_MODE, "ENCRYPT");
+    props.put(KryptoniteSettings.FIELD_CONFIG, FIELD_CONFIG);
+    assertThrows(ConfigException.class, () -> new KryptoniteConverter().configure(props, false));
+  }
+
+  static KryptoniteConverter newConverter(String cipherMode, String metadataMode) {
+    var props = new HashMap<String, Object>();
+    props.put(KryptoniteConverter.DELEGATE_CONVERTER, InMemoryConverter.class.getName());
+    props.put(KryptoniteConverter.DELEGATE_CONVERTER_PREFIX + "schemas.enable", "false");
+    props.put(KryptoniteSettings.CIPHER_MODE, cipherMode);
+    props.put(KryptoniteSettings.FIELD_CONFIG, FIELD_CONFIG);
+    props.put(KryptoniteSettings.CIPHER_DATA_KEYS, TestFixtures.CIPHER_DATA_KEYS_CONFIG);
+    props.put(KryptoniteSettings.CIPHER_DATA_KEY_IDENTIFIER, "keyA");
+    props.put(KryptoniteSettings.CIPHER_METADATA_MODE, metadataMode);
+    var converter = new KryptoniteConverter();
+    converter.configure(props, false);
+    return converter;
+  }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.connect.transforms.kryptonite;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.List;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class SchemaFingerprintTest {
+
+  @Test
+  @DisplayName("structurally equal schemas share a fingerprint while any structural difference changes it")
+  void fingerprintFollowsSchemaEquality() {
+    var schema = buildSchema("myString", false, "v1");
+    assertAll(
+        () -> assertEquals(SchemaFingerprint.of(TestFixtures.TEST_OBJ_SCHEMA_1), SchemaFingerprint.of(TestFixtures.TEST_OBJ_SCHEMA_1)),
+        () -> assertEquals(SchemaFingerprint.of(schema), SchemaFingerprint.of(buildSchema("myString", false, "v1"))),
+        () -> assertNotEquals(SchemaFingerprint.of(schema), SchemaFingerprint.of(buildSchema("myString2", false, "v1"))),
+        () -> assertNotEquals(SchemaFingerprint.of(schema), SchemaFingerprint.of(buildSchema("myString", true, "v1"))),
+        () -> assertNotEquals(SchemaFingerprint.of(schema), SchemaFingerprint.of(buildSchema("myString", false, "v2"))),
+        () -> assertNotEquals(SchemaFingerprint.of(schema), SchemaFingerprint.of(TestFixtures.TEST_OBJ_SCHEMA_1))
+    );
+  }
+
+  @Test
+  @DisplayName("default values are fingerprinted by their full content rather than their hash codes")
+  void fingerprintCoversDefaultValueContent() {
+    assertEquals("Aa".hashCode(), "BB".hashCode());
+    assertAll(
+        () -> assertNotEquals(SchemaFingerprint.of(withDefault(SchemaBuilder.string(), "Aa")),
+            SchemaFingerprint.of(withDefault(SchemaBuilder.string(), "BB"))),
+        () -> assertNotEquals(SchemaFingerprint.of(withDefault(SchemaBuilder.array(Schema.STRING_SCHEMA), List.of("Aa", "BB"))),
+            SchemaFingerprint.of(withDefault(SchemaBuilder.array(Schema.STRING_SCHEMA), List.of("BB", "Aa")))),
+        () -> assertEquals(SchemaFingerprint.of(withDefault(SchemaBuilder.bytes(), new byte[]{1, 2, 3})),
+            SchemaFingerprint.of(withDefault(SchemaBuilder.bytes(), new byte[]{1, 2, 3}))),
+        () -> assertNotEquals(SchemaFingerprint.of(withDefault(SchemaBuilder.bytes(), new byte[]{1, 2, 3})),
+            SchemaFingerprint.of(withDefault(SchemaBuilder.bytes(), new byte[]{1, 2, 4})))
+    );
+  }
+
+  private static Schema withDefault(SchemaBuilder fieldSchema, Object defaultValue) {
+    return SchemaBuilder.struct()
+        .field("myField", fieldSchema.defaultValue(defaultValue).build())
+        .build();
+  }
+
+  private static Schema buildSchema(String fieldName, boolean optionalSubDoc, String parameter) {
+    var subDoc = SchemaBuilder.struct().field(fieldName, Schema.STRING_SCHEMA);
+    return SchemaBuilder.struct()
+        .name("myRecord")
+        .parameter("p1", parameter)
+        .field("id", Schema.STRING_SCHEMA)
+        .field("mySubDoc1", optionalSubDoc ? subDoc.optional().build() : subDoc.build())
+        .field("mySubDoc2", SchemaBuilder.map(Schema.STRING_SCHEMA, Schema.INT32_SCHEMA).build())
+        .build();
+  }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hpgrahsl.funqy.http.kryptonite;
+
+public class BatchResult {
+
+    public Object data;
+    public String error;
+
+    public BatchResult() {
+    }
+
+    public static BatchResult success(Object data) {
+        var result = new BatchResult();
+        result.data = data;
+        return result;
+    }
+
+    public static BatchResult failure(String error) {
+        var result = new BatchResult();
+        result.error = error;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult [data=" + data + ", error=" + error + "]";
+    }
+
+}
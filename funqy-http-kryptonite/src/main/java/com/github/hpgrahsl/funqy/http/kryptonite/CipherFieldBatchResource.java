@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hpgrahsl.funqy.http.kryptonite;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import com.github.hpgrahsl.funqy.http.kryptonite.KryptoniteConfiguration.FieldMode;
+import com.github.hpgrahsl.kryptonite.CipherMode;
+import io.quarkus.funqy.Funq;
+import io.smallrye.mutiny.Uni;
+
+/**
+ * Batch endpoints which process many {@link KryptonitePayload}s with a single HTTP request.
+ * The whole batch takes up a single slot of the concurrency limiter within which its items are
+ * processed in parallel chunks, every distinct field config is compiled only once per batch
+ * and results are returned positionally, i.e. a failing item results in an error entry at its
+ * position without affecting any of the other items.
+ */
+@ApplicationScoped
+public class CipherFieldBatchResource {
+
+    CipherFieldService cipherFieldService;
+
+    public CipherFieldBatchResource(CipherFieldService cipherFieldService) {
+        this.cipherFieldService = cipherFieldService;
+    }
+
+    @Funq("encrypt/batch")
+    public Uni<List<BatchResult>> encryptBatch(List<KryptonitePayload> batch) {
+        return processBatch(batch, CipherMode.ENCRYPT);
+    }
+
+    @Funq("decrypt/batch")
+    public Uni<List<BatchResult>> decryptBatch(List<KryptonitePayload> batch) {
+        return processBatch(batch, CipherMode.DECRYPT);
+    }
+
+    private Uni<List<BatchResult>> processBatch(List<KryptonitePayload> batch, CipherMode cipherMode) {
+        if (batch == null || batch.isEmpty()) {
+            return Uni.createFrom().item(List.of());
+        }
+        var compiledHandlers = new HashMap<Set<FieldConfig>, RecordHandler>();
+        var tasks = new ArrayList<Supplier<BatchResult>>(batch.size());
+        for (var item : batch) {
+            if (item == null) {
+                tasks.add(() -> BatchResult.failure("error: batch item must not be null"));
+                continue;
+            }
+            Set<FieldConfig> fieldConfig;
+            try {
+                fieldConfig = cipherFieldService.resolveFieldConfig(item);
+            } catch (Exception exc) {
+                tasks.add(() -> BatchResult.failure(exc.getMessage()));
+                continue;
+            }
+            var recordHandler = fieldConfig.isEmpty()
+                    ? null
+                    : compiledHandlers.computeIfAbsent(fieldConfig, fc -> cipherFieldService.compileFieldConfig(fc, cipherMode));
+            tasks.add(() -> {
+                try {
+                    return BatchResult.success(processItem(item, recordHandler, cipherMode));
+                } catch (Exception exc) {
+                    return BatchResult.failure(exc.getMessage());
+                }
+            });
+        }
+        return Uni.createFrom().completionStage(() -> cipherFieldService.submitAllAsync(tasks, Supplier::get));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object processItem(KryptonitePayload item, RecordHandler recordHandler, CipherMode cipherMode) {
+        if (recordHandler != null) {
+            return recordHandler.matchFields(item.data, "");
+        }
+        if (FieldMode.ELEMENT == cipherFieldService.getKryptoniteConfiguration().fieldMode) {
+            var entries = new LinkedHashMap<String, Object>();
+            ((Map<String, ?>) item.data).forEach((k, v) -> entries.put(k,
+                CipherMode.ENCRYPT == cipherMode ? cipherFieldService.encryptData(v) : cipherFieldService.decryptData((String) v)));
+            return entries;
+        }
+        return CipherMode.ENCRYPT == cipherMode
+                ? cipherFieldService.encryptData(item.data)
+                : cipherFieldService.decryptData((String) item.data);
+    }
+
+}
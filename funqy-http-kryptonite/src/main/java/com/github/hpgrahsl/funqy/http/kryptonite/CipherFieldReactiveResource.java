@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.funqy.http.kryptonite;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import com.github.hpgrahsl.funqy.http.kryptonite.KryptoniteConfiguration.FieldMode;
+import com.github.hpgrahsl.kryptonite.CipherMode;
+import io.quarkus.funqy.Funq;
+import io.smallrye.mutiny.Uni;
+
+/**
+ * Non-blocking variants of the endpoints in {@link CipherFieldResource}. The actual work is offloaded
+ * to the executor configured by <code>async.executor</code> and throttled according to
+ * <code>async.max.concurrency</code> and <code>async.max.pending</code>. Every request is admitted
+ * once, i.e. array elements and map entries are processed within the request's single slot.
+ */
+@ApplicationScoped
+public class CipherFieldReactiveResource {
+
+    CipherFieldService cipherFieldService;
+
+    public CipherFieldReactiveResource(CipherFieldService cipherFieldService) {
+        this.cipherFieldService = cipherFieldService;
+    }
+
+    @Funq("async/encrypt/value")
+    public Uni<String> encryptValue(Object value) {
+        return Uni.createFrom().completionStage(() -> cipherFieldService.encryptDataAsync(value));
+    }
+
+    @Funq("async/encrypt/array-elements")
+    public Uni<List<String>> encryptArrayElements(List<?> array) {
+        return Uni.createFrom().completionStage(
+                () -> cipherFieldService.submitAllAsync(array, cipherFieldService::encryptData));
+    }
+
+    @Funq("async/encrypt/map-entries")
+    public Uni<Map<String, String>> encryptMapEntries(Map<String, ?> map) {
+        var entries = new ArrayList<Map.Entry<String, ?>>(map.entrySet());
+        return Uni.createFrom().completionStage(
+                () -> cipherFieldService.submitAllAsync(entries, e -> cipherFieldService.encryptData(e.getValue()))
+                        .thenApply(values -> toMap(entries, values)));
+    }
+
+    @Funq("async/encrypt/value-with-config")
+    @SuppressWarnings("unchecked")
+    public Uni<Object> encryptValueWithConfig(KryptonitePayload kp) {
+
+        Objects.requireNonNull(kp, "KryptonitePayload kp must not be null");
+
+        var fieldConfig = cipherFieldService.resolveFieldConfig(kp);
+
+        if (fieldConfig.isEmpty()) {
+            if (FieldMode.ELEMENT == cipherFieldService.getKryptoniteConfiguration().fieldMode) {
+                return encryptMapEntries((Map<String, ?>) kp.data).map(Object.class::cast);
+            }
+            return encryptValue(kp.data).map(Object.class::cast);
+        }
+
+        return Uni.createFrom().completionStage(
+                () -> cipherFieldService.processDataWithFieldConfigAsync(kp.data, fieldConfig, CipherMode.ENCRYPT));
+    }
+
+    @Funq("async/decrypt/value")
+    public Uni<Object> decryptValue(String value) {
+        return Uni.createFrom().completionStage(() -> cipherFieldService.decryptDataAsync(value));
+    }
+
+    @Funq("async/decrypt/array-elements")
+    public Uni<List<Object>> decryptArrayElements(List<String> array) {
+        return Uni.createFrom().completionStage(
+                () -> cipherFieldService.submitAllAsync(array, cipherFieldService::decryptData));
+    }
+
+    @Funq("async/decrypt/map-entries")
+    public Uni<Map<String, Object>> decryptMapEntries(Map<String, String> map) {
+        var entries = new ArrayList<Map.Entry<String, String>>(map.entrySet());
+        return Uni.createFrom().completionStage(
+                () -> cipherFieldService.submitAllAsync(entries, e -> cipherFieldService.decryptData(e.getValue()))
+                        .thenApply(values -> toMap(entries, values)));
+    }
+
+    @Funq("async/decrypt/value-with-config")
+    @SuppressWarnings("unchecked")
+    public Uni<Object> decryptValueWithConfig(KryptonitePayload kp) {
+
+        Objects.requireNonNull(kp, "KryptonitePayload kp must not be null");
+
+        var fieldConfig = cipherFieldService.resolveFieldConfig(kp);
+
+        if (fieldConfig.isEmpty()) {
+            if (FieldMode.ELEMENT == cipherFieldService.getKryptoniteConfiguration().fieldMode) {
+                return decryptMapEntries((Map<String, String>) kp.data).map(Object.class::cast);
+            }
+            return decryptValue((String) kp.data);
+        }
+
+        return Uni.createFrom().completionStage(
+                () -> cipherFieldService.processDataWithFieldConfigAsync(kp.data, fieldConfig, CipherMode.DECRYPT));
+    }
+
+    private static <T> Map<String, T> toMap(List<? extends Map.Entry<String, ?>> entries, List<T> values) {
+        var results = new LinkedHashMap<String, T>();
+        for (int i = 0; i < entries.size(); i++) {
+            results.put(entries.get(i).getKey(), values.get(i));
+        }
+        return results;
+    }
+
+}
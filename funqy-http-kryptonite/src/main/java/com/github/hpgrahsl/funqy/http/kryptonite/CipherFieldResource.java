@@ -22,8 +22,6 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import jakarta.enterprise.context.ApplicationScoped;
@@ -80,11 +78,9 @@ public class CipherFieldResource {
 
         Objects.requireNonNull(kp, "KryptonitePayload kp must not be null");
 
-        var fieldConfig = Optional.ofNullable(kp.fieldConfig).map(
-                fc -> fc.stream().collect(Collectors.toMap(FieldConfig::getName, Function.identity())))
-                .orElse(new LinkedHashMap<>());
+        var fieldConfig = cipherFieldService.resolveFieldConfig(kp);
 
-        if (fieldConfig.keySet().isEmpty()) {
+        if (fieldConfig.isEmpty()) {
             if (FieldMode.ELEMENT == cipherFieldService.getKryptoniteConfiguration().fieldMode) {
                 return encryptMapEntries((Map<String, ?>) kp.data);
             }
@@ -130,11 +126,9 @@ public class CipherFieldResource {
 
         Objects.requireNonNull(kp, "KryptonitePayload kp must not be null");
 
-        var fieldConfig = Optional.ofNullable(kp.fieldConfig).map(
-                fc -> fc.stream().collect(Collectors.toMap(FieldConfig::getName, Function.identity())))
-                .orElse(new LinkedHashMap<>());
+        var fieldConfig = cipherFieldService.resolveFieldConfig(kp);
 
-        if (fieldConfig.keySet().isEmpty()) {
+        if (fieldConfig.isEmpty()) {
             if (FieldMode.ELEMENT == cipherFieldService.getKryptoniteConfiguration().fieldMode) {
                 return decryptMapEntries((Map<String, String>) kp.data);
             }
@@ -143,5 +137,4 @@ public class CipherFieldResource {
 
         return cipherFieldService.processDataWithFieldConfig(kp.data, fieldConfig, CipherMode.DECRYPT);
     }
-
 }
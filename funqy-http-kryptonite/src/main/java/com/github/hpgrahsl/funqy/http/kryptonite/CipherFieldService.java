@@ -17,13 +17,28 @@
 package com.github.hpgrahsl.funqy.http.kryptonite;
 
 import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
 import java.util.Map;
+import java.util.LinkedHashMap;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hpgrahsl.funqy.http.kryptonite.KryptoniteConfiguration.AsyncExecutor;
+import com.github.hpgrahsl.kryptonite.AsyncKryptonite;
 import com.github.hpgrahsl.kryptonite.CipherMode;
 import com.github.hpgrahsl.kryptonite.EncryptedField;
 import com.github.hpgrahsl.kryptonite.FieldMetaData;
@@ -37,13 +52,30 @@ import com.github.hpgrahsl.kryptonite.serdes.SerdeProcessor;
 @ApplicationScoped
 public class CipherFieldService {
 
+    private static final ObjectMapper PROFILES_MAPPER = new ObjectMapper();
+
+    static final int ASYNC_CHUNK_SIZE = 64;
+
     KryptoniteConfiguration config;
     Kryptonite kryptonite;
+    AsyncKryptonite asyncKryptonite;
+    ConcurrencyLimiter concurrencyLimiter;
+    FieldConfigCache fieldConfigCache;
+    Map<String, Set<FieldConfig>> fieldConfigProfiles;
     SerdeProcessor serdeProcessor = new KryoSerdeProcessor();
     
     public CipherFieldService(KryptoniteConfiguration config) {
         this.config = config;
         this.kryptonite = Kryptonite.createFromConfig(config.adaptToNormalizedStringsMap());
+        this.asyncKryptonite = new AsyncKryptonite(kryptonite, createAsyncExecutor(config));
+        this.concurrencyLimiter = new ConcurrencyLimiter(config.asyncMaxConcurrency, config.asyncMaxPending);
+        this.fieldConfigCache = new FieldConfigCache(config.fieldConfigCacheSize);
+        this.fieldConfigProfiles = parseFieldConfigProfiles(config.fieldConfigProfiles);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        ((ExecutorService)asyncKryptonite.getExecutor()).shutdown();
     }
 
     public KryptoniteConfiguration getKryptoniteConfiguration() {
@@ -76,9 +108,132 @@ public class CipherFieldService {
         }
     }
 
-    public Object processDataWithFieldConfig(Object data, Map<String, FieldConfig> fieldConfig, CipherMode cipherMode) {
-        return new RecordHandler(config, serdeProcessor, kryptonite,cipherMode,fieldConfig)
-                    .matchFields(data,"");
+    public CompletionStage<String> encryptDataAsync(Object data) {
+        return concurrencyLimiter.submit(() ->
+            CompletableFuture.supplyAsync(() -> serdeProcessor.objectToBytes(data), asyncKryptonite.getExecutor())
+                .thenCompose(valueBytes -> asyncKryptonite.cipherFieldAsync(valueBytes,
+                    PayloadMetaData.from(createFieldMetaData(config.cipherAlgorithm, config.cipherDataKeyIdentifier, data))))
+                .thenApply(encryptedField -> {
+                    var output = new Output(new ByteArrayOutputStream());
+                    KryoInstance.get().writeObject(output, encryptedField);
+                    return Base64.getEncoder().encodeToString(output.toBytes());
+                })
+        );
+    }
+
+    public CompletionStage<Object> decryptDataAsync(String data) {
+        return concurrencyLimiter.submit(() ->
+            CompletableFuture.supplyAsync(() -> KryoInstance.get().readObject(
+                    new Input(Base64.getDecoder().decode(data)),EncryptedField.class
+                ), asyncKryptonite.getExecutor())
+                .thenCompose(asyncKryptonite::decipherFieldAsync)
+                .thenApply(serdeProcessor::bytesToObject)
+        );
+    }
+
+    public CompletionStage<Object> processDataWithFieldConfigAsync(Object data, Set<FieldConfig> fieldConfig, CipherMode cipherMode) {
+        return concurrencyLimiter.submit(() ->
+            CompletableFuture.supplyAsync(
+                () -> processDataWithFieldConfig(data, fieldConfig, cipherMode), asyncKryptonite.getExecutor()
+            )
+        );
+    }
+
+    /**
+     * Admits a long-running unit of work, e.g. a whole stream of records, with a single slot of the concurrency
+     * limiter which is only released once the stage returned by the task completes. Its individual items are
+     * processed by means of {@link #runAdmittedAsync(Supplier)} which doesn't take any further slots.
+     */
+    public <T> CompletionStage<T> admitAsync(Supplier<? extends CompletionStage<T>> task) {
+        return concurrencyLimiter.submit(task);
+    }
+
+    public <T> CompletionStage<T> runAdmittedAsync(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, asyncKryptonite.getExecutor());
+    }
+
+    /**
+     * Admits all items with a single slot of the concurrency limiter, no matter how many there are, and
+     * processes them in parallel chunks of {@link #ASYNC_CHUNK_SIZE} items on the async executor.
+     * The results are returned positionally.
+     */
+    public <T, R> CompletionStage<List<R>> submitAllAsync(List<T> items, Function<? super T, ? extends R> task) {
+        return concurrencyLimiter.submit(() -> {
+            var chunks = new ArrayList<CompletableFuture<List<R>>>();
+            for (int from = 0; from < items.size(); from += ASYNC_CHUNK_SIZE) {
+                var chunk = items.subList(from, Math.min(items.size(), from + ASYNC_CHUNK_SIZE));
+                chunks.add(CompletableFuture.supplyAsync(() -> {
+                    var results = new ArrayList<R>(chunk.size());
+                    for (var item : chunk) {
+                        results.add(task.apply(item));
+                    }
+                    return results;
+                }, asyncKryptonite.getExecutor()));
+            }
+            return CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    var results = new ArrayList<R>(items.size());
+                    for (var chunk : chunks) {
+                        results.addAll(chunk.join());
+                    }
+                    return results;
+                });
+        });
+    }
+
+    public Object processDataWithFieldConfig(Object data, Set<FieldConfig> fieldConfig, CipherMode cipherMode) {
+        return compileFieldConfig(fieldConfig, cipherMode).matchFields(data,"");
+    }
+
+    public RecordHandler compileFieldConfig(Set<FieldConfig> fieldConfig, CipherMode cipherMode) {
+        return fieldConfigCache.computeIfAbsent(fieldConfig, cipherMode,
+                fc -> new RecordHandler(config, serdeProcessor, kryptonite, cipherMode, toFieldConfigMap(fc)));
+    }
+
+    public Set<FieldConfig> resolveFieldConfig(KryptonitePayload kp) {
+        return resolveFieldConfig(kp.fieldConfig, kp.fieldConfigProfile);
+    }
+
+    public Set<FieldConfig> resolveFieldConfig(Set<FieldConfig> fieldConfig, String fieldConfigProfile) {
+        if (fieldConfigProfile == null || fieldConfigProfile.isBlank()) {
+            return Optional.ofNullable(fieldConfig).orElse(Set.of());
+        }
+        if (fieldConfig != null && !fieldConfig.isEmpty()) {
+            throw new KryptoniteException("error: either specify a field config or a field config profile but not both");
+        }
+        var profile = fieldConfigProfiles.get(fieldConfigProfile);
+        if (profile == null) {
+            throw new KryptoniteException("error: unknown field config profile '" + fieldConfigProfile + "'");
+        }
+        return profile;
+    }
+
+    static Map<String, FieldConfig> toFieldConfigMap(Set<FieldConfig> fieldConfig) {
+        return Optional.ofNullable(fieldConfig).map(
+                fc -> fc.stream().collect(Collectors.toMap(FieldConfig::getName, Function.identity())))
+                .orElse(new LinkedHashMap<>());
+    }
+
+    private static Map<String, Set<FieldConfig>> parseFieldConfigProfiles(String fieldConfigProfiles) {
+        try {
+            Map<String, Set<FieldConfig>> profiles = PROFILES_MAPPER.readValue(
+                    fieldConfigProfiles, new TypeReference<Map<String, Set<FieldConfig>>>() {});
+            return profiles.entrySet().stream()
+                    .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, e -> Set.copyOf(e.getValue())));
+        } catch (Exception exc) {
+            throw new KryptoniteException("error: invalid field config profiles " + fieldConfigProfiles, exc);
+        }
+    }
+
+    private static ExecutorService createAsyncExecutor(KryptoniteConfiguration config) {
+        var numThreads = config.asyncExecutorThreads > 0
+                ? config.asyncExecutorThreads
+                : Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+        if (AsyncExecutor.PLATFORM == config.asyncExecutor) {
+            return AsyncKryptonite.newPlatformThreadExecutor(numThreads);
+        }
+        return AsyncKryptonite.newVirtualThreadExecutor()
+                .orElseGet(() -> AsyncKryptonite.newPlatformThreadExecutor(numThreads));
     }
 
     private static FieldMetaData createFieldMetaData(String algorithm, String keyId, Object value) {
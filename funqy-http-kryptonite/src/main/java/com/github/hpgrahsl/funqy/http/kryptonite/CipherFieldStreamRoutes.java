@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hpgrahsl.funqy.http.kryptonite;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hpgrahsl.kryptonite.CipherMode;
+
+import io.quarkus.logging.Log;
+import io.quarkus.vertx.http.runtime.RouteConstants;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.parsetools.RecordParser;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * Streaming endpoints which consume and produce newline-delimited JSON (NDJSON). The request body is
+ * split into lines incrementally, every line is processed according to the field config given in the
+ * {@value #FIELD_CONFIG_HEADER} header (or the named profile given in the {@value #FIELD_CONFIG_PROFILE_HEADER}
+ * header) and results are written back in the original order. At most
+ * {@value #MAX_LINES_IN_FLIGHT} lines per request are buffered at any time, reading from the request is
+ * paused whenever this limit is hit or the response can't keep up. Each stream as a whole takes a single slot
+ * of the concurrency limiter, i.e. a stream which isn't admitted is rejected right away instead of failing
+ * individual lines.
+ */
+@ApplicationScoped
+public class CipherFieldStreamRoutes {
+
+    public static final String FIELD_CONFIG_HEADER = "X-Kryptonite-Field-Config";
+    public static final String FIELD_CONFIG_PROFILE_HEADER = "X-Kryptonite-Field-Config-Profile";
+    public static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+
+    static final int MAX_LINES_IN_FLIGHT = 64;
+
+    private static final int STREAM_ROUTE_ORDER = RouteConstants.ROUTE_ORDER_BODY_HANDLER - 1;
+
+    private static final TypeReference<Set<FieldConfig>> FIELD_CONFIG_TYPE = new TypeReference<>() {};
+
+    CipherFieldService cipherFieldService;
+    ObjectMapper objectMapper;
+
+    public CipherFieldStreamRoutes(CipherFieldService cipherFieldService, ObjectMapper objectMapper) {
+        this.cipherFieldService = cipherFieldService;
+        this.objectMapper = objectMapper;
+    }
+
+    void registerRoutes(@Observes Router router) {
+        //NOTE: these routes must run before the global body handler which would otherwise buffer
+        // the complete request body and thereby defeat incremental processing of the stream
+        router.post("/encrypt/ndjson").order(STREAM_ROUTE_ORDER).handler(ctx -> handleStream(ctx, CipherMode.ENCRYPT));
+        router.post("/decrypt/ndjson").order(STREAM_ROUTE_ORDER).handler(ctx -> handleStream(ctx, CipherMode.DECRYPT));
+    }
+
+    void handleStream(RoutingContext ctx, CipherMode cipherMode) {
+        NdjsonRecordProcessor processor;
+        try {
+            var header = ctx.request().getHeader(FIELD_CONFIG_HEADER);
+            var profile = ctx.request().getHeader(FIELD_CONFIG_PROFILE_HEADER);
+            var fieldConfig = cipherFieldService.resolveFieldConfig(
+                    header == null || header.isBlank() ? null : objectMapper.readValue(header, FIELD_CONFIG_TYPE), profile);
+            if (fieldConfig.isEmpty()) {
+                ctx.response().setStatusCode(400).end("error: missing field config header "
+                        + FIELD_CONFIG_HEADER + " or " + FIELD_CONFIG_PROFILE_HEADER);
+                return;
+            }
+            processor = new NdjsonRecordProcessor(objectMapper, cipherFieldService.compileFieldConfig(fieldConfig, cipherMode));
+        } catch (Exception exc) {
+            ctx.response().setStatusCode(400).end("error: invalid field config -> " + exc.getMessage());
+            return;
+        }
+        var context = Vertx.currentContext();
+        var session = new StreamSession(context, ctx, processor);
+        //NOTE: nothing is read from the request body before the stream got admitted which may take a while
+        ctx.request().pause();
+        cipherFieldService.admitAsync(() -> {
+            context.runOnContext(v -> session.start());
+            return session.completion();
+        }).whenComplete((ignored, error) -> {
+            if (error != null) {
+                context.runOnContext(v -> session.reject(error));
+            }
+        });
+    }
+
+    class StreamSession {
+
+        private final Context context;
+        private final RoutingContext ctx;
+        private final HttpServerResponse response;
+        private final NdjsonRecordProcessor processor;
+        private final Deque<CompletableFuture<Buffer>> inFlight = new ArrayDeque<>();
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+        private RecordParser parser;
+        private boolean requestEnded;
+        private boolean failed;
+
+        StreamSession(Context context, RoutingContext ctx, NdjsonRecordProcessor processor) {
+            this.context = context;
+            this.ctx = ctx;
+            this.response = ctx.response();
+            this.processor = processor;
+        }
+
+        /**
+         * @return completes once the stream is done, no matter whether successfully or not, which releases its slot
+         */
+        CompletableFuture<Void> completion() {
+            return completion;
+        }
+
+        void start() {
+            if (response.closed()) {
+                completion.complete(null);
+                return;
+            }
+            response.setChunked(true).putHeader("Content-Type", NDJSON_CONTENT_TYPE);
+            response.closeHandler(v -> completion.complete(null));
+            parser = RecordParser.newDelimited("\n", ctx.request());
+            parser.handler(this::onLine);
+            parser.endHandler(v -> {
+                requestEnded = true;
+                flush();
+            });
+            parser.exceptionHandler(this::onFailure);
+            ctx.request().resume();
+        }
+
+        void reject(Throwable throwable) {
+            if (!response.ended() && !response.closed()) {
+                response.setStatusCode(503).end("error: stream not admitted -> " + throwable.getMessage());
+            }
+        }
+
+        private void onLine(Buffer line) {
+            var bytes = line.getBytes();
+            var length = bytes.length > 0 && bytes[bytes.length - 1] == '\r' ? bytes.length - 1 : bytes.length;
+            if (isBlank(bytes, length)) {
+                return;
+            }
+            var result = cipherFieldService.runAdmittedAsync(() -> processLine(bytes, length))
+                .exceptionally(this::errorLine)
+                .toCompletableFuture();
+            inFlight.add(result);
+            if (inFlight.size() >= MAX_LINES_IN_FLIGHT) {
+                parser.pause();
+            }
+            result.whenComplete((r, e) -> context.runOnContext(v -> flush()));
+        }
+
+        private Buffer processLine(byte[] bytes, int length) {
+            try {
+                return Buffer.buffer(processor.process(bytes, 0, length)).appendByte((byte) '\n');
+            } catch (Exception exc) {
+                throw new CompletionException(exc);
+            }
+        }
+
+        private Buffer errorLine(Throwable throwable) {
+            //NOTE: failed lines result in an error object at their position so that output lines still match input lines
+            var cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+            try {
+                return Buffer.buffer(objectMapper.writeValueAsBytes(BatchResult.failure(cause.getMessage()))).appendByte((byte) '\n');
+            } catch (Exception exc) {
+                throw new CompletionException(exc);
+            }
+        }
+
+        private void flush() {
+            if (failed || response.ended()) {
+                return;
+            }
+            while (!inFlight.isEmpty() && inFlight.peek().isDone()) {
+                var next = inFlight.poll();
+                if (next.isCompletedExceptionally()) {
+                    next.exceptionally(exc -> {
+                        onFailure(exc);
+                        return null;
+                    });
+                    return;
+                }
+                response.write(next.join());
+                if (response.writeQueueFull()) {
+                    parser.pause();
+                    response.drainHandler(v -> flush());
+                    return;
+                }
+            }
+            if (requestEnded && inFlight.isEmpty()) {
+                response.end();
+                completion.complete(null);
+                return;
+            }
+            if (!requestEnded && inFlight.size() < MAX_LINES_IN_FLIGHT) {
+                parser.resume();
+            }
+        }
+
+        private void onFailure(Throwable throwable) {
+            if (failed) {
+                return;
+            }
+            failed = true;
+            Log.error("NDJSON stream processing failed", throwable);
+            if (!response.ended()) {
+                response.reset();
+            }
+            completion.complete(null);
+        }
+
+        private boolean isBlank(byte[] bytes, int length) {
+            for (int i = 0; i < length; i++) {
+                if (!Character.isWhitespace(bytes[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.funqy.http.kryptonite;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.github.hpgrahsl.kryptonite.KryptoniteException;
+
+/**
+ * Non-blocking back-pressure for asynchronous tasks: at most maxConcurrency tasks are in flight,
+ * up to maxPending further tasks wait in a queue and everything beyond that is rejected right away.
+ */
+public class ConcurrencyLimiter {
+
+    private final int maxConcurrency;
+    private final int maxPending;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+
+    public ConcurrencyLimiter(int maxConcurrency, int maxPending) {
+        this.maxConcurrency = maxConcurrency > 0 ? maxConcurrency : Integer.MAX_VALUE;
+        this.maxPending = Math.max(0, maxPending);
+    }
+
+    public <T> CompletionStage<T> submit(Supplier<? extends CompletionStage<T>> task) {
+        var result = new CompletableFuture<T>();
+        Runnable runnable = () -> {
+            CompletionStage<T> stage;
+            try {
+                stage = task.get();
+            } catch (Throwable t) {
+                stage = CompletableFuture.failedFuture(t);
+            }
+            stage.whenComplete((value, error) -> {
+                release();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+        if (tryAcquire()) {
+            runnable.run();
+            return result;
+        }
+        if (pendingCount.incrementAndGet() > maxPending) {
+            pendingCount.decrementAndGet();
+            result.completeExceptionally(new KryptoniteException(
+                "error: too many pending requests (max concurrency " + maxConcurrency + ", max pending " + maxPending + ")"));
+            return result;
+        }
+        pending.add(runnable);
+        //NOTE: a permit might have been released in between the failed acquire and the enqueue
+        drain();
+        return result;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getPending() {
+        return pendingCount.get();
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            var current = inFlight.get();
+            if (current >= maxConcurrency) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    private void drain() {
+        while (!pending.isEmpty() && tryAcquire()) {
+            var next = pending.poll();
+            if (next == null) {
+                inFlight.decrementAndGet();
+                return;
+            }
+            pendingCount.decrementAndGet();
+            next.run();
+        }
+    }
+
+}
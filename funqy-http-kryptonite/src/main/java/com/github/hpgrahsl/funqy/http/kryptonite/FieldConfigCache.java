@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.funqy.http.kryptonite;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.github.hpgrahsl.kryptonite.CipherMode;
+
+/**
+ * Bounded LRU cache for compiled field configs. Entries are keyed by the canonical form of a field config,
+ * i.e. the unordered set of its {@link FieldConfig}s together with the {@link CipherMode}, so that
+ * requests which send the same field configs in a different order share the same {@link RecordHandler}.
+ */
+public class FieldConfigCache {
+
+    private final int maxEntries;
+    private final Map<Key, RecordHandler> entries;
+
+    public FieldConfigCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, RecordHandler> eldest) {
+                return size() > FieldConfigCache.this.maxEntries;
+            }
+        };
+    }
+
+    public RecordHandler computeIfAbsent(Set<FieldConfig> fieldConfig, CipherMode cipherMode,
+            Function<Set<FieldConfig>, RecordHandler> compiler) {
+        if (maxEntries <= 0) {
+            return compiler.apply(fieldConfig);
+        }
+        var key = new Key(Set.copyOf(fieldConfig), cipherMode);
+        synchronized (entries) {
+            var cached = entries.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        //NOTE: compile outside the lock, concurrent misses for the same key are harmless
+        var compiled = compiler.apply(key.fieldConfig);
+        synchronized (entries) {
+            var existing = entries.putIfAbsent(key, compiled);
+            return existing != null ? existing : compiled;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private static final class Key {
+
+        private final Set<FieldConfig> fieldConfig;
+        private final CipherMode cipherMode;
+        private final int hash;
+
+        private Key(Set<FieldConfig> fieldConfig, CipherMode cipherMode) {
+            this.fieldConfig = fieldConfig;
+            this.cipherMode = cipherMode;
+            this.hash = Objects.hash(fieldConfig, cipherMode);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key that = (Key) o;
+            return hash == that.hash && cipherMode == that.cipherMode && fieldConfig.equals(that.fieldConfig);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+}
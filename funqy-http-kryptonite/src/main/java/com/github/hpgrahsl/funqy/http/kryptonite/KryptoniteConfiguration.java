@@ -34,6 +34,11 @@ public class KryptoniteConfiguration {
         ELEMENT,
         OBJECT
     }
+
+    public enum AsyncExecutor {
+        VIRTUAL,
+        PLATFORM
+    }
     
     @ConfigProperty(name="cipher.data.keys")
     public String cipherDataKeys;
@@ -71,6 +76,24 @@ public class KryptoniteConfiguration {
     @ConfigProperty(name="cipher.algorithm", defaultValue = "TINK/AES_GCM")
     public String cipherAlgorithm;
 
+    @ConfigProperty(name="async.executor", defaultValue = "VIRTUAL")
+    public AsyncExecutor asyncExecutor = AsyncExecutor.VIRTUAL;
+
+    @ConfigProperty(name="async.executor.threads", defaultValue = "0")
+    public int asyncExecutorThreads;
+
+    @ConfigProperty(name="async.max.concurrency", defaultValue = "256")
+    public int asyncMaxConcurrency = 256;
+
+    @ConfigProperty(name="async.max.pending", defaultValue = "10000")
+    public int asyncMaxPending = 10000;
+
+    @ConfigProperty(name="field.config.cache.size", defaultValue = "256")
+    public int fieldConfigCacheSize = 256;
+
+    @ConfigProperty(name="field.config.profiles", defaultValue = "{}")
+    public String fieldConfigProfiles = "{}";
+
     public static KryptoniteConfiguration fromSettings(String cipherDataKeys, String cipherDataKeyIdentifier,
             KeySource keySource, KmsType kmsType, String kmsConfig, KekType kekType, String kekConfig,
             String kekUri, String dynamicKeyIdPrefix, String pathDelimiter, FieldMode fieldMode, String cipherAlgorithm) {
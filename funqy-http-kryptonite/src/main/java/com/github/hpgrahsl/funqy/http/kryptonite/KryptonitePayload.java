@@ -22,10 +22,12 @@ public class KryptonitePayload {
     
     public Object data;
     public Set<FieldConfig> fieldConfig;
+    public String fieldConfigProfile;
     
     @Override
     public String toString() {
-        return "KryptonitePayload [data=" + data + ", fieldConfig=" + fieldConfig + "]";
+        return "KryptonitePayload [data=" + data + ", fieldConfig=" + fieldConfig
+                + ", fieldConfigProfile=" + fieldConfigProfile + "]";
     }
 
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hpgrahsl.funqy.http.kryptonite;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hpgrahsl.funqy.http.kryptonite.KryptoniteConfiguration.FieldMode;
+
+/**
+ * Processes single NDJSON lines with Jackson's streaming API. Only the values of top-level fields
+ * that are subject to the field config are materialized, everything else is copied token by token
+ * from the parser to the generator without building any object trees.
+ * Field configs which refer to dynamic key identifiers need access to the whole record, which is why
+ * lines are fully parsed in this case.
+ */
+public class NdjsonRecordProcessor {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper;
+    private final RecordHandler recordHandler;
+    private final FieldMode defaultFieldMode;
+    private final boolean requiresFullRecord;
+
+    public NdjsonRecordProcessor(ObjectMapper objectMapper, RecordHandler recordHandler) {
+        this.objectMapper = objectMapper;
+        this.recordHandler = recordHandler;
+        this.defaultFieldMode = recordHandler.getConfig().fieldMode;
+        var dynamicKeyIdPrefix = recordHandler.getConfig().dynamicKeyIdPrefix;
+        this.requiresFullRecord = recordHandler.fieldConfig.values().stream()
+            .anyMatch(fc -> fc.getKeyId().map(k -> k.startsWith(dynamicKeyIdPrefix)).orElse(false));
+    }
+
+    public byte[] process(byte[] line, int offset, int length) throws IOException {
+        var output = new ByteArrayOutputStream(length + (length >> 1));
+        if (requiresFullRecord) {
+            var record = objectMapper.readValue(line, offset, length, MAP_TYPE);
+            objectMapper.writeValue(output, recordHandler.matchFields(record, ""));
+            return output.toByteArray();
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(line, offset, length);
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("error: expected each NDJSON line to contain a JSON object");
+            }
+            generator.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var fieldName = parser.currentName();
+                parser.nextToken();
+                generator.writeFieldName(fieldName);
+                var fc = recordHandler.fieldConfig.get(fieldName);
+                if (fc == null) {
+                    generator.copyCurrentStructure(parser);
+                    continue;
+                }
+                var value = objectMapper.readValue(parser, Object.class);
+                generator.writeObject(processValue(fc, fieldName, value));
+            }
+            generator.writeEndObject();
+        }
+        return output.toByteArray();
+    }
+
+    private Object processValue(FieldConfig fc, String fieldName, Object value) {
+        //NOTE: mirrors the top-level matching logic of RecordHandler.matchFields
+        if (FieldMode.ELEMENT == fc.getFieldMode().orElse(defaultFieldMode)) {
+            if (value instanceof List) {
+                return recordHandler.processListField(Collections.emptyMap(), (List<?>) value, fieldName);
+            }
+            if (value instanceof Map) {
+                return recordHandler.processMapField(Collections.emptyMap(), (Map<?, ?>) value, fieldName);
+            }
+        }
+        return recordHandler.processField(Collections.emptyMap(), value, fieldName);
+    }
+
+}
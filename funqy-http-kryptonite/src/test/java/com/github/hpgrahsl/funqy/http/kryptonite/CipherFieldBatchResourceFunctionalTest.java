@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hpgrahsl.funqy.http.kryptonite;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.http.HttpStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hpgrahsl.funqy.http.kryptonite.KryptoniteConfiguration.FieldMode;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.RestAssured;
+import jakarta.inject.Inject;
+
+@QuarkusTest
+@TestProfile(ProfileKeySourceConfig.class)
+public class CipherFieldBatchResourceFunctionalTest {
+
+    @Inject
+    public ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("perform batch decrypt(encrypt(plaintext)) = plaintext with positional per-item errors")
+    void encryptDecryptBatchWithPerItemErrors() throws Exception {
+        var fieldConfigA = Set.of(
+            new FieldConfig("id", null, "keyA", null, FieldMode.ELEMENT),
+            new FieldConfig("myArray1", null, "keyB", null, FieldMode.ELEMENT)
+        );
+        var fieldConfigB = Set.of(
+            new FieldConfig("myString", "TINK/AES_GCM_SIV", "key9", null, FieldMode.OBJECT),
+            new FieldConfig("mySubDoc2", null, null, null, FieldMode.OBJECT)
+        );
+        var encBatch = new ArrayList<Map<String, Object>>();
+        encBatch.add(payload(TestFixtures.TEST_OBJ_MAP_1, fieldConfigA));
+        encBatch.add(payload(TestFixtures.TEST_OBJ_MAP_1, fieldConfigB));
+        encBatch.add(payload(TestFixtures.TEST_OBJ_MAP_1, Set.of(new FieldConfig("id", null, "unknownKey", null, null))));
+        encBatch.add(payload(TestFixtures.TEST_OBJ_MAP_1, fieldConfigA));
+
+        var encResults = post("/encrypt/batch", encBatch);
+        assertEquals(4, encResults.size());
+        assertAll(
+            () -> assertNull(encResults.get(0).error),
+            () -> assertNull(encResults.get(1).error),
+            () -> assertNotNull(encResults.get(2).error),
+            () -> assertNull(encResults.get(2).data),
+            () -> assertNull(encResults.get(3).error)
+        );
+
+        var decBatch = new ArrayList<Map<String, Object>>();
+        decBatch.add(payload(encResults.get(0).data, fieldConfigA));
+        decBatch.add(payload(encResults.get(1).data, fieldConfigB));
+        decBatch.add(payload(Map.of("id", "not-a-ciphertext"), Set.of(new FieldConfig("id", null, null, null, null))));
+        decBatch.add(payload(encResults.get(3).data, fieldConfigA));
+
+        var decResults = post("/decrypt/batch", decBatch);
+        assertEquals(4, decResults.size());
+        var expected = objectMapper.readValue(objectMapper.writeValueAsString(TestFixtures.TEST_OBJ_MAP_1),
+            new TypeReference<Map<String, Object>>() {});
+        assertAll(
+            () -> assertEquals(expected, decResults.get(0).data),
+            () -> assertEquals(expected, decResults.get(1).data),
+            () -> assertNotNull(decResults.get(2).error),
+            () -> assertEquals(expected, decResults.get(3).data)
+        );
+    }
+
+    @Test
+    @DisplayName("perform batch decrypt(encrypt(plaintext)) = plaintext for more items than the limiter admits")
+    void encryptDecryptLargeBatch() throws Exception {
+        var fieldConfig = Set.of(new FieldConfig("id", null, null, null, null));
+        var encBatch = new ArrayList<Map<String, Object>>();
+        for (int i = 0; i < 256 + 10000 + 1; i++) {
+            encBatch.add(payload(Map.of("id", "id-" + i), fieldConfig));
+        }
+        var encResults = post("/encrypt/batch", encBatch);
+        assertEquals(encBatch.size(), encResults.size());
+
+        var decBatch = new ArrayList<Map<String, Object>>();
+        for (var encResult : encResults) {
+            assertNull(encResult.error);
+            decBatch.add(payload(encResult.data, fieldConfig));
+        }
+        var decResults = post("/decrypt/batch", decBatch);
+        assertEquals(encBatch.size(), decResults.size());
+        for (int i = 0; i < decResults.size(); i++) {
+            assertEquals(Map.of("id", "id-" + i), decResults.get(i).data);
+        }
+    }
+
+    @Test
+    @DisplayName("perform batch request without any items")
+    void encryptEmptyBatch() throws Exception {
+        assertEquals(0, post("/encrypt/batch", List.of()).size());
+    }
+
+    private List<BatchResult> post(String path, Object batch) throws Exception {
+        var response = RestAssured.given().body(objectMapper.writeValueAsString(batch)).contentType("application/json").post(path);
+        assertEquals(HttpStatus.SC_OK, response.getStatusCode());
+        return objectMapper.readValue(response.getBody().asString(), new TypeReference<List<BatchResult>>() {});
+    }
+
+    private static Map<String, Object> payload(Object data, Set<FieldConfig> fieldConfig) {
+        var payload = new LinkedHashMap<String, Object>();
+        payload.put("data", data);
+        payload.put("fieldConfig", fieldConfig);
+        return payload;
+    }
+
+}
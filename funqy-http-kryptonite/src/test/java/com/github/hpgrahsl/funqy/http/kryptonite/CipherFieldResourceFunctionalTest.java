@@ -19,14 +19,18 @@ package com.github.hpgrahsl.funqy.http.kryptonite;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.http.HttpStatus;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -64,8 +68,86 @@ public class CipherFieldResourceFunctionalTest {
         }
     }
 
+    @Nested
+    @TestProfile(ProfileKeySourceConfig.class)
+    class WithKeySourceConfigAsyncTest {
+        @ParameterizedTest
+        @MethodSource("com.github.hpgrahsl.funqy.http.kryptonite.ProfileKeySourceConfig#generateValidParamCombinations")
+        @DisplayName("perform async decrypt(encrypt(plaintext)) = plaintext for payload with config param combinations")
+        void encryptDecryptPayloadWithCustomConfigAsyncTest(
+                FieldMode fieldMode, CipherSpec cipherSpec, String keyId1, String keyId2)
+                    throws JsonMappingException, JsonProcessingException {
+            performTest("/async", fieldMode, cipherSpec, keyId1, keyId2);
+        }
+
+        @Test
+        @DisplayName("perform async decrypt(encrypt(plaintext)) = plaintext for more array elements than the limiter admits")
+        void encryptDecryptLargeArrayAsyncTest() throws JsonMappingException, JsonProcessingException {
+            var array = new ArrayList<String>();
+            for (int i = 0; i < 256 + 10000 + 1; i++) {
+                array.add("element-" + i);
+            }
+            var encResponse = RestAssured.given().body(array).post("/async/encrypt/array-elements");
+            assertEquals(HttpStatus.SC_OK, encResponse.getStatusCode());
+            var encrypted = objectMapper.readValue(encResponse.getBody().asString(), new TypeReference<List<String>>() {
+            });
+            assertEquals(array.size(), encrypted.size());
+
+            var decResponse = RestAssured.given().body(encrypted).post("/async/decrypt/array-elements");
+            assertEquals(HttpStatus.SC_OK, decResponse.getStatusCode());
+            var decrypted = objectMapper.readValue(decResponse.getBody().asString(), new TypeReference<List<String>>() {
+            });
+            assertEquals(array, decrypted);
+        }
+    }
+
+    @Nested
+    @TestProfile(ProfileKeySourceConfig.class)
+    class WithFieldConfigProfileTest {
+        @Test
+        @DisplayName("perform decrypt(encrypt(plaintext)) = plaintext for payload referring to a named field config profile")
+        void encryptDecryptPayloadWithFieldConfigProfileTest() throws JsonMappingException, JsonProcessingException {
+            var encPayload = new LinkedHashMap<>();
+            encPayload.put("data", TestFixtures.TEST_OBJ_MAP_1);
+            encPayload.put("fieldConfigProfile", "pii");
+            var encResponse = RestAssured.given().body(encPayload).post("/encrypt/value-with-config");
+            assertEquals(HttpStatus.SC_OK, encResponse.getStatusCode());
+            var encrypted = objectMapper.readValue(encResponse.getBody().asString(), new TypeReference<Map<String, Object>>() {
+            });
+            assertAll(
+                () -> assertNotEquals(TestFixtures.TEST_OBJ_MAP_1.get("id"), encrypted.get("id")),
+                () -> assertNotEquals(TestFixtures.TEST_OBJ_MAP_1.get("myString"), encrypted.get("myString")),
+                () -> assertEquals(TestFixtures.TEST_OBJ_MAP_1.get("myInt32"), encrypted.get("myInt32"))
+            );
+
+            var decPayload = new LinkedHashMap<>();
+            decPayload.put("data", encrypted);
+            decPayload.put("fieldConfigProfile", "pii");
+            var decResponse = RestAssured.given().body(decPayload).post("/async/decrypt/value-with-config");
+            assertEquals(HttpStatus.SC_OK, decResponse.getStatusCode());
+            var actualDecrypted = objectMapper.readValue(decResponse.getBody().asString(), new TypeReference<Map<String, Object>>() {
+            });
+            assertAllResultingFieldsSchemalessRecord(TestFixtures.TEST_OBJ_MAP_1, actualDecrypted);
+        }
+
+        @Test
+        @DisplayName("reject payload referring to an unknown field config profile")
+        void encryptPayloadWithUnknownFieldConfigProfileTest() {
+            var encPayload = new LinkedHashMap<>();
+            encPayload.put("data", TestFixtures.TEST_OBJ_MAP_1);
+            encPayload.put("fieldConfigProfile", "unknown");
+            var encResponse = RestAssured.given().body(encPayload).post("/encrypt/value-with-config");
+            assertNotEquals(HttpStatus.SC_OK, encResponse.getStatusCode());
+        }
+    }
+
     void performTest(FieldMode fieldMode, CipherSpec cipherSpec, String keyId1, String keyId2) 
             throws JsonMappingException, JsonProcessingException {
+        performTest("", fieldMode, cipherSpec, keyId1, keyId2);
+    }
+
+    void performTest(String pathPrefix, FieldMode fieldMode, CipherSpec cipherSpec, String keyId1, String keyId2) 
+            throws JsonMappingException, JsonProcessingException {
         
         var encPayload = new LinkedHashMap<>();
         encPayload.put("data", TestFixtures.TEST_OBJ_MAP_1);
@@ -93,7 +175,7 @@ public class CipherFieldResourceFunctionalTest {
         Log.debug("HTTP request body (encryption): " + objectMapper.writeValueAsString(encPayload));
 
         var encRequest = RestAssured.given().body(encPayload);
-        var encResponse = encRequest.post("/encrypt/value-with-config");
+        var encResponse = encRequest.post(pathPrefix + "/encrypt/value-with-config");
         assertAll(
                 () -> assertEquals(HttpStatus.SC_OK, encResponse.getStatusCode()));
         var encResponseBody = encResponse.getBody().asString();
@@ -126,7 +208,7 @@ public class CipherFieldResourceFunctionalTest {
         Log.debug("HTTP request body (decryption): " + objectMapper.writeValueAsString(decPayload));
 
         var decRequest = RestAssured.given().body(decPayload);
-        var decResponse = decRequest.post("/decrypt/value-with-config");
+        var decResponse = decRequest.post(pathPrefix + "/decrypt/value-with-config");
         assertAll(
                 () -> assertEquals(HttpStatus.SC_OK, decResponse.getStatusCode()));
         var decResponseBody = decResponse.getBody().asString();
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.funqy.http.kryptonite;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hpgrahsl.funqy.http.kryptonite.KryptoniteConfiguration.FieldMode;
+
+import io.quarkus.logging.Log;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+
+/**
+ * Simple load test harness which reports requests per second and latency percentiles of the blocking
+ * and the non-blocking endpoints under concurrent clients. It only runs with <code>-Dload.tests=true</code>,
+ * the number of clients and the duration can be tuned with <code>-Dload.clients</code> and
+ * <code>-Dload.duration.seconds</code>.
+ */
+@QuarkusTest
+@TestProfile(ProfileKeySourceConfig.class)
+@EnabledIfSystemProperty(named = "load.tests", matches = "true")
+public class CipherFieldResourceLoadTest {
+
+    @Inject
+    public ObjectMapper objectMapper;
+
+    @TestHTTPResource("/")
+    URL baseUrl;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/encrypt/value-with-config", "/async/encrypt/value-with-config"})
+    @DisplayName("measure throughput and latency of concurrent clients")
+    void measureThroughputAndLatency(String path) throws Exception {
+        var clients = Integer.getInteger("load.clients", 32);
+        var duration = Duration.ofSeconds(Long.getLong("load.duration.seconds", 10L));
+        var payload = new LinkedHashMap<String, Object>();
+        payload.put("data", TestFixtures.TEST_OBJ_MAP_1);
+        payload.put("fieldConfig", Set.of(
+            new FieldConfig("id", null, null, null, FieldMode.ELEMENT),
+            new FieldConfig("myString", null, null, null, FieldMode.ELEMENT),
+            new FieldConfig("myArray1", null, null, null, FieldMode.ELEMENT),
+            new FieldConfig("mySubDoc2", null, null, null, FieldMode.ELEMENT)
+        ));
+        var body = objectMapper.writeValueAsString(payload);
+        var request = HttpRequest.newBuilder(URI.create(baseUrl.toString()).resolve(path.substring(1)))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+        var httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        //NOTE: warm up before measuring
+        runClients(httpClient, request, clients, Duration.ofSeconds(2));
+        var result = runClients(httpClient, request, clients, duration);
+
+        Log.infof("%s: clients=%d requests=%d errors=%d rps=%.1f p50=%.2fms p99=%.2fms max=%.2fms",
+            path, clients, result.latenciesNanos.size(), result.errors,
+            result.latenciesNanos.size() / (duration.toNanos() / 1e9),
+            percentile(result.latenciesNanos, 0.50) / 1e6,
+            percentile(result.latenciesNanos, 0.99) / 1e6,
+            percentile(result.latenciesNanos, 1.0) / 1e6);
+        assertEquals(0, result.errors);
+    }
+
+    private static LoadResult runClients(HttpClient httpClient, HttpRequest request, int clients, Duration duration) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        var errors = new AtomicLong();
+        var deadline = System.nanoTime() + duration.toNanos();
+        try {
+            var futures = new ArrayList<Future<List<Long>>>();
+            for (int c = 0; c < clients; c++) {
+                futures.add(executor.submit(() -> {
+                    var latencies = new ArrayList<Long>();
+                    while (System.nanoTime() < deadline) {
+                        var start = System.nanoTime();
+                        var response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies.add(System.nanoTime() - start);
+                        if (response.statusCode() != HttpStatus.SC_OK) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    return latencies;
+                }));
+            }
+            var all = new ArrayList<Long>();
+            for (var future : futures) {
+                all.addAll(future.get());
+            }
+            Collections.sort(all);
+            return new LoadResult(all, errors.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static double percentile(List<Long> sortedLatencies, double quantile) {
+        if (sortedLatencies.isEmpty()) {
+            return 0;
+        }
+        var index = (int) Math.ceil(quantile * sortedLatencies.size()) - 1;
+        return sortedLatencies.get(Math.max(0, Math.min(index, sortedLatencies.size() - 1)));
+    }
+
+    static class LoadResult {
+
+        final List<Long> latenciesNanos;
+        final long errors;
+
+        LoadResult(List<Long> latenciesNanos, long errors) {
+            this.latenciesNanos = latenciesNanos;
+            this.errors = errors;
+        }
+
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.hpgrahsl.funqy.http.kryptonite;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.http.HttpStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hpgrahsl.funqy.http.kryptonite.KryptoniteConfiguration.FieldMode;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.RestAssured;
+import jakarta.inject.Inject;
+
+@QuarkusTest
+@TestProfile(ProfileKeySourceConfig.class)
+public class CipherFieldStreamRoutesFunctionalTest {
+
+    static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    @Inject
+    public ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("perform NDJSON decrypt(encrypt(plaintext)) = plaintext line by line")
+    void encryptDecryptNdjsonStream() throws Exception {
+        var fieldConfig = objectMapper.writeValueAsString(Set.of(
+            new FieldConfig("id", null, "keyB", null, FieldMode.OBJECT),
+            new FieldConfig("myArray1", null, null, null, FieldMode.ELEMENT),
+            new FieldConfig("mySubDoc2", "TINK/AES_GCM_SIV", "key9", null, FieldMode.OBJECT)
+        ));
+        var expected = new ArrayList<Map<String, Object>>();
+        var input = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            var record = new LinkedHashMap<String, Object>(objectMapper.readValue(
+                objectMapper.writeValueAsString(TestFixtures.TEST_OBJ_MAP_1), MAP_TYPE));
+            record.put("id", "id-" + i);
+            expected.add(record);
+            input.append(objectMapper.writeValueAsString(record)).append('\n');
+        }
+
+        var encrypted = post("/encrypt/ndjson", fieldConfig, input.toString());
+        assertEquals(expected.size(), encrypted.size());
+        for (int i = 0; i < expected.size(); i++) {
+            var record = objectMapper.readValue(encrypted.get(i), MAP_TYPE);
+            var original = expected.get(i);
+            assertAll(
+                () -> assertNotEquals(original.get("id"), record.get("id")),
+                () -> assertTrue(record.get("myArray1") instanceof List),
+                () -> assertTrue(record.get("mySubDoc2") instanceof String),
+                () -> assertEquals(original.get("myString"), record.get("myString")),
+                () -> assertEquals(original.get("mySubDoc1"), record.get("mySubDoc1"))
+            );
+        }
+
+        var decrypted = post("/decrypt/ndjson", fieldConfig, String.join("\n", encrypted));
+        assertEquals(expected.size(), decrypted.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), objectMapper.readValue(decrypted.get(i), MAP_TYPE));
+        }
+    }
+
+    @Test
+    @DisplayName("perform NDJSON encryption with invalid lines resulting in positional errors")
+    void encryptNdjsonStreamWithInvalidLines() throws Exception {
+        var fieldConfig = objectMapper.writeValueAsString(Set.of(new FieldConfig("id", null, null, null, null)));
+        var lines = post("/encrypt/ndjson", fieldConfig, "{\"id\":1}\n[1,2,3]\n\n{\"id\":2}\n");
+        assertEquals(3, lines.size());
+        assertAll(
+            () -> assertTrue(objectMapper.readValue(lines.get(0), MAP_TYPE).get("id") instanceof String),
+            () -> assertTrue(objectMapper.readValue(lines.get(1), MAP_TYPE).get("error") instanceof String),
+            () -> assertTrue(objectMapper.readValue(lines.get(2), MAP_TYPE).get("id") instanceof String)
+        );
+    }
+
+    @Test
+    @DisplayName("perform NDJSON encryption without field config header")
+    void encryptNdjsonStreamWithoutFieldConfig() {
+        var response = RestAssured.given().body("{\"id\":1}\n").post("/encrypt/ndjson");
+        assertEquals(HttpStatus.SC_BAD_REQUEST, response.getStatusCode());
+    }
+
+    private List<String> post(String path, String fieldConfig, String body) {
+        var response = RestAssured.given()
+            .header(CipherFieldStreamRoutes.FIELD_CONFIG_HEADER, fieldConfig)
+            .contentType(CipherFieldStreamRoutes.NDJSON_CONTENT_TYPE)
+            .body(body.getBytes(StandardCharsets.UTF_8))
+            .post(path);
+        assertEquals(HttpStatus.SC_OK, response.getStatusCode());
+        var lines = new ArrayList<String>();
+        for (var line : response.getBody().asString().split("\n")) {
+            if (!line.isBlank()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+}
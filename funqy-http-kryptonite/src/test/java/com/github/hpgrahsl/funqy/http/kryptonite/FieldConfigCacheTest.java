@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.funqy.http.kryptonite;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.github.hpgrahsl.kryptonite.CipherMode;
+
+public class FieldConfigCacheTest {
+
+    static final FieldConfig FC_ID = new FieldConfig("id", null, "keyA", null, null);
+    static final FieldConfig FC_STRING = new FieldConfig("myString", "TINK/AES_GCM_SIV", "key9", null, null);
+
+    @Test
+    @DisplayName("field configs with the same content in a different order share one compiled record handler")
+    void sameFieldConfigInDifferentOrderHitsCache() {
+        var compilations = new AtomicInteger();
+        var cache = new FieldConfigCache(8);
+        var first = cache.computeIfAbsent(new LinkedHashSet<>(List.of(FC_ID, FC_STRING)), CipherMode.ENCRYPT,
+            fc -> compile(fc, compilations));
+        var second = cache.computeIfAbsent(new LinkedHashSet<>(List.of(FC_STRING, FC_ID)), CipherMode.ENCRYPT,
+            fc -> compile(fc, compilations));
+        var decrypt = cache.computeIfAbsent(Set.of(FC_ID, FC_STRING), CipherMode.DECRYPT,
+            fc -> compile(fc, compilations));
+        assertAll(
+            () -> assertSame(first, second),
+            () -> assertNotSame(first, decrypt),
+            () -> assertEquals(2, compilations.get()),
+            () -> assertEquals(2, cache.size())
+        );
+    }
+
+    @Test
+    @DisplayName("least recently used entries are evicted once the cache is full and caching can be disabled")
+    void evictsLeastRecentlyUsedAndSupportsDisabling() {
+        var compilations = new AtomicInteger();
+        var cache = new FieldConfigCache(2);
+        cache.computeIfAbsent(Set.of(FC_ID), CipherMode.ENCRYPT, fc -> compile(fc, compilations));
+        cache.computeIfAbsent(Set.of(FC_STRING), CipherMode.ENCRYPT, fc -> compile(fc, compilations));
+        cache.computeIfAbsent(Set.of(FC_ID), CipherMode.ENCRYPT, fc -> compile(fc, compilations));
+        cache.computeIfAbsent(Set.of(FC_ID, FC_STRING), CipherMode.ENCRYPT, fc -> compile(fc, compilations));
+        cache.computeIfAbsent(Set.of(FC_ID), CipherMode.ENCRYPT, fc -> compile(fc, compilations));
+        cache.computeIfAbsent(Set.of(FC_STRING), CipherMode.ENCRYPT, fc -> compile(fc, compilations));
+        assertAll(
+            () -> assertEquals(4, compilations.get()),
+            () -> assertEquals(2, cache.size())
+        );
+
+        var disabled = new FieldConfigCache(0);
+        var first = disabled.computeIfAbsent(Set.of(FC_ID), CipherMode.ENCRYPT, fc -> compile(fc, compilations));
+        var second = disabled.computeIfAbsent(Set.of(FC_ID), CipherMode.ENCRYPT, fc -> compile(fc, compilations));
+        assertAll(
+            () -> assertNotSame(first, second),
+            () -> assertEquals(0, disabled.size())
+        );
+    }
+
+    private static RecordHandler compile(Set<FieldConfig> fieldConfig, AtomicInteger compilations) {
+        compilations.incrementAndGet();
+        return new RecordHandler(new KryptoniteConfiguration(), null, null, CipherMode.ENCRYPT,
+            Map.copyOf(CipherFieldService.toFieldConfigMap(fieldConfig)));
+    }
+
+}
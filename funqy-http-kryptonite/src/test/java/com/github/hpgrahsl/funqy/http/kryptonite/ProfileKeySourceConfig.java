@@ -30,6 +30,13 @@ import io.quarkus.test.junit.QuarkusTestProfile;
 
 public class ProfileKeySourceConfig implements QuarkusTestProfile {
 
+    static final String FIELD_CONFIG_PROFILES = "{"
+            + "\"pii\":["
+            + "{\"name\":\"id\",\"keyId\":\"keyB\"},"
+            + "{\"name\":\"myString\",\"algorithm\":\"TINK/AES_GCM_SIV\",\"keyId\":\"key9\",\"fieldMode\":\"OBJECT\"},"
+            + "{\"name\":\"myArray1\"}"
+            + "]}";
+
     @Override
     public Map<String, String> getConfigOverrides() {
         return Map.ofEntries(
@@ -44,7 +51,8 @@ public class ProfileKeySourceConfig implements QuarkusTestProfile {
             Map.entry("dynamic.key.id.prefix","__#"),
             Map.entry("path.delimiter","."),
             Map.entry("field.mode","ELEMENT"),
-            Map.entry("cipher.algorithm","TINK/AES_GCM")
+            Map.entry("cipher.algorithm","TINK/AES_GCM"),
+            Map.entry("field.config.profiles",FIELD_CONFIG_PROFILES)
         );
     }
     
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.serdes.kryptonite;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.github.hpgrahsl.kafka.serdes.kryptonite.FieldPlan.PlannedField;
+import com.github.hpgrahsl.kryptonite.EncryptedField;
+import com.github.hpgrahsl.kryptonite.Kryptonite;
+import com.github.hpgrahsl.kryptonite.KryptoniteRegistry;
+import com.github.hpgrahsl.kryptonite.serdes.KryoInstance;
+import com.github.hpgrahsl.kryptonite.serdes.KryoSerdeProcessor;
+import com.github.hpgrahsl.kryptonite.serdes.SerdeProcessor;
+import java.io.ByteArrayOutputStream;
+import java.util.Base64;
+import java.util.Map;
+import org.apache.kafka.common.errors.SerializationException;
+
+import static com.github.hpgrahsl.kryptonite.config.KryptoniteSettings.*;
+
+/**
+ * Encrypts / decrypts the fields of a {@link FieldPlan} within map payloads. Encrypted fields have the same
+ * format as those of the Kafka Connect SMT with <code>cipher_metadata_mode=FIELD</code>, i.e. the Base64 encoded
+ * {@link EncryptedField} of the kryo serialized field value, and can thus be decrypted by either of them.
+ * Instances are thread-safe.
+ */
+public class FieldCipher implements AutoCloseable {
+
+  private final Kryptonite kryptonite;
+  private final KryptoniteRegistry.Lease kryptoniteLease;
+  private final FieldPlan fieldPlan;
+  private final SerdeProcessor serdeProcessor = new KryoSerdeProcessor();
+
+  public FieldCipher(Kryptonite kryptonite, FieldPlan fieldPlan) {
+    this(kryptonite, null, fieldPlan);
+  }
+
+  private FieldCipher(Kryptonite kryptonite, KryptoniteRegistry.Lease kryptoniteLease, FieldPlan fieldPlan) {
+    this.kryptonite = kryptonite;
+    this.kryptoniteLease = kryptoniteLease;
+    this.fieldPlan = fieldPlan;
+  }
+
+  /**
+   * Creates an instance which shares its {@code Kryptonite} instance, i.e. the key vault together with its
+   * keysets and caches, with all other instances within the JVM that have identical key-related settings.
+   * It needs to be closed once it's not used anymore.
+   */
+  public static FieldCipher fromConfig(Map<?, ?> configs) {
+    var config = new KryptoniteSerdeConfig(configs);
+    var fieldPlan = FieldPlan.compile(config.getString(FIELD_CONFIG), config.getString(PATH_DELIMITER),
+        config.getString(CIPHER_ALGORITHM), config.getString(CIPHER_DATA_KEY_IDENTIFIER));
+    var kryptoniteLease = KryptoniteRegistry.acquire(config.asKryptoniteSettings());
+    return new FieldCipher(kryptoniteLease.kryptonite(), kryptoniteLease, fieldPlan);
+  }
+
+  public FieldPlan getFieldPlan() {
+    return fieldPlan;
+  }
+
+  /**
+   * @return a copy of the payload with all configured fields being encrypted
+   */
+  public Map<String, Object> encrypt(Map<?, ?> payload) {
+    return fieldPlan.apply(payload, this::encryptField);
+  }
+
+  public Map<String, Object> encryptInPlace(Map<String, Object> payload) {
+    return fieldPlan.applyInPlace(payload, this::encryptField);
+  }
+
+  /**
+   * @return a copy of the payload with all configured fields being decrypted
+   */
+  public Map<String, Object> decrypt(Map<?, ?> payload) {
+    return fieldPlan.apply(payload, this::decryptField);
+  }
+
+  public Map<String, Object> decryptInPlace(Map<String, Object> payload) {
+    return fieldPlan.applyInPlace(payload, this::decryptField);
+  }
+
+  /**
+   * Releases the shared {@code Kryptonite} instance of instances created by {@link #fromConfig(Map)}.
+   */
+  @Override
+  public void close() {
+    if (kryptoniteLease != null) {
+      kryptoniteLease.close();
+    }
+  }
+
+  private Object encryptField(PlannedField field, Object value) {
+    try {
+      var valueBytes = serdeProcessor.objectToBytes(value);
+      if (field.isPseudonymize()) {
+        var pseudonym = kryptonite.pseudonymizeField(valueBytes, field.getMetaData().getKeyId());
+        return Base64.getEncoder().withoutPadding().encodeToString(pseudonym);
+      }
+      var encryptedField = kryptonite.cipherField(valueBytes, field.getMetaData());
+      var output = new Output(new ByteArrayOutputStream());
+      KryoInstance.get().writeObject(output, encryptedField);
+      return Base64.getEncoder().encodeToString(output.toBytes());
+    } catch (RuntimeException e) {
+      throw new SerializationException("error: encryption of field '" + field.getPath() + "' failed", e);
+    }
+  }
+
+  private Object decryptField(PlannedField field, Object value) {
+    //NOTE: pseudonyms are one-way hence decryption leaves them as they are
+    if (field.isPseudonymize()) {
+      return value;
+    }
+    if (!(value instanceof String)) {
+      throw new SerializationException("error: field '" + field.getPath()
+          + "' is expected to be an encrypted string but was " + value.getClass().getName());
+    }
+    try {
+      var encryptedField = KryoInstance.get().readObject(
+          new Input(Base64.getDecoder().decode((String) value)), EncryptedField.class);
+      return serdeProcessor.bytesToObject(kryptonite.decipherField(encryptedField));
+    } catch (RuntimeException e) {
+      throw new SerializationException("error: decryption of field '" + field.getPath() + "' failed", e);
+    }
+  }
+
+}
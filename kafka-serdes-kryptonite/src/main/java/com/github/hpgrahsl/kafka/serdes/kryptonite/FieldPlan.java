@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.serdes.kryptonite;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hpgrahsl.kryptonite.Kryptonite;
+import com.github.hpgrahsl.kryptonite.Kryptonite.CipherSpec;
+import com.github.hpgrahsl.kryptonite.PayloadMetaData;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.regex.Pattern;
+import org.apache.kafka.common.config.ConfigException;
+
+import static com.github.hpgrahsl.kryptonite.config.KryptoniteSettings.FIELD_CONFIG;
+
+/**
+ * The field config compiled into a tree of field name segments. Every configured field carries its payload
+ * meta-data (version, algorithm id and key id) which is resolved once upfront, so that processing a payload
+ * only visits the configured fields instead of matching the path of every single field of the payload.
+ */
+public final class FieldPlan {
+
+  /**
+   * A configured field together with its resolved cipher settings.
+   */
+  public static final class PlannedField {
+
+    private final String path;
+    private final PayloadMetaData metaData;
+    private final boolean pseudonymize;
+
+    private PlannedField(String path, PayloadMetaData metaData, boolean pseudonymize) {
+      this.path = path;
+      this.metaData = metaData;
+      this.pseudonymize = pseudonymize;
+    }
+
+    public String getPath() {
+      return path;
+    }
+
+    public PayloadMetaData getMetaData() {
+      return metaData;
+    }
+
+    public boolean isPseudonymize() {
+      return pseudonymize;
+    }
+
+  }
+
+  private static final class Node {
+
+    private final Map<String, Node> children = new LinkedHashMap<>();
+    private PlannedField field;
+
+  }
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private final Node root;
+  private final int size;
+
+  private FieldPlan(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  public static FieldPlan compile(String fieldConfig, String pathDelimiter,
+      String defaultAlgorithm, String defaultKeyId) {
+    JsonNode fieldConfigs;
+    try {
+      fieldConfigs = OBJECT_MAPPER.readTree(fieldConfig);
+    } catch (JsonProcessingException e) {
+      throw new ConfigException(FIELD_CONFIG, fieldConfig, e.getMessage());
+    }
+    if (fieldConfigs == null || !fieldConfigs.isArray() || fieldConfigs.isEmpty()) {
+      throw new ConfigException(FIELD_CONFIG, fieldConfig, "must be a non-empty JSON array of field config objects");
+    }
+    var root = new Node();
+    var size = 0;
+    for (var fc : fieldConfigs) {
+      var path = fc.path("name").asText("");
+      if (path.isEmpty()) {
+        throw new ConfigException(FIELD_CONFIG, fieldConfig, "every field config object requires a 'name'");
+      }
+      var node = root;
+      for (var segment : path.split(Pattern.quote(pathDelimiter))) {
+        node = node.children.computeIfAbsent(segment, s -> new Node());
+      }
+      if (node.field == null) {
+        size++;
+      }
+      node.field = plannedField(path, fc.path("algorithm").asText(defaultAlgorithm),
+          fc.path("keyId").asText(defaultKeyId), fieldConfig);
+    }
+    return new FieldPlan(root, size);
+  }
+
+  private static PlannedField plannedField(String path, String algorithm, String keyId, String fieldConfig) {
+    if (Kryptonite.isPseudonymAlgorithm(algorithm)) {
+      return new PlannedField(path, new PayloadMetaData(Kryptonite.KRYPTONITE_VERSION, algorithm, keyId), true);
+    }
+    try {
+      var algorithmId = Kryptonite.CIPHERSPEC_ID_LUT.get(CipherSpec.fromName(algorithm));
+      return new PlannedField(path, new PayloadMetaData(Kryptonite.KRYPTONITE_VERSION, algorithmId, keyId), false);
+    } catch (IllegalArgumentException e) {
+      throw new ConfigException(FIELD_CONFIG, fieldConfig, "invalid algorithm " + algorithm + " for field " + path);
+    }
+  }
+
+  /**
+   * @return the number of configured fields
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Applies the given function to all configured fields which are present in the payload and not null. The
+   * payload itself stays untouched, i.e. every map along the path to a processed field is copied.
+   */
+  public Map<String, Object> apply(Map<?, ?> payload, BiFunction<PlannedField, Object, Object> function) {
+    return apply(root, payload, function, true);
+  }
+
+  /**
+   * Like {@link #apply(Map, BiFunction)} but updates the (e.g. freshly deserialized) payload in place.
+   */
+  public Map<String, Object> applyInPlace(Map<String, Object> payload,
+      BiFunction<PlannedField, Object, Object> function) {
+    return apply(root, payload, function, false);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> apply(Node node, Map<?, ?> map,
+      BiFunction<PlannedField, Object, Object> function, boolean copy) {
+    Map<String, Object> result;
+    if (copy) {
+      result = new LinkedHashMap<>(map.size() < 3 ? map.size() + 1 : (int) (map.size() / 0.75f) + 1);
+      map.forEach((k, v) -> result.put(String.valueOf(k), v));
+    } else {
+      result = (Map<String, Object>) map;
+    }
+    for (var child : node.children.entrySet()) {
+      var value = result.get(child.getKey());
+      if (value == null) {
+        continue;
+      }
+      var next = child.getValue();
+      if (next.field != null) {
+        result.put(child.getKey(), function.apply(next.field, value));
+      } else if (value instanceof Map) {
+        result.put(child.getKey(), apply(next, (Map<?, ?>) value, function, copy));
+      }
+    }
+    return result;
+  }
+
+}
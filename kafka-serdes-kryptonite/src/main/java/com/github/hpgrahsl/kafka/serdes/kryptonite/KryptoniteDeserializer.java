@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.serdes.kryptonite;
+
+import static com.github.hpgrahsl.kafka.serdes.kryptonite.KryptoniteSerializer.OBJECT_MAPPER;
+import static com.github.hpgrahsl.kafka.serdes.kryptonite.KryptoniteSerializer.PAYLOAD_TYPE;
+
+import java.io.IOException;
+import java.util.Map;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Deserializer which parses UTF-8 encoded JSON documents into maps and decrypts the configured fields, e.g. of
+ * payloads which were produced with the {@link KryptoniteSerializer} or encrypted by the Kafka Connect SMT.
+ */
+public class KryptoniteDeserializer implements Deserializer<Map<String, Object>> {
+
+  private FieldCipher fieldCipher;
+  private boolean ownsFieldCipher;
+
+  public KryptoniteDeserializer() {
+  }
+
+  /**
+   * For direct use, e.g. when handing deserializer instances to the {@code KafkaConsumer}, in which case
+   * {@link #configure(Map, boolean)} doesn't need to be called.
+   */
+  public KryptoniteDeserializer(FieldCipher fieldCipher) {
+    this.fieldCipher = fieldCipher;
+  }
+
+  @Override
+  public void configure(Map<String, ?> configs, boolean isKey) {
+    close();
+    fieldCipher = FieldCipher.fromConfig(configs);
+    ownsFieldCipher = true;
+  }
+
+  /**
+   * Only releases the {@link FieldCipher} it created itself in {@link #configure(Map, boolean)}.
+   */
+  @Override
+  public void close() {
+    if (ownsFieldCipher) {
+      fieldCipher.close();
+      ownsFieldCipher = false;
+    }
+  }
+
+  @Override
+  public Map<String, Object> deserialize(String topic, byte[] data) {
+    if (data == null) {
+      return null;
+    }
+    try {
+      return fieldCipher.decryptInPlace(OBJECT_MAPPER.readValue(data, PAYLOAD_TYPE));
+    } catch (IOException e) {
+      throw new SerializationException("error: deserializing the payload of topic '" + topic + "' failed", e);
+    }
+  }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.serdes.kryptonite;
+
+import org.apache.kafka.common.config.AbstractConfig;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigDef.NonEmptyString;
+import org.apache.kafka.common.config.ConfigDef.Range;
+import org.apache.kafka.common.config.ConfigDef.Type;
+
+import java.util.Map;
+
+import static com.github.hpgrahsl.kryptonite.config.KryptoniteSettings.*;
+
+/**
+ * Settings of the kryptonite serializer / deserializer which are given together with the other client configs.
+ * The names and semantics are the same as for the Kafka Connect SMT so that field configs and keysets can be shared.
+ */
+public class KryptoniteSerdeConfig extends AbstractConfig {
+
+  public static final ConfigDef CONFIG_DEF = new ConfigDef()
+      .define(FIELD_CONFIG, Type.STRING, ConfigDef.NO_DEFAULT_VALUE, ConfigDef.Importance.HIGH,
+          "JSON array with field config objects specifying which fields together with their settings should get either encrypted / decrypted (nested field names are expected to be separated by '.' per default, or by a custom 'path_delimiter' config")
+      .define(PATH_DELIMITER, Type.STRING, PATH_DELIMITER_DEFAULT, new NonEmptyString(), ConfigDef.Importance.LOW,
+          "path delimiter used as field name separator when referring to nested fields in the payload")
+      .define(CIPHER_ALGORITHM, Type.STRING, CIPHER_ALGORITHM_DEFAULT, ConfigDef.Importance.LOW,
+          "cipher algorithm used for data encryption of all fields which don't refer to a field-specific algorithm")
+      .define(CIPHER_DATA_KEYS, Type.PASSWORD, CIPHER_DATA_KEYS_DEFAULT, ConfigDef.Importance.HIGH,
+          "JSON array with data key objects specifying the key identifiers together with key sets for encryption / decryption which are defined in Tink's key specification format")
+      .define(CIPHER_DATA_KEY_IDENTIFIER, Type.STRING, CIPHER_DATA_KEY_IDENTIFIER_DEFAULT, ConfigDef.Importance.HIGH,
+          "secret key identifier to be used as default data encryption key for all fields which don't refer to a field-specific secret key identifier")
+      .define(KEY_SOURCE, Type.STRING, KEY_SOURCE_DEFAULT, ConfigDef.Importance.HIGH,
+          "defines the origin of the Tink keysets which can be defined directly in the config or fetched from a remote/cloud KMS")
+      .define(KMS_TYPE, Type.STRING, KMS_TYPE_DEFAULT, ConfigDef.Importance.MEDIUM,
+          "defines from which remote/cloud KMS keysets are resolved from (currently only supports Azure Key Vault)")
+      .define(KMS_CONFIG, Type.PASSWORD, KMS_CONFIG_DEFAULT, ConfigDef.Importance.MEDIUM,
+          "JSON object specifying the KMS-specific client authentication settings (currently only supports Azure Key Vault)")
+      .define(KEK_TYPE, Type.STRING, KEK_TYPE_DEFAULT, ConfigDef.Importance.LOW,
+          "defines which remote/cloud KMS is used for data key encryption (currently only supports GCP Cloud KMS)")
+      .define(KEK_CONFIG, Type.PASSWORD, KEK_CONFIG_DEFAULT, ConfigDef.Importance.LOW,
+          "JSON object specifying the KMS-specific client authentication settings (currently only supports GCP Cloud KMS)")
+      .define(KEK_URI, Type.PASSWORD, KEK_URI_DEFAULT, ConfigDef.Importance.LOW,
+          "remote/cloud KMS-specific URI to refer to the key encryption key if applicable (currently only supports GCP Cloud KMS key URIs)")
+      .define(CIPHER_ENGINE, Type.STRING, CIPHER_ENGINE_DEFAULT, ConfigDef.Importance.LOW,
+          "defines which crypto engine executes "+CIPHER_ALGORITHM_DEFAULT+" operations, either Tink itself or the wire-compatible javax.crypto based implementation")
+      .define(CIPHER_COMPRESSION, Type.STRING, CIPHER_COMPRESSION_DEFAULT, ConfigDef.Importance.LOW,
+          "defines whether field values are compressed (LZ4 or ZSTD) before being encrypted or not at all (NONE)")
+      .define(CIPHER_COMPRESSION_MIN_BYTES, Type.INT, Integer.valueOf(CIPHER_COMPRESSION_MIN_BYTES_DEFAULT), Range.atLeast(0),
+          ConfigDef.Importance.LOW, "minimum size in bytes of a serialized field value to get compressed before its encryption")
+      .define(CIPHER_CACHE_MAX_BYTES, Type.LONG, Long.valueOf(CIPHER_CACHE_MAX_BYTES_DEFAULT), Range.atLeast(0),
+          ConfigDef.Importance.LOW, "upper bound in bytes for caching the results of deterministic encryption / decryption ("+CIPHER_CACHE_MAX_BYTES_DEFAULT+" disables the cache)")
+      .define(CIPHER_CACHE_MAX_ENTRY_BYTES, Type.LONG, Long.valueOf(CIPHER_CACHE_MAX_ENTRY_BYTES_DEFAULT), Range.atLeast(1),
+          ConfigDef.Importance.LOW, "upper bound in bytes for a single cache entry (plaintext and ciphertext) so that large values are never cached");
+
+  public KryptoniteSerdeConfig(Map<?, ?> originals) {
+    super(CONFIG_DEF, originals);
+  }
+
+  /**
+   * @return the settings in the form which is expected by {@code Kryptonite.createFromConfig}
+   */
+  public Map<String, String> asKryptoniteSettings() {
+    return Map.ofEntries(
+        Map.entry(FIELD_CONFIG, getString(FIELD_CONFIG)),
+        Map.entry(PATH_DELIMITER, getString(PATH_DELIMITER)),
+        Map.entry(CIPHER_ALGORITHM, getString(CIPHER_ALGORITHM)),
+        Map.entry(CIPHER_DATA_KEYS, getPassword(CIPHER_DATA_KEYS).value()),
+        Map.entry(CIPHER_DATA_KEY_IDENTIFIER, getString(CIPHER_DATA_KEY_IDENTIFIER)),
+        Map.entry(KEY_SOURCE, getString(KEY_SOURCE)),
+        Map.entry(KMS_TYPE, getString(KMS_TYPE)),
+        Map.entry(KMS_CONFIG, getPassword(KMS_CONFIG).value()),
+        Map.entry(KEK_TYPE, getString(KEK_TYPE)),
+        Map.entry(KEK_CONFIG, getPassword(KEK_CONFIG).value()),
+        Map.entry(KEK_URI, getPassword(KEK_URI).value()),
+        Map.entry(CIPHER_ENGINE, getString(CIPHER_ENGINE)),
+        Map.entry(CIPHER_COMPRESSION, getString(CIPHER_COMPRESSION)),
+        Map.entry(CIPHER_COMPRESSION_MIN_BYTES, String.valueOf(getInt(CIPHER_COMPRESSION_MIN_BYTES))),
+        Map.entry(CIPHER_CACHE_MAX_BYTES, String.valueOf(getLong(CIPHER_CACHE_MAX_BYTES))),
+        Map.entry(CIPHER_CACHE_MAX_ENTRY_BYTES, String.valueOf(getLong(CIPHER_CACHE_MAX_ENTRY_BYTES)))
+    );
+  }
+
+}
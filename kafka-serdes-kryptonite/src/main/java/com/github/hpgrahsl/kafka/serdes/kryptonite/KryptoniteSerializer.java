@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.serdes.kryptonite;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Serializer which encrypts the configured fields of JSON payloads in the producing application itself.
+ * Payloads are either maps or JSON documents given as string or UTF-8 bytes, the result is always the UTF-8
+ * encoded JSON document with the configured fields being replaced by their ciphertexts. Maps given by the
+ * caller are never modified.
+ */
+public class KryptoniteSerializer implements Serializer<Object> {
+
+  static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  static final TypeReference<LinkedHashMap<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {};
+
+  private FieldCipher fieldCipher;
+  private boolean ownsFieldCipher;
+
+  public KryptoniteSerializer() {
+  }
+
+  /**
+   * For direct use, e.g. when handing serializer instances to the {@code KafkaProducer}, in which case
+   * {@link #configure(Map, boolean)} doesn't need to be called.
+   */
+  public KryptoniteSerializer(FieldCipher fieldCipher) {
+    this.fieldCipher = fieldCipher;
+  }
+
+  @Override
+  public void configure(Map<String, ?> configs, boolean isKey) {
+    close();
+    fieldCipher = FieldCipher.fromConfig(configs);
+    ownsFieldCipher = true;
+  }
+
+  /**
+   * Only releases the {@link FieldCipher} it created itself in {@link #configure(Map, boolean)}.
+   */
+  @Override
+  public void close() {
+    if (ownsFieldCipher) {
+      fieldCipher.close();
+      ownsFieldCipher = false;
+    }
+  }
+
+  @Override
+  public byte[] serialize(String topic, Object data) {
+    if (data == null) {
+      return null;
+    }
+    try {
+      Map<String, Object> encrypted;
+      if (data instanceof Map) {
+        encrypted = fieldCipher.encrypt((Map<?, ?>) data);
+      } else if (data instanceof String) {
+        encrypted = fieldCipher.encryptInPlace(OBJECT_MAPPER.readValue((String) data, PAYLOAD_TYPE));
+      } else if (data instanceof byte[]) {
+        encrypted = fieldCipher.encryptInPlace(OBJECT_MAPPER.readValue((byte[]) data, PAYLOAD_TYPE));
+      } else {
+        throw new SerializationException("error: unsupported payload type " + data.getClass().getName()
+            + " (expected a map or a JSON document as string or bytes)");
+      }
+      return OBJECT_MAPPER.writeValueAsBytes(encrypted);
+    } catch (IOException e) {
+      throw new SerializationException("error: serializing the payload for topic '" + topic + "' failed", e);
+    }
+  }
+
+}
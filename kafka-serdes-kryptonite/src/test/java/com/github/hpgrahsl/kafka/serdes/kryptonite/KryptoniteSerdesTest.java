@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.serdes.kryptonite;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class KryptoniteSerdesTest {
+
+  static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  static final String CIPHER_DATA_KEYS = "["
+      + "{\"identifier\":\"keyA\","
+      + "\"material\":{"
+      + "\"primaryKeyId\":1000000001,"
+      + "\"key\":["
+      + "{\"keyData\":"
+      + "{\"typeUrl\":\"type.googleapis.com/google.crypto.tink.AesGcmKey\","
+      + "\"value\":\"GhDRulECKAC8/19NMXDjeCjK\","
+      + "\"keyMaterialType\":\"SYMMETRIC\"},"
+      + "\"status\":\"ENABLED\","
+      + "\"keyId\":1000000001,"
+      + "\"outputPrefixType\":\"TINK\""
+      + "}"
+      + "]"
+      + "}"
+      + "},"
+      + "{\"identifier\":\"key9\","
+      + "\"material\":{"
+      + "\"primaryKeyId\":1000000003,"
+      + "\"key\":["
+      + "{\"keyData\":"
+      + "{\"typeUrl\":\"type.googleapis.com/google.crypto.tink.AesSivKey\","
+      + "\"value\":\"EkByiHi3H9shy2FO5UWgStNMmgqF629esenhnm0wZZArUkEU1/9l9J3ajJQI0GxDwzM1WFZK587W0xVB8KK4dqnz\","
+      + "\"keyMaterialType\":\"SYMMETRIC\"},"
+      + "\"status\":\"ENABLED\","
+      + "\"keyId\":1000000003,"
+      + "\"outputPrefixType\":\"TINK\""
+      + "}"
+      + "]"
+      + "}"
+      + "}"
+      + "]";
+
+  static final String FIELD_CONFIG = "["
+      + "{\"name\":\"id\",\"algorithm\":\"TINK/AES_GCM_SIV\",\"keyId\":\"key9\"},"
+      + "{\"name\":\"myString\"},"
+      + "{\"name\":\"myArray\"},"
+      + "{\"name\":\"mySubDoc.myInt\"},"
+      + "{\"name\":\"mySubDoc.missing\"},"
+      + "{\"name\":\"joinKey\",\"algorithm\":\"JDK/HMAC_SHA256\"}"
+      + "]";
+
+  static Map<String, Object> payload() {
+    var subDoc = new LinkedHashMap<String, Object>();
+    subDoc.put("myInt", 42);
+    subDoc.put("myText", "untouched");
+    var payload = new LinkedHashMap<String, Object>();
+    payload.put("id", "1234567890");
+    payload.put("myString", "some foo bla text");
+    payload.put("myBoolean", true);
+    payload.put("myArray", List.of("str_1", "str_2", "str_3"));
+    payload.put("mySubDoc", subDoc);
+    payload.put("joinKey", "customer-0815");
+    return payload;
+  }
+
+  static Map<String, Object> configs() {
+    var configs = new HashMap<String, Object>();
+    configs.put("bootstrap.servers", "localhost:9092");
+    configs.put(KryptoniteSettings.FIELD_CONFIG, FIELD_CONFIG);
+    configs.put(KryptoniteSettings.CIPHER_DATA_KEYS, CIPHER_DATA_KEYS);
+    configs.put(KryptoniteSettings.CIPHER_DATA_KEY_IDENTIFIER, "keyA");
+    return configs;
+  }
+
+  @Test
+  @DisplayName("deserialize(serialize(payload)) = payload for maps and JSON documents")
+  void serializeDeserializeRoundTripTest() throws Exception {
+    try (var serializer = new KryptoniteSerializer(); var deserializer = new KryptoniteDeserializer()) {
+      serializer.configure(configs(), false);
+      deserializer.configure(configs(), false);
+      var original = payload();
+      var json = OBJECT_MAPPER.writeValueAsString(original);
+
+      var fromMap = serializer.serialize("some-topic", original);
+      var fromString = serializer.serialize("some-topic", json);
+      var fromBytes = serializer.serialize("some-topic", json.getBytes(StandardCharsets.UTF_8));
+      var encrypted = OBJECT_MAPPER.readTree(fromMap);
+      assertAll(
+          () -> assertEquals(payload(), original),
+          () -> assertTrue(encrypted.get("myString").isTextual()),
+          () -> assertNotEquals("some foo bla text", encrypted.get("myString").asText()),
+          () -> assertTrue(encrypted.get("myArray").isTextual()),
+          () -> assertTrue(encrypted.get("mySubDoc").get("myInt").isTextual()),
+          () -> assertEquals("untouched", encrypted.get("mySubDoc").get("myText").asText()),
+          () -> assertEquals(22, encrypted.get("joinKey").asText().length()),
+          () -> assertTrue(encrypted.get("myBoolean").asBoolean()),
+          //NOTE: deterministic encryption and pseudonyms result in the same output for all payload variants
+          () -> assertEquals(encrypted.get("id"), OBJECT_MAPPER.readTree(fromString).get("id")),
+          () -> assertEquals(encrypted.get("joinKey"), OBJECT_MAPPER.readTree(fromBytes).get("joinKey"))
+      );
+
+      var expected = payload();
+      expected.put("joinKey", encrypted.get("joinKey").asText());
+      assertAll(
+          () -> assertEquals(expected, deserializer.deserialize("some-topic", fromMap)),
+          () -> assertEquals(expected, deserializer.deserialize("some-topic", fromString)),
+          () -> assertEquals(expected, deserializer.deserialize("some-topic", fromBytes))
+      );
+    }
+  }
+
+  @Test
+  @DisplayName("serialize / deserialize null payloads and reject unsupported ones")
+  void nullAndUnsupportedPayloadsTest() {
+    var fieldCipher = FieldCipher.fromConfig(configs());
+    var serializer = new KryptoniteSerializer(fieldCipher);
+    var deserializer = new KryptoniteDeserializer(fieldCipher);
+    assertAll(
+        () -> assertNull(serializer.serialize("some-topic", null)),
+        () -> assertNull(deserializer.deserialize("some-topic", null)),
+        () -> assertThrows(SerializationException.class, () -> serializer.serialize("some-topic", 42)),
+        () -> assertThrows(SerializationException.class,
+            () -> deserializer.deserialize("some-topic", "{\"myString\":42}".getBytes(StandardCharsets.UTF_8)))
+    );
+  }
+
+  @Test
+  @DisplayName("compile field plans and reject invalid field configs")
+  void fieldPlanTest() {
+    var fieldPlan = FieldPlan.compile(FIELD_CONFIG, ".", "TINK/AES_GCM", "keyA");
+    assertEquals(6, fieldPlan.size());
+    assertAll(
+        () -> assertThrows(ConfigException.class, () -> FieldPlan.compile("[]", ".", "TINK/AES_GCM", "keyA")),
+        () -> assertThrows(ConfigException.class, () -> FieldPlan.compile("{", ".", "TINK/AES_GCM", "keyA")),
+        () -> assertThrows(ConfigException.class,
+            () -> FieldPlan.compile("[{\"name\":\"a\",\"algorithm\":\"FOO\"}]", ".", "TINK/AES_GCM", "keyA")),
+        () -> assertThrows(ConfigException.class, () -> new KryptoniteSerializer().configure(Map.of(), false))
+    );
+  }
+
+}
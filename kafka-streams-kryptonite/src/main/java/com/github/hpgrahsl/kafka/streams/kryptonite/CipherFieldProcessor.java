@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.streams.kryptonite;
+
+import com.github.hpgrahsl.kafka.serdes.kryptonite.FieldCipher;
+import com.github.hpgrahsl.kryptonite.CipherMode;
+import java.util.Map;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorSupplier;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+
+/**
+ * Encrypts / decrypts the configured fields of map values within a topology, e.g. by means of
+ * {@code stream.processValues(CipherFieldProcessor.encrypt(fieldCipher))}. The processors of all tasks share the
+ * given {@link FieldCipher}. The original values are left untouched and null values are forwarded as they are.
+ */
+public class CipherFieldProcessor<K> implements FixedKeyProcessor<K, Map<String, Object>, Map<String, Object>> {
+
+  private final FieldCipher fieldCipher;
+  private final CipherMode cipherMode;
+  private FixedKeyProcessorContext<K, Map<String, Object>> context;
+
+  public CipherFieldProcessor(FieldCipher fieldCipher, CipherMode cipherMode) {
+    this.fieldCipher = fieldCipher;
+    this.cipherMode = cipherMode;
+  }
+
+  public static <K> FixedKeyProcessorSupplier<K, Map<String, Object>, Map<String, Object>> encrypt(
+      FieldCipher fieldCipher) {
+    return () -> new CipherFieldProcessor<>(fieldCipher, CipherMode.ENCRYPT);
+  }
+
+  public static <K> FixedKeyProcessorSupplier<K, Map<String, Object>, Map<String, Object>> decrypt(
+      FieldCipher fieldCipher) {
+    return () -> new CipherFieldProcessor<>(fieldCipher, CipherMode.DECRYPT);
+  }
+
+  @Override
+  public void init(FixedKeyProcessorContext<K, Map<String, Object>> context) {
+    this.context = context;
+  }
+
+  @Override
+  public void process(FixedKeyRecord<K, Map<String, Object>> record) {
+    if (record.value() == null) {
+      context.forward(record);
+      return;
+    }
+    context.forward(record.withValue(CipherMode.ENCRYPT == cipherMode
+        ? fieldCipher.encrypt(record.value())
+        : fieldCipher.decrypt(record.value())));
+  }
+
+}
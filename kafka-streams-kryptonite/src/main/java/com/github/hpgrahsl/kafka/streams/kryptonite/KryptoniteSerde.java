@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.streams.kryptonite;
+
+import com.github.hpgrahsl.kafka.serdes.kryptonite.FieldCipher;
+import com.github.hpgrahsl.kafka.serdes.kryptonite.KryptoniteDeserializer;
+import com.github.hpgrahsl.kafka.serdes.kryptonite.KryptoniteSerializer;
+import java.util.Map;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Serde for JSON payloads which encrypts the configured fields when writing to and decrypts them when reading
+ * from topics. Serde instances created with a {@link FieldCipher} share it, i.e. the {@code Kryptonite} instance
+ * together with its key vault and caches, across all stream threads and tasks they are used by.
+ */
+public class KryptoniteSerde implements Serde<Map<String, Object>> {
+
+  private FieldCipher fieldCipher;
+  private boolean ownsFieldCipher;
+
+  public KryptoniteSerde() {
+  }
+
+  public KryptoniteSerde(FieldCipher fieldCipher) {
+    this.fieldCipher = fieldCipher;
+  }
+
+  /**
+   * Only takes effect for serdes which weren't created with a {@link FieldCipher}, e.g. default serdes. Their
+   * {@code Kryptonite} instance is shared with all other serdes configured with identical key-related settings.
+   */
+  @Override
+  public void configure(Map<String, ?> configs, boolean isKey) {
+    if (fieldCipher == null) {
+      fieldCipher = FieldCipher.fromConfig(configs);
+      ownsFieldCipher = true;
+    }
+  }
+
+  @Override
+  public Serializer<Map<String, Object>> serializer() {
+    var serializer = new KryptoniteSerializer(fieldCipher);
+    return serializer::serialize;
+  }
+
+  @Override
+  public Deserializer<Map<String, Object>> deserializer() {
+    return new KryptoniteDeserializer(fieldCipher);
+  }
+
+  /**
+   * Only releases the {@link FieldCipher} it created itself in {@link #configure(Map, boolean)}.
+   */
+  @Override
+  public void close() {
+    if (ownsFieldCipher) {
+      fieldCipher.close();
+      fieldCipher = null;
+      ownsFieldCipher = false;
+    }
+  }
+
+}
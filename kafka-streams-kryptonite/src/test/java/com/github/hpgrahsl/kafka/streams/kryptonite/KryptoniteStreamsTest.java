@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kafka.streams.kryptonite;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hpgrahsl.kafka.serdes.kryptonite.FieldCipher;
+import com.github.hpgrahsl.kryptonite.KryptoniteRegistry;
+import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Produced;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class KryptoniteStreamsTest {
+
+  static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  static final String CIPHER_DATA_KEYS = "["
+      + "{\"identifier\":\"keyA\","
+      + "\"material\":{"
+      + "\"primaryKeyId\":1000000001,"
+      + "\"key\":["
+      + "{\"keyData\":"
+      + "{\"typeUrl\":\"type.googleapis.com/google.crypto.tink.AesGcmKey\","
+      + "\"value\":\"GhDRulECKAC8/19NMXDjeCjK\","
+      + "\"keyMaterialType\":\"SYMMETRIC\"},"
+      + "\"status\":\"ENABLED\","
+      + "\"keyId\":1000000001,"
+      + "\"outputPrefixType\":\"TINK\""
+      + "}"
+      + "]"
+      + "}"
+      + "}"
+      + "]";
+
+  static final String FIELD_CONFIG = "["
+      + "{\"name\":\"myString\"},"
+      + "{\"name\":\"myArray\"},"
+      + "{\"name\":\"mySubDoc.myInt\"}"
+      + "]";
+
+  static final Serde<Map<String, Object>> JSON_SERDE = Serdes.serdeFrom(
+      (topic, data) -> {
+        try {
+          return data != null ? OBJECT_MAPPER.writeValueAsBytes(data) : null;
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      },
+      (topic, data) -> {
+        try {
+          return data != null ? OBJECT_MAPPER.readValue(data, new TypeReference<Map<String, Object>>() {}) : null;
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+
+  static FieldCipher fieldCipher;
+
+  @BeforeAll
+  static void setup() {
+    fieldCipher = FieldCipher.fromConfig(configs());
+  }
+
+  @AfterAll
+  static void tearDown() {
+    fieldCipher.close();
+  }
+
+  static Map<String, Object> configs() {
+    var configs = new HashMap<String, Object>();
+    configs.put(KryptoniteSettings.FIELD_CONFIG, FIELD_CONFIG);
+    configs.put(KryptoniteSettings.CIPHER_DATA_KEYS, CIPHER_DATA_KEYS);
+    configs.put(KryptoniteSettings.CIPHER_DATA_KEY_IDENTIFIER, "keyA");
+    return configs;
+  }
+
+  static Map<String, Object> payload() {
+    var payload = new LinkedHashMap<String, Object>();
+    payload.put("id", "1234567890");
+    payload.put("myString", "some foo bla text");
+    payload.put("myArray", List.of("str_1", "str_2", "str_3"));
+    payload.put("mySubDoc", new LinkedHashMap<>(Map.of("myInt", 42)));
+    return payload;
+  }
+
+  static Properties streamsConfig() {
+    var props = new Properties();
+    props.put(StreamsConfig.APPLICATION_ID_CONFIG, "kryptonite-streams-test");
+    props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+    return props;
+  }
+
+  @Test
+  @DisplayName("apply processors decrypt(encrypt(plaintext)) = plaintext within a topology")
+  void encryptDecryptProcessorsTest() {
+    var builder = new StreamsBuilder();
+    builder.stream("plain", Consumed.with(Serdes.String(), JSON_SERDE))
+        .processValues(CipherFieldProcessor.<String>encrypt(fieldCipher))
+        .to("encrypted", Produced.with(Serdes.String(), JSON_SERDE));
+    builder.stream("encrypted", Consumed.with(Serdes.String(), JSON_SERDE))
+        .processValues(CipherFieldProcessor.<String>decrypt(fieldCipher))
+        .to("decrypted", Produced.with(Serdes.String(), JSON_SERDE));
+
+    try (var driver = new TopologyTestDriver(builder.build(), streamsConfig())) {
+      var input = driver.createInputTopic("plain", Serdes.String().serializer(), JSON_SERDE.serializer());
+      var encrypted = driver.createOutputTopic("encrypted", Serdes.String().deserializer(), JSON_SERDE.deserializer());
+      var decrypted = driver.createOutputTopic("decrypted", Serdes.String().deserializer(), JSON_SERDE.deserializer());
+      input.pipeInput("k1", payload());
+      input.pipeInput("k2", null);
+
+      var encryptedRecords = encrypted.readKeyValuesToList();
+      var encryptedValue = encryptedRecords.get(0).value;
+      @SuppressWarnings("unchecked")
+      var encryptedSubDoc = (Map<String, Object>) encryptedValue.get("mySubDoc");
+      assertAll(
+          () -> assertEquals("1234567890", encryptedValue.get("id")),
+          () -> assertTrue(encryptedValue.get("myString") instanceof String),
+          () -> assertNotEquals("some foo bla text", encryptedValue.get("myString")),
+          () -> assertTrue(encryptedValue.get("myArray") instanceof String),
+          () -> assertTrue(encryptedSubDoc.get("myInt") instanceof String),
+          () -> assertNull(encryptedRecords.get(1).value)
+      );
+      var decryptedRecords = decrypted.readKeyValuesToList();
+      assertAll(
+          () -> assertEquals("k1", decryptedRecords.get(0).key),
+          () -> assertEquals(payload(), decryptedRecords.get(0).value),
+          () -> assertNull(decryptedRecords.get(1).value)
+      );
+    }
+  }
+
+  @Test
+  @DisplayName("apply serde deserialize(serialize(plaintext)) = plaintext when writing to and reading from topics")
+  void encryptDecryptSerdeTest() {
+    var kryptoniteSerde = new KryptoniteSerde(fieldCipher);
+    var builder = new StreamsBuilder();
+    builder.stream("plain", Consumed.with(Serdes.String(), JSON_SERDE))
+        .to("encrypted", Produced.with(Serdes.String(), kryptoniteSerde));
+    builder.stream("encrypted", Consumed.with(Serdes.String(), kryptoniteSerde))
+        .to("decrypted", Produced.with(Serdes.String(), JSON_SERDE));
+
+    try (var driver = new TopologyTestDriver(builder.build(), streamsConfig())) {
+      var input = driver.createInputTopic("plain", Serdes.String().serializer(), JSON_SERDE.serializer());
+      var encrypted = driver.createOutputTopic("encrypted", Serdes.String().deserializer(), JSON_SERDE.deserializer());
+      var decrypted = driver.createOutputTopic("decrypted", Serdes.String().deserializer(), JSON_SERDE.deserializer());
+      input.pipeInput("k1", payload());
+
+      var encryptedValue = encrypted.readValue();
+      assertAll(
+          () -> assertEquals("1234567890", encryptedValue.get("id")),
+          () -> assertNotEquals("some foo bla text", encryptedValue.get("myString")),
+          () -> assertEquals(payload(), kryptoniteSerde.deserializer()
+              .deserialize("encrypted", JSON_SERDE.serializer().serialize("encrypted", encryptedValue))),
+          () -> assertEquals(payload(), decrypted.readValue())
+      );
+    }
+  }
+
+  @Test
+  @DisplayName("configured serdes share one kryptonite instance which is released once they got closed")
+  void configuredSerdesShareKryptoniteTest() {
+    var initial = KryptoniteRegistry.stats();
+    var encryptingSerde = new KryptoniteSerde();
+    var decryptingSerde = new KryptoniteSerde();
+    encryptingSerde.configure(configs(), false);
+    decryptingSerde.configure(configs(), false);
+    var stats = KryptoniteRegistry.stats();
+    assertAll(
+        () -> assertEquals(initial.getInstances(), stats.getInstances()),
+        () -> assertEquals(initial.getCreated(), stats.getCreated()),
+        () -> assertEquals(initial.getReused() + 2, stats.getReused()),
+        () -> assertEquals(initial.getLeases() + 2, stats.getLeases()),
+        () -> assertEquals(payload(), decryptingSerde.deserializer()
+            .deserialize("encrypted", encryptingSerde.serializer().serialize("encrypted", payload())))
+    );
+    encryptingSerde.close();
+    decryptingSerde.close();
+    decryptingSerde.close();
+    assertEquals(initial.getLeases(), KryptoniteRegistry.stats().getLeases());
+  }
+
+}
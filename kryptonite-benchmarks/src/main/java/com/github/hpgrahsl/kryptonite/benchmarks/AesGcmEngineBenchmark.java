@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kryptonite.benchmarks;
+
+import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings.CipherEngine;
+import com.github.hpgrahsl.kryptonite.crypto.CryptoAlgorithm;
+import com.github.hpgrahsl.kryptonite.crypto.jdk.JdkAesGcm;
+import com.github.hpgrahsl.kryptonite.crypto.tink.TinkAesGcm;
+import com.google.crypto.tink.CleartextKeysetHandle;
+import com.google.crypto.tink.JsonKeysetReader;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.aead.AeadConfig;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares Tink's AES-GCM primitive against the wire-compatible javax.crypto engine
+ * for typical field payload sizes.
+ * <pre>java -jar kryptonite-benchmarks/target/benchmarks.jar AesGcmEngineBenchmark</pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AesGcmEngineBenchmark {
+
+  //NOTE: demo keyset only, never use this key material for anything else than benchmarking
+  static final String DEMO_KEYSET = "{\"primaryKeyId\":1000000002,"
+      + "\"key\":["
+      + "{\"keyData\":"
+      + "{\"typeUrl\":\"type.googleapis.com/google.crypto.tink.AesGcmKey\","
+      + "\"value\":\"GiBIZWxsbyFXb3JsZEZVQ0sxYWJjZGprbCQxMjM0NTY3OA==\","
+      + "\"keyMaterialType\":\"SYMMETRIC\"},"
+      + "\"status\":\"ENABLED\","
+      + "\"keyId\":1000000002,"
+      + "\"outputPrefixType\":\"TINK\""
+      + "}"
+      + "]"
+      + "}";
+
+  @Param({"TINK", "JDK"})
+  public String engine;
+
+  @Param({"16", "256", "4096", "65536"})
+  public int payloadSize;
+
+  private CryptoAlgorithm algorithm;
+  private KeysetHandle keysetHandle;
+  private byte[] plaintext;
+  private byte[] ciphertext;
+  private byte[] associatedData;
+
+  @Setup
+  public void setup() throws Exception {
+    AeadConfig.register();
+    keysetHandle = CleartextKeysetHandle.read(JsonKeysetReader.withString(DEMO_KEYSET));
+    algorithm = CipherEngine.JDK == CipherEngine.valueOf(engine) ? new JdkAesGcm() : new TinkAesGcm();
+    plaintext = new byte[payloadSize];
+    new Random(42).nextBytes(plaintext);
+    associatedData = "k1020000000002".getBytes(StandardCharsets.UTF_8);
+    ciphertext = algorithm.cipher(plaintext, keysetHandle, associatedData);
+  }
+
+  @Benchmark
+  public byte[] encrypt() throws Exception {
+    return algorithm.cipher(plaintext, keysetHandle, associatedData);
+  }
+
+  @Benchmark
+  public byte[] decrypt() throws Exception {
+    return algorithm.decipher(ciphertext, keysetHandle, associatedData);
+  }
+
+}
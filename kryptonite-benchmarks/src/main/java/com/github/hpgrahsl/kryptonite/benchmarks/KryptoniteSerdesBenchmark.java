@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kryptonite.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hpgrahsl.kafka.serdes.kryptonite.KryptoniteDeserializer;
+import com.github.hpgrahsl.kafka.serdes.kryptonite.KryptoniteSerializer;
+import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the in-process field encryption of the kafka serializer / deserializer for payloads with 20 fields
+ * of which a varying number gets encrypted, compared to plain JSON serialization as baseline.
+ * <pre>java -jar kryptonite-benchmarks/target/benchmarks.jar KryptoniteSerdesBenchmark</pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+//NOTE: kryo's collection serializers need reflective access to java.util
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.util=ALL-UNNAMED")
+@State(Scope.Benchmark)
+public class KryptoniteSerdesBenchmark {
+
+  static final int PAYLOAD_FIELDS = 20;
+
+  static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  @Param({"1", "5", "20"})
+  public int encryptedFields;
+
+  private KryptoniteSerializer serializer;
+  private KryptoniteDeserializer deserializer;
+  private Map<String, Object> payload;
+  private byte[] serialized;
+
+  @Setup
+  public void setup() {
+    var fieldConfig = new StringBuilder("[");
+    for (int i = 0; i < encryptedFields; i++) {
+      fieldConfig.append(i > 0 ? "," : "").append("{\"name\":\"field").append(i).append("\"}");
+    }
+    var configs = new HashMap<String, Object>();
+    configs.put(KryptoniteSettings.FIELD_CONFIG, fieldConfig.append("]").toString());
+    configs.put(KryptoniteSettings.CIPHER_DATA_KEYS,
+        "[{\"identifier\":\"keyA\",\"material\":" + AesGcmEngineBenchmark.DEMO_KEYSET + "}]");
+    configs.put(KryptoniteSettings.CIPHER_DATA_KEY_IDENTIFIER, "keyA");
+    serializer = new KryptoniteSerializer();
+    serializer.configure(configs, false);
+    deserializer = new KryptoniteDeserializer();
+    deserializer.configure(configs, false);
+    payload = new LinkedHashMap<>();
+    for (int i = 0; i < PAYLOAD_FIELDS; i++) {
+      payload.put("field" + i, i % 2 == 0 ? "some text value number " + i : (Object) (i * 1000L));
+    }
+    serialized = serializer.serialize("some-topic", payload);
+  }
+
+  @TearDown
+  public void tearDown() {
+    serializer.close();
+    deserializer.close();
+  }
+
+  @Benchmark
+  public byte[] serializePlainJson() throws Exception {
+    return OBJECT_MAPPER.writeValueAsBytes(payload);
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return serializer.serialize("some-topic", payload);
+  }
+
+  @Benchmark
+  public Map<String, Object> deserialize() {
+    return deserializer.deserialize("some-topic", serialized);
+  }
+
+}
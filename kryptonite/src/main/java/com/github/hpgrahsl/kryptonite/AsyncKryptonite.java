@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kryptonite;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Non-blocking facade on top of {@link Kryptonite} which runs key resolution and crypto operations
+ * on a dedicated executor instead of the caller's thread. Unless an executor is given explicitly,
+ * virtual threads are used if the runtime supports them, otherwise a bounded pool of daemon threads.
+ */
+public class AsyncKryptonite implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AsyncKryptonite.class);
+
+  private final Kryptonite kryptonite;
+  private final Executor executor;
+  private final boolean ownsExecutor;
+
+  public AsyncKryptonite(Kryptonite kryptonite) {
+    this(kryptonite, newDefaultExecutor(), true);
+  }
+
+  public AsyncKryptonite(Kryptonite kryptonite, Executor executor) {
+    this(kryptonite, executor, false);
+  }
+
+  private AsyncKryptonite(Kryptonite kryptonite, Executor executor, boolean ownsExecutor) {
+    this.kryptonite = Objects.requireNonNull(kryptonite, "kryptonite must not be null");
+    this.executor = Objects.requireNonNull(executor, "executor must not be null");
+    this.ownsExecutor = ownsExecutor;
+  }
+
+  public Kryptonite getKryptonite() {
+    return kryptonite;
+  }
+
+  public Executor getExecutor() {
+    return executor;
+  }
+
+  public CompletionStage<EncryptedField> cipherFieldAsync(byte[] plaintext, PayloadMetaData metadata) {
+    return CompletableFuture.supplyAsync(() -> kryptonite.cipherField(plaintext, metadata), executor);
+  }
+
+  public CompletionStage<byte[]> decipherFieldAsync(EncryptedField encryptedField) {
+    return CompletableFuture.supplyAsync(() -> kryptonite.decipherField(encryptedField), executor);
+  }
+
+  @Override
+  public void close() {
+    if (ownsExecutor && executor instanceof ExecutorService) {
+      ((ExecutorService) executor).shutdown();
+    }
+  }
+
+  public static ExecutorService newDefaultExecutor() {
+    return newVirtualThreadExecutor()
+        .orElseGet(() -> newPlatformThreadExecutor(Math.max(2, Runtime.getRuntime().availableProcessors() * 2)));
+  }
+
+  /**
+   * @return a virtual thread per task executor or empty in case the runtime doesn't support virtual threads
+   */
+  public static Optional<ExecutorService> newVirtualThreadExecutor() {
+    try {
+      //NOTE: looked up reflectively because the code base still targets java 17
+      var factory = MethodHandles.publicLookup().findStatic(
+          Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+      return Optional.of((ExecutorService) factory.invoke());
+    } catch (Throwable t) {
+      LOGGER.debug("virtual threads not available in this runtime", t);
+      return Optional.empty();
+    }
+  }
+
+  public static ExecutorService newPlatformThreadExecutor(int numThreads) {
+    var threadCount = new AtomicInteger();
+    return Executors.newFixedThreadPool(numThreads, runnable -> {
+      var thread = new Thread(runnable, "kryptonite-async-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kryptonite;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Ephemeral AES-256-GCM data key for envelope encryption. A data key is generated for one record (or a few
+ * records in a row), encrypts all of its fields directly with javax.crypto and is itself only wrapped once
+ * with a long-lived keyset, see {@link Kryptonite#wrapDataKey(DataKey, PayloadMetaData)}.
+ * The ciphertext format is 12 byte IV | ciphertext | 16 byte tag.
+ */
+public final class DataKey {
+
+  public static final int KEY_SIZE_BYTES = 32;
+
+  private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+  private static final int IV_SIZE_BYTES = 12;
+  private static final int TAG_SIZE_BYTES = 16;
+
+  private static final ThreadLocal<Cipher> CIPHERS = ThreadLocal.withInitial(() -> {
+    try {
+      return Cipher.getInstance(TRANSFORMATION);
+    } catch (GeneralSecurityException exc) {
+      throw new IllegalStateException("failed to create cipher instance for " + TRANSFORMATION, exc);
+    }
+  });
+
+  private static final ThreadLocal<SecureRandom> RANDOMS = ThreadLocal.withInitial(SecureRandom::new);
+
+  private final byte[] keyBytes;
+  private final SecretKeySpec key;
+
+  private DataKey(byte[] keyBytes) {
+    this.keyBytes = keyBytes;
+    this.key = new SecretKeySpec(keyBytes, "AES");
+  }
+
+  public static DataKey generate() {
+    var keyBytes = new byte[KEY_SIZE_BYTES];
+    RANDOMS.get().nextBytes(keyBytes);
+    return new DataKey(keyBytes);
+  }
+
+  public static DataKey fromBytes(byte[] keyBytes) {
+    if (keyBytes == null || keyBytes.length != KEY_SIZE_BYTES) {
+      throw new KryptoniteException("error: data key must consist of exactly " + KEY_SIZE_BYTES + " bytes");
+    }
+    return new DataKey(keyBytes.clone());
+  }
+
+  public byte[] encrypt(byte[] plaintext, byte[] associatedData) {
+    try {
+      var ciphertext = new byte[IV_SIZE_BYTES + plaintext.length + TAG_SIZE_BYTES];
+      var iv = new byte[IV_SIZE_BYTES];
+      RANDOMS.get().nextBytes(iv);
+      System.arraycopy(iv, 0, ciphertext, 0, IV_SIZE_BYTES);
+      var cipher = CIPHERS.get();
+      cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_SIZE_BYTES * 8, iv));
+      if (associatedData != null && associatedData.length > 0) {
+        cipher.updateAAD(associatedData);
+      }
+      cipher.doFinal(ByteBuffer.wrap(plaintext),
+          ByteBuffer.wrap(ciphertext, IV_SIZE_BYTES, ciphertext.length - IV_SIZE_BYTES));
+      return ciphertext;
+    } catch (GeneralSecurityException exc) {
+      throw new KryptoniteException(exc.getMessage(), exc);
+    }
+  }
+
+  public byte[] decrypt(byte[] ciphertext, byte[] associatedData) {
+    if (ciphertext == null || ciphertext.length < IV_SIZE_BYTES + TAG_SIZE_BYTES) {
+      throw new KryptoniteException("error: ciphertext is too short to be decrypted with a data key");
+    }
+    try {
+      var cipher = CIPHERS.get();
+      cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_SIZE_BYTES * 8, ciphertext, 0, IV_SIZE_BYTES));
+      if (associatedData != null && associatedData.length > 0) {
+        cipher.updateAAD(associatedData);
+      }
+      var plaintext = new byte[ciphertext.length - IV_SIZE_BYTES - TAG_SIZE_BYTES];
+      cipher.doFinal(ByteBuffer.wrap(ciphertext, IV_SIZE_BYTES, ciphertext.length - IV_SIZE_BYTES),
+          ByteBuffer.wrap(plaintext));
+      return plaintext;
+    } catch (GeneralSecurityException exc) {
+      throw new KryptoniteException(exc.getMessage(), exc);
+    }
+  }
+
+  byte[] keyBytes() {
+    return keyBytes;
+  }
+
+}
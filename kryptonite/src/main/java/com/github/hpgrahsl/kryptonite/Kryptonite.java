@@ -20,13 +20,19 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hpgrahsl.kryptonite.cache.DeterministicCipherCache;
+import com.github.hpgrahsl.kryptonite.compression.PayloadCompression;
 import com.github.hpgrahsl.kryptonite.config.ConfigurationException;
 import com.github.hpgrahsl.kryptonite.config.DataKeyConfig;
 import com.github.hpgrahsl.kryptonite.config.DataKeyConfigEncrypted;
+import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings.CipherEngine;
+import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings.CompressionType;
 import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings.KekType;
 import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings.KeySource;
 import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings.KmsType;
 import com.github.hpgrahsl.kryptonite.crypto.CryptoAlgorithm;
+import com.github.hpgrahsl.kryptonite.crypto.jdk.JdkAesGcm;
+import com.github.hpgrahsl.kryptonite.crypto.jdk.JdkHmacSha256;
 import com.github.hpgrahsl.kryptonite.crypto.tink.TinkAesGcm;
 import com.github.hpgrahsl.kryptonite.crypto.tink.TinkAesGcmSiv;
 import com.github.hpgrahsl.kryptonite.keys.AbstractKeyVault;
@@ -40,6 +46,7 @@ import com.github.hpgrahsl.kryptonite.kms.gcp.GcpKeyEncryption;
 import com.google.crypto.tink.aead.AeadConfig;
 import com.google.crypto.tink.daead.DeterministicAeadConfig;
 import java.security.GeneralSecurityException;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -55,6 +62,7 @@ public class Kryptonite {
   public static final class CipherSpec {
 
     public static final String TYPE_TINK = "TINK";
+    public static final String TYPE_JDK = "JDK";
 
     private final String type;
     private final String name;
@@ -129,13 +137,14 @@ public class Kryptonite {
       "03", CipherSpec.fromName(TinkAesGcmSiv.CIPHER_ALGORITHM)
   );
 
+  public static final int BLIND_INDEX_SIZE_BYTES = 8;
+
+  private static final String BLIND_INDEX_KEY_LABEL = "kryptonite-blind-index-v1";
   private static final Logger LOGGER = LoggerFactory.getLogger(Kryptonite.class);
   private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
-  private final AbstractKeyVault keyVault;
-
-  public Kryptonite(AbstractKeyVault keyVault) {
-    this.keyVault = keyVault;
+  static {
+    //NOTE: registration must precede parsing any keysets in createFromConfig to get typed instead of legacy keys
     try {
       AeadConfig.register();
       DeterministicAeadConfig.register();
@@ -144,31 +153,194 @@ public class Kryptonite {
     }
   }
 
+  private final AbstractKeyVault keyVault;
+  private final Map<String,CipherSpec> cipherSpecs;
+  private final DeterministicCipherCache cipherCache;
+  private final PayloadCompression compression;
+  private final JdkHmacSha256 pseudonymizer = new JdkHmacSha256();
+  private final JdkHmacSha256 blindIndexer = new JdkHmacSha256(BLIND_INDEX_KEY_LABEL, BLIND_INDEX_SIZE_BYTES);
+
+  public Kryptonite(AbstractKeyVault keyVault) {
+    this(keyVault, Map.of());
+  }
+
+  public Kryptonite(AbstractKeyVault keyVault, Map<String,String> config) {
+    this.keyVault = keyVault;
+    this.cipherSpecs = resolveCipherSpecs(
+        CipherEngine.valueOf(config.getOrDefault(CIPHER_ENGINE, CIPHER_ENGINE_DEFAULT)));
+    this.cipherCache = createCipherCache(config);
+    this.compression = createCompression(config);
+  }
+
+  /**
+   * Encrypts the plaintext, which gets compressed upfront if configured and worthwhile. In that case the resulting
+   * field's meta-data version is flagged accordingly, i.e. it differs from the given meta-data.
+   */
   public EncryptedField cipherField(byte[] plaintext, PayloadMetaData metadata) {
+    if (compression != null && compression.appliesTo(plaintext)) {
+      var compressed = compression.compress(plaintext);
+      if (compressed != null) {
+        return encryptField(compressed, new PayloadMetaData(
+            compression.flagVersion(metadata.getVersion()), metadata.getAlgorithmId(), metadata.getKeyId()));
+      }
+    }
+    return encryptField(plaintext, metadata);
+  }
+
+  private EncryptedField encryptField(byte[] plaintext, PayloadMetaData metadata) {
     try {
-      var cipherSpec = ID_CIPHERSPEC_LUT.get(metadata.getAlgorithmId());
-      return new EncryptedField(
-          metadata,
-          cipherSpec.getAlgorithm().cipher(plaintext, keyVault.readKeysetHandle(metadata.getKeyId()), metadata.asBytes())
-      );
+      var cipherSpec = cipherSpecs.get(metadata.getAlgorithmId());
+      var algorithm = cipherSpec.getAlgorithm();
+      var keysetHandle = keyVault.readKeysetHandle(metadata.getKeyId());
+      var associatedData = metadata.asBytes();
+      if (cipherCache != null && algorithm.isDeterministic()) {
+        return new EncryptedField(
+            metadata,
+            cipherCache.cipher(metadata.getKeyId(), associatedData, keysetHandle, plaintext,
+                input -> algorithm.cipher(input, keysetHandle, associatedData))
+        );
+      }
+      return new EncryptedField(metadata, algorithm.cipher(plaintext, keysetHandle, associatedData));
     } catch (Exception e) {
       throw new KryptoniteException(e.getMessage(),e);
     }
   }
 
   public byte[] decipherField(EncryptedField encryptedField) {
+    var plaintext = decryptField(encryptedField);
+    var compressionType = PayloadCompression.typeOf(encryptedField.getMetaData().getVersion());
+    return compressionType != CompressionType.NONE
+        ? PayloadCompression.decompress(compressionType, plaintext)
+        : plaintext;
+  }
+
+  private byte[] decryptField(EncryptedField encryptedField) {
+    try {
+      var metadata = encryptedField.getMetaData();
+      var cipherSpec = cipherSpecs.get(metadata.getAlgorithmId());
+      var algorithm = cipherSpec.getAlgorithm();
+      var keysetHandle = keyVault.readKeysetHandle(metadata.getKeyId());
+      if (cipherCache != null && algorithm.isDeterministic()) {
+        var associatedData = encryptedField.associatedData();
+        return cipherCache.decipher(metadata.getKeyId(), associatedData, keysetHandle,
+            encryptedField.ciphertext(), input -> algorithm.decipher(input, keysetHandle, associatedData));
+      }
+      return algorithm.decipher(encryptedField.ciphertext(), keysetHandle, encryptedField.associatedData());
+    } catch (Exception e) {
+      throw new KryptoniteException(e.getMessage(),e);
+    }
+  }
+
+  /**
+   * Computes the fixed-length keyed-hash pseudonym of the plaintext which is a cheap alternative to deterministic
+   * encryption for values which never need to be decrypted, e.g. join keys.
+   */
+  public byte[] pseudonymizeField(byte[] plaintext, String keyId) {
     try {
-      var cipherSpec = ID_CIPHERSPEC_LUT.get(encryptedField.getMetaData().getAlgorithmId());
-      return cipherSpec.getAlgorithm().decipher(
-          encryptedField.ciphertext(),
-          keyVault.readKeysetHandle(encryptedField.getMetaData().getKeyId()),
-          encryptedField.associatedData()
-      );
+      return pseudonymizer.pseudonymize(plaintext, keyVault.readKeysetHandle(keyId));
     } catch (Exception e) {
       throw new KryptoniteException(e.getMessage(),e);
     }
   }
 
+  /**
+   * Computes the blind index of an already normalized plaintext, i.e. a keyed hash truncated to 64 bits which is
+   * stored next to the ciphertext so that lookups are possible without decryption. The deliberate truncation
+   * causes collisions which need to be filtered after decryption, but also limits what the index reveals.
+   */
+  public byte[] blindIndex(byte[] normalizedPlaintext, String keyId) {
+    try {
+      return blindIndexer.pseudonymize(normalizedPlaintext, keyVault.readKeysetHandle(keyId));
+    } catch (Exception e) {
+      throw new KryptoniteException(e.getMessage(),e);
+    }
+  }
+
+  public static boolean isPseudonymAlgorithm(String algorithm) {
+    return JdkHmacSha256.CIPHER_ALGORITHM.equals(algorithm);
+  }
+
+  public DataKey generateDataKey() {
+    return DataKey.generate();
+  }
+
+  /**
+   * Encrypts the given ephemeral data key with the long-lived keyset referenced by the metadata.
+   * Probabilistic algorithms only, given that each data key is random anyway.
+   */
+  public EncryptedField wrapDataKey(DataKey dataKey, PayloadMetaData metadata) {
+    var cipherSpec = cipherSpecs.get(metadata.getAlgorithmId());
+    if (cipherSpec == null || cipherSpec.getAlgorithm().isDeterministic()) {
+      throw new KryptoniteException("error: data keys can only be wrapped using a probabilistic algorithm but got id "
+          + metadata.getAlgorithmId());
+    }
+    return encryptField(dataKey.keyBytes(), metadata);
+  }
+
+  public DataKey unwrapDataKey(EncryptedField wrappedDataKey) {
+    return DataKey.fromBytes(decipherField(wrappedDataKey));
+  }
+
+  /**
+   * @return statistics of the deterministic ciphertext cache or null in case it isn't enabled
+   */
+  public DeterministicCipherCache.Stats getCipherCacheStats() {
+    return cipherCache != null ? cipherCache.stats() : null;
+  }
+
+  public void clearCipherCache() {
+    if (cipherCache != null) {
+      cipherCache.clear();
+    }
+  }
+
+  public void clearCipherCache(String keyId) {
+    if (cipherCache != null) {
+      cipherCache.clear(keyId);
+    }
+  }
+
+  private static DeterministicCipherCache createCipherCache(Map<String,String> config) {
+    try {
+      var maxBytes = Long.parseLong(config.getOrDefault(CIPHER_CACHE_MAX_BYTES, CIPHER_CACHE_MAX_BYTES_DEFAULT));
+      if (maxBytes <= 0) {
+        return null;
+      }
+      var maxEntryBytes = Long.parseLong(config.getOrDefault(CIPHER_CACHE_MAX_ENTRY_BYTES, CIPHER_CACHE_MAX_ENTRY_BYTES_DEFAULT));
+      LOGGER.debug("using deterministic cipher cache with max {} bytes and max {} bytes per entry", maxBytes, maxEntryBytes);
+      return new DeterministicCipherCache(maxBytes, maxEntryBytes);
+    } catch (NumberFormatException e) {
+      throw new ConfigurationException("invalid cipher cache settings in config map", e);
+    }
+  }
+
+  private static PayloadCompression createCompression(Map<String,String> config) {
+    try {
+      var type = CompressionType.valueOf(config.getOrDefault(CIPHER_COMPRESSION, CIPHER_COMPRESSION_DEFAULT));
+      if (CompressionType.NONE == type) {
+        return null;
+      }
+      var minBytes = Integer.parseInt(config.getOrDefault(CIPHER_COMPRESSION_MIN_BYTES, CIPHER_COMPRESSION_MIN_BYTES_DEFAULT));
+      LOGGER.debug("using {} compression for plaintexts of at least {} bytes", type, minBytes);
+      return new PayloadCompression(type, minBytes);
+    } catch (IllegalArgumentException e) {
+      throw new ConfigurationException("invalid compression settings in config map", e);
+    }
+  }
+
+  private static Map<String,CipherSpec> resolveCipherSpecs(CipherEngine cipherEngine) {
+    //NOTE: algorithms cache their primitives per keyset handle so each instance gets its own ones
+    var cipherSpecs = new HashMap<String,CipherSpec>();
+    ID_CIPHERSPEC_LUT.forEach((id, cipherSpec) -> cipherSpecs.put(id, CipherSpec.fromName(cipherSpec.getName())));
+    if (CipherEngine.JDK == cipherEngine) {
+      //NOTE: the JDK engine is wire-compatible with tink's AES-GCM and thus shares its algorithm id
+      cipherSpecs.put(CIPHERSPEC_ID_LUT.get(CipherSpec.fromName(TinkAesGcm.CIPHER_ALGORITHM)),
+          new CipherSpec(CipherSpec.TYPE_JDK, JdkAesGcm.CIPHER_ALGORITHM, new JdkAesGcm()));
+      LOGGER.debug("using {} engine for {}", cipherEngine, TinkAesGcm.CIPHER_ALGORITHM);
+    }
+    return Map.copyOf(cipherSpecs);
+  }
+
   public static Kryptonite createFromConfig(Map<String,String> config) {
     try {
       var keySource = KeySource.valueOf(config.get(KEY_SOURCE));
@@ -199,7 +371,7 @@ public class Kryptonite {
     );
     var keyConfigs = dataKeyConfig.stream().collect(
         Collectors.toMap(DataKeyConfig::getIdentifier, DataKeyConfig::getMaterial));
-    return new Kryptonite(new TinkKeyVault(keyConfigs));
+    return new Kryptonite(new TinkKeyVault(keyConfigs), config);
   }
 
   private static Kryptonite withTinkKeyVaultEncrypted(Map<String,String> config)
@@ -210,7 +382,7 @@ public class Kryptonite {
     );
     var keyConfigs = dataKeyConfig.stream().collect(
         Collectors.toMap(DataKeyConfigEncrypted::getIdentifier, DataKeyConfigEncrypted::getMaterial));
-    return new Kryptonite(new TinkKeyVaultEncrypted(keyConfigs, configureKmsKeyEncryption(config)));
+    return new Kryptonite(new TinkKeyVaultEncrypted(keyConfigs, configureKmsKeyEncryption(config)), config);
   }
 
   private static Kryptonite withKmsKeyVault(Map<String,String> config) {
@@ -218,7 +390,7 @@ public class Kryptonite {
     var kmsConfig = config.get(KMS_CONFIG);
     switch (kmsType) {
       case AZ_KV_SECRETS:
-        return new Kryptonite(new AzureKeyVault(new AzureSecretResolver(kmsConfig), true));
+        return new Kryptonite(new AzureKeyVault(new AzureSecretResolver(kmsConfig), true), config);
       default:
         throw new ConfigurationException(
             "error: configuration for a KMS backed tink key vault failed with param '"
@@ -232,7 +404,7 @@ public class Kryptonite {
     switch (kmsType) {
       case AZ_KV_SECRETS:
         return new Kryptonite(
-            new AzureKeyVaultEncrypted(configureKmsKeyEncryption(config), new AzureSecretResolver(kmsConfig), true));
+            new AzureKeyVaultEncrypted(configureKmsKeyEncryption(config), new AzureSecretResolver(kmsConfig), true), config);
       default:
         throw new ConfigurationException(
             "error: configuration for a KMS backed tink key vault failed with param '" + KMS_TYPE + "' -> " + kmsType);
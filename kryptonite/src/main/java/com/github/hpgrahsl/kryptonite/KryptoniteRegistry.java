@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kryptonite;
+
+import static com.github.hpgrahsl.kryptonite.config.KryptoniteSettings.*;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hpgrahsl.kryptonite.config.ConfigurationException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * JVM-wide registry which lets all components with identical key-related settings share one {@link Kryptonite}
+ * instance, i.e. its key vault together with the parsed or fetched keysets, cached primitives and ciphertexts.
+ * Instances are looked up by a hash of exactly these settings, reference counted and dropped once the last
+ * {@link Lease} on them got closed. Settings which only affect how records are processed, e.g. the field config
+ * or the cipher mode, don't prevent sharing.
+ */
+public final class KryptoniteRegistry {
+
+  /**
+   * Grants access to a shared {@link Kryptonite} instance until it gets closed. Closing is idempotent.
+   */
+  public static final class Lease implements AutoCloseable {
+
+    private final String configHash;
+    private final Entry entry;
+    private final Kryptonite kryptonite;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private Lease(String configHash, Entry entry, Kryptonite kryptonite) {
+      this.configHash = configHash;
+      this.entry = entry;
+      this.kryptonite = kryptonite;
+    }
+
+    public Kryptonite kryptonite() {
+      return kryptonite;
+    }
+
+    @Override
+    public void close() {
+      if (closed.compareAndSet(false, true)) {
+        release(configHash, entry);
+      }
+    }
+
+  }
+
+  /**
+   * Counters which make the sharing observable: how many instances got created and later on dropped, how many
+   * acquisitions were served by an already registered instance, and the currently registered instances and
+   * active leases.
+   */
+  public static final class Stats {
+
+    private final long created;
+    private final long reused;
+    private final long dropped;
+    private final long instances;
+    private final long leases;
+
+    Stats(long created, long reused, long dropped, long instances, long leases) {
+      this.created = created;
+      this.reused = reused;
+      this.dropped = dropped;
+      this.instances = instances;
+      this.leases = leases;
+    }
+
+    public long getCreated() {
+      return created;
+    }
+
+    public long getReused() {
+      return reused;
+    }
+
+    public long getDropped() {
+      return dropped;
+    }
+
+    public long getInstances() {
+      return instances;
+    }
+
+    public long getLeases() {
+      return leases;
+    }
+
+    @Override
+    public String toString() {
+      return "Stats{" +
+          "created=" + created +
+          ", reused=" + reused +
+          ", dropped=" + dropped +
+          ", instances=" + instances +
+          ", leases=" + leases +
+          '}';
+    }
+
+  }
+
+  private static final class Entry {
+
+    private final CompletableFuture<Kryptonite> kryptonite = new CompletableFuture<>();
+    private int references;
+
+  }
+
+  /**
+   * All settings {@link Kryptonite#createFromConfig(Map)} builds an instance from.
+   */
+  static final List<String> KEY_SETTINGS = List.of(
+      KEY_SOURCE, CIPHER_DATA_KEYS, KMS_TYPE, KMS_CONFIG, KEK_TYPE, KEK_CONFIG, KEK_URI, CIPHER_ENGINE,
+      CIPHER_COMPRESSION, CIPHER_COMPRESSION_MIN_BYTES, CIPHER_CACHE_MAX_BYTES, CIPHER_CACHE_MAX_ENTRY_BYTES
+  );
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(KryptoniteRegistry.class);
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final Map<String, Entry> ENTRIES = new HashMap<>();
+  private static long created;
+  private static long reused;
+  private static long dropped;
+  private static long leases;
+
+  private KryptoniteRegistry() {
+  }
+
+  /**
+   * Returns a lease on the instance which is registered for the key-related settings of the given config, or
+   * creates and registers it first. Only the registration happens while holding the registry's lock, the instance
+   * itself is created afterwards by the first acquiring thread while concurrent acquisitions for the same settings
+   * wait for it. This way keysets are parsed or a KMS is called only once per settings without blocking the
+   * acquisition of instances for any other settings. If creation fails, the entry is unregistered again so that
+   * a later acquisition retries.
+   */
+  public static Lease acquire(Map<String,String> config) {
+    var configHash = configHash(config);
+    Entry entry;
+    boolean creating = false;
+    synchronized (ENTRIES) {
+      entry = ENTRIES.get(configHash);
+      if (entry == null) {
+        entry = new Entry();
+        ENTRIES.put(configHash, entry);
+        creating = true;
+      }
+      entry.references++;
+      leases++;
+    }
+    if (creating) {
+      create(configHash, entry, config);
+    }
+    try {
+      var kryptonite = entry.kryptonite.join();
+      if (!creating) {
+        synchronized (ENTRIES) {
+          reused++;
+        }
+      }
+      return new Lease(configHash, entry, kryptonite);
+    } catch (CompletionException e) {
+      release(configHash, entry);
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+    }
+  }
+
+  private static void create(String configHash, Entry entry, Map<String,String> config) {
+    try {
+      entry.kryptonite.complete(Kryptonite.createFromConfig(config));
+    } catch (RuntimeException | Error e) {
+      synchronized (ENTRIES) {
+        ENTRIES.remove(configHash, entry);
+      }
+      entry.kryptonite.completeExceptionally(e);
+      return;
+    }
+    synchronized (ENTRIES) {
+      created++;
+    }
+    LOGGER.debug("registered new kryptonite instance for config hash {}", configHash);
+  }
+
+  /**
+   * @return the number of currently registered, i.e. actively leased, instances
+   */
+  public static int size() {
+    synchronized (ENTRIES) {
+      return ENTRIES.size();
+    }
+  }
+
+  public static Stats stats() {
+    synchronized (ENTRIES) {
+      return new Stats(created, reused, dropped, ENTRIES.size(), leases);
+    }
+  }
+
+  private static void release(String configHash, Entry entry) {
+    synchronized (ENTRIES) {
+      leases--;
+      //NOTE: entries whose creation failed have already been unregistered and therefore aren't counted as dropped
+      if (--entry.references == 0 && ENTRIES.remove(configHash, entry)) {
+        dropped++;
+        LOGGER.debug("unregistered kryptonite instance for config hash {}", configHash);
+      }
+    }
+  }
+
+  /**
+   * Hashes the key-related settings so that no key material is retained as part of the registry's lookup keys.
+   */
+  static String configHash(Map<String,String> config) {
+    var keySettings = new TreeMap<String,String>();
+    KEY_SETTINGS.forEach(name -> keySettings.put(name, config.get(name)));
+    try {
+      var digest = MessageDigest.getInstance("SHA-256")
+          .digest(OBJECT_MAPPER.writeValueAsString(keySettings).getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest);
+    } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+      throw new ConfigurationException("failed to hash key-related settings of config map", e);
+    }
+  }
+
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kryptonite.cache;
+
+import com.google.crypto.tink.KeysetHandle;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache for the results of deterministic encryption, i.e. plaintext to ciphertext
+ * and ciphertext to plaintext, per key identifier and associated data. The capacity is expressed
+ * in bytes and accounts for both the plaintext and the ciphertext of every cached entry.
+ * Whenever a key identifier resolves to a different keyset handle than before (e.g. due to key rotation)
+ * all entries that were cached for this key identifier are dropped. Decryptions never fill plaintext to
+ * ciphertext entries since the ciphertext might stem from a former primary key within the same keyset.
+ */
+public class DeterministicCipherCache {
+
+  @FunctionalInterface
+  public interface CryptoOperation {
+    byte[] apply(byte[] input) throws Exception;
+  }
+
+  public static final class Stats {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long entries;
+    private final long weightBytes;
+
+    Stats(long hits, long misses, long evictions, long entries, long weightBytes) {
+      this.hits = hits;
+      this.misses = misses;
+      this.evictions = evictions;
+      this.entries = entries;
+      this.weightBytes = weightBytes;
+    }
+
+    public long getHits() {
+      return hits;
+    }
+
+    public long getMisses() {
+      return misses;
+    }
+
+    public long getEvictions() {
+      return evictions;
+    }
+
+    public long getEntries() {
+      return entries;
+    }
+
+    public long getWeightBytes() {
+      return weightBytes;
+    }
+
+    public double getHitRatio() {
+      var total = hits + misses;
+      return total == 0 ? 0.0d : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+      return "Stats{" +
+          "hits=" + hits +
+          ", misses=" + misses +
+          ", evictions=" + evictions +
+          ", entries=" + entries +
+          ", weightBytes=" + weightBytes +
+          '}';
+    }
+
+  }
+
+  //NOTE: rough per entry overhead for the key object, the map node and array headers
+  static final int ENTRY_OVERHEAD_BYTES = 96;
+
+  private static final byte[] EMPTY = new byte[0];
+
+  private final long maxWeightBytes;
+  private final long maxEntryBytes;
+  private final LinkedHashMap<CacheKey, byte[]> entries = new LinkedHashMap<>(256, 0.75f, true);
+  private final Map<String, KeysetHandle> keysetHandles = new HashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private long weightBytes;
+
+  public DeterministicCipherCache(long maxWeightBytes, long maxEntryBytes) {
+    if (maxWeightBytes <= 0) {
+      throw new IllegalArgumentException("max weight bytes must be > 0");
+    }
+    this.maxWeightBytes = maxWeightBytes;
+    this.maxEntryBytes = maxEntryBytes > 0 ? Math.min(maxEntryBytes, maxWeightBytes) : maxWeightBytes;
+  }
+
+  public byte[] cipher(String keyId, byte[] associatedData, KeysetHandle keysetHandle,
+      byte[] plaintext, CryptoOperation operation) throws Exception {
+    return lookupOrCompute(Direction.CIPHER, keyId, associatedData, keysetHandle, plaintext, operation);
+  }
+
+  public byte[] decipher(String keyId, byte[] associatedData, KeysetHandle keysetHandle,
+      byte[] ciphertext, CryptoOperation operation) throws Exception {
+    return lookupOrCompute(Direction.DECIPHER, keyId, associatedData, keysetHandle, ciphertext, operation);
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+    keysetHandles.clear();
+    weightBytes = 0;
+  }
+
+  public synchronized void clear(String keyId) {
+    keysetHandles.remove(keyId);
+    removeEntriesOf(keyId);
+  }
+
+  public synchronized Stats stats() {
+    return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size(), weightBytes);
+  }
+
+  private byte[] lookupOrCompute(Direction direction, String keyId, byte[] associatedData, KeysetHandle keysetHandle,
+      byte[] input, CryptoOperation operation) throws Exception {
+    var cacheKey = new CacheKey(direction, keyId, associatedData != null ? associatedData : EMPTY, input);
+    synchronized (this) {
+      ensureKeysetHandle(keyId, keysetHandle);
+      var cached = entries.get(cacheKey);
+      if (cached != null) {
+        hits.increment();
+        return cached.clone();
+      }
+    }
+    misses.increment();
+    var output = operation.apply(input);
+    var weight = weightOf(input, output);
+    if (weight <= maxEntryBytes) {
+      synchronized (this) {
+        //NOTE: the keyset might have been rotated while the crypto operation was running
+        if (keysetHandles.get(keyId) == keysetHandle) {
+          var ownedKey = cacheKey.withOwnedInput();
+          var ownedOutput = output.clone();
+          put(ownedKey, ownedOutput);
+          //NOTE: only encryptions, which always use the primary key, may fill the reverse direction given that
+          // decrypted ciphertexts might stem from older, non-primary keys of the same keyset
+          if (Direction.CIPHER == direction) {
+            put(new CacheKey(Direction.DECIPHER, keyId, ownedKey.associatedData, ownedOutput), ownedKey.bytes);
+          }
+        }
+      }
+    }
+    return output;
+  }
+
+  private void ensureKeysetHandle(String keyId, KeysetHandle keysetHandle) {
+    var previous = keysetHandles.put(keyId, keysetHandle);
+    if (previous != null && previous != keysetHandle) {
+      removeEntriesOf(keyId);
+    }
+  }
+
+  private void removeEntriesOf(String keyId) {
+    Iterator<Map.Entry<CacheKey, byte[]>> iterator = entries.entrySet().iterator();
+    while (iterator.hasNext()) {
+      var entry = iterator.next();
+      if (entry.getKey().keyId.equals(keyId)) {
+        weightBytes -= weightOf(entry.getKey().bytes, entry.getValue());
+        iterator.remove();
+      }
+    }
+  }
+
+  private void put(CacheKey cacheKey, byte[] value) {
+    var previous = entries.put(cacheKey, value);
+    if (previous != null) {
+      weightBytes -= weightOf(cacheKey.bytes, previous);
+    }
+    weightBytes += weightOf(cacheKey.bytes, value);
+    var iterator = entries.entrySet().iterator();
+    while (weightBytes > maxWeightBytes && iterator.hasNext()) {
+      var eldest = iterator.next();
+      weightBytes -= weightOf(eldest.getKey().bytes, eldest.getValue());
+      iterator.remove();
+      evictions.increment();
+    }
+  }
+
+  private static long weightOf(byte[] input, byte[] output) {
+    return (long) input.length + output.length + ENTRY_OVERHEAD_BYTES;
+  }
+
+  private enum Direction {
+    CIPHER,
+    DECIPHER
+  }
+
+  private static final class CacheKey {
+
+    private final Direction direction;
+    private final String keyId;
+    private final byte[] associatedData;
+    private final byte[] bytes;
+    private final int hash;
+
+    private CacheKey(Direction direction, String keyId, byte[] associatedData, byte[] bytes) {
+      this.direction = direction;
+      this.keyId = Objects.requireNonNull(keyId, "key id must not be null");
+      this.associatedData = associatedData;
+      this.bytes = Objects.requireNonNull(bytes, "bytes must not be null");
+      this.hash = 31 * (31 * Objects.hash(direction, keyId) + Arrays.hashCode(associatedData)) + Arrays.hashCode(bytes);
+    }
+
+    private CacheKey withOwnedInput() {
+      return new CacheKey(direction, keyId, associatedData.clone(), bytes.clone());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof CacheKey)) {
+        return false;
+      }
+      CacheKey that = (CacheKey) o;
+      return hash == that.hash
+          && direction == that.direction
+          && keyId.equals(that.keyId)
+          && Arrays.equals(associatedData, that.associatedData)
+          && Arrays.equals(bytes, that.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+  }
+
+}
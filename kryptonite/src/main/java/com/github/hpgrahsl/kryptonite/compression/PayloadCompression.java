@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kryptonite.compression;
+
+import com.github.hpgrahsl.kryptonite.KryptoniteException;
+import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings.CompressionType;
+import com.github.luben.zstd.Zstd;
+import java.nio.ByteBuffer;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+
+/**
+ * Compression of plaintexts right before their encryption. Compressed payloads are flagged by a suffix
+ * of the payload meta-data's version (e.g. {@code k1-lz4}) so that decryption knows whether and how
+ * to decompress. A compressed payload is the 4 byte original length followed by the compressed bytes.
+ */
+public final class PayloadCompression {
+
+  private static final String LZ4_VERSION_SUFFIX = "-lz4";
+  private static final String ZSTD_VERSION_SUFFIX = "-zstd";
+  private static final int LENGTH_BYTES = 4;
+  private static final int ZSTD_LEVEL = 3;
+
+  private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+  private final CompressionType type;
+  private final int minBytes;
+
+  public PayloadCompression(CompressionType type, int minBytes) {
+    this.type = type;
+    this.minBytes = minBytes;
+  }
+
+  /**
+   * @return whether a plaintext of the given size should get compressed at all
+   */
+  public boolean appliesTo(byte[] plaintext) {
+    return type != CompressionType.NONE && plaintext.length >= minBytes;
+  }
+
+  public String flagVersion(String version) {
+    return version + (type == CompressionType.LZ4 ? LZ4_VERSION_SUFFIX : ZSTD_VERSION_SUFFIX);
+  }
+
+  /**
+   * @return the compressed payload or null in case compression didn't reduce the size
+   */
+  public byte[] compress(byte[] plaintext) {
+    var compressed = type == CompressionType.LZ4 ? compressLz4(plaintext) : compressZstd(plaintext);
+    return compressed.length < plaintext.length ? compressed : null;
+  }
+
+  public static CompressionType typeOf(String version) {
+    if (version.endsWith(LZ4_VERSION_SUFFIX)) {
+      return CompressionType.LZ4;
+    }
+    if (version.endsWith(ZSTD_VERSION_SUFFIX)) {
+      return CompressionType.ZSTD;
+    }
+    return CompressionType.NONE;
+  }
+
+  public static byte[] decompress(CompressionType type, byte[] payload) {
+    if (payload.length < LENGTH_BYTES) {
+      throw new KryptoniteException("error: compressed payload is too short");
+    }
+    var length = ByteBuffer.wrap(payload, 0, LENGTH_BYTES).getInt();
+    if (length < 0) {
+      throw new KryptoniteException("error: compressed payload has an invalid length of " + length);
+    }
+    var plaintext = new byte[length];
+    switch (type) {
+      case LZ4:
+        try {
+          LZ4.safeDecompressor().decompress(payload, LENGTH_BYTES, payload.length - LENGTH_BYTES, plaintext, 0);
+        } catch (LZ4Exception exc) {
+          throw new KryptoniteException("error: decompressing the LZ4 payload failed", exc);
+        }
+        return plaintext;
+      case ZSTD:
+        var size = Zstd.decompressByteArray(plaintext, 0, length, payload, LENGTH_BYTES, payload.length - LENGTH_BYTES);
+        if (Zstd.isError(size) || size != length) {
+          throw new KryptoniteException("error: decompressing the zstd payload failed");
+        }
+        return plaintext;
+      default:
+        return payload;
+    }
+  }
+
+  private static byte[] compressLz4(byte[] plaintext) {
+    var compressor = LZ4.fastCompressor();
+    var compressed = new byte[LENGTH_BYTES + compressor.maxCompressedLength(plaintext.length)];
+    ByteBuffer.wrap(compressed).putInt(plaintext.length);
+    var size = compressor.compress(plaintext, 0, plaintext.length, compressed, LENGTH_BYTES);
+    return trim(compressed, LENGTH_BYTES + size);
+  }
+
+  private static byte[] compressZstd(byte[] plaintext) {
+    var compressed = new byte[LENGTH_BYTES + (int) Zstd.compressBound(plaintext.length)];
+    ByteBuffer.wrap(compressed).putInt(plaintext.length);
+    var size = Zstd.compressByteArray(compressed, LENGTH_BYTES, compressed.length - LENGTH_BYTES,
+        plaintext, 0, plaintext.length, ZSTD_LEVEL);
+    if (Zstd.isError(size)) {
+      throw new KryptoniteException("error: zstd compression failed with " + Zstd.getErrorName(size));
+    }
+    return trim(compressed, LENGTH_BYTES + (int) size);
+  }
+
+  private static byte[] trim(byte[] bytes, int length) {
+    var trimmed = new byte[length];
+    System.arraycopy(bytes, 0, trimmed, 0, length);
+    return trimmed;
+  }
+
+}
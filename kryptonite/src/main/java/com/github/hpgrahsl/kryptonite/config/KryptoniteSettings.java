@@ -19,12 +19,39 @@ public class KryptoniteSettings {
     GCP
   }
 
+  public enum CipherEngine {
+    TINK,
+    JDK
+  }
+
+  public enum CipherMetadataMode {
+    FIELD,
+    HEADER
+  }
+
+  public enum CipherScope {
+    FIELD,
+    RECORD
+  }
+
+  public enum CompressionType {
+    NONE,
+    LZ4,
+    ZSTD
+  }
+
+  public enum EnvelopeMode {
+    NONE,
+    DATA_KEY
+  }
+
   public static final String FIELD_CONFIG = "field_config";
   public static final String PATH_DELIMITER = "path_delimiter";
   public static final String FIELD_MODE = "field_mode";
   public static final String CIPHER_ALGORITHM = "cipher_algorithm";
   public static final String CIPHER_DATA_KEY_IDENTIFIER = "cipher_data_key_identifier";
   public static final String CIPHER_DATA_KEYS = "cipher_data_keys";
+  public static final String DYNAMIC_KEY_ID_PREFIX = "dynamic_key_id_prefix";
   public static final String CIPHER_TEXT_ENCODING = "cipher_text_encoding";
   public static final String CIPHER_MODE = "cipher_mode";
   public static final String KEY_SOURCE = "key_source";
@@ -33,12 +60,23 @@ public class KryptoniteSettings {
   public static final String KEK_TYPE = "kek_type";
   public static final String KEK_CONFIG = "kek_config";
   public static final String KEK_URI = "kek_uri";
+  public static final String CIPHER_ENGINE = "cipher_engine";
+  public static final String CIPHER_METADATA_MODE = "cipher_metadata_mode";
+  public static final String CIPHER_SCOPE = "cipher_scope";
+  public static final String RECORD_PAYLOAD_FIELD = "record_payload_field";
+  public static final String ENVELOPE_MODE = "envelope_mode";
+  public static final String ENVELOPE_DATA_KEY_RECORDS = "envelope_data_key_records";
+  public static final String CIPHER_COMPRESSION = "cipher_compression";
+  public static final String CIPHER_COMPRESSION_MIN_BYTES = "cipher_compression_min_bytes";
+  public static final String CIPHER_CACHE_MAX_BYTES = "cipher_cache_max_bytes";
+  public static final String CIPHER_CACHE_MAX_ENTRY_BYTES = "cipher_cache_max_entry_bytes";
 
   public static final String PATH_DELIMITER_DEFAULT = ".";
   public static final String FIELD_MODE_DEFAULT = "ELEMENT";
   public static final String CIPHER_ALGORITHM_DEFAULT = "TINK/AES_GCM";
   public static final String CIPHER_DATA_KEY_IDENTIFIER_DEFAULT = "";
   public static final String CIPHER_DATA_KEYS_DEFAULT = "[]";
+  public static final String DYNAMIC_KEY_ID_PREFIX_DEFAULT = "__#";
   public static final String CIPHER_TEXT_ENCODING_DEFAULT = "BASE64";
   public static final String KEY_SOURCE_DEFAULT = "CONFIG";
   public static final String KMS_TYPE_DEFAULT = "NONE";
@@ -46,5 +84,15 @@ public class KryptoniteSettings {
   public static final String KEK_TYPE_DEFAULT = "NONE";
   public static final String KEK_CONFIG_DEFAULT = "{}";
   public static final String KEK_URI_DEFAULT = "xyz-kms://";
+  public static final String CIPHER_ENGINE_DEFAULT = "TINK";
+  public static final String CIPHER_METADATA_MODE_DEFAULT = "FIELD";
+  public static final String CIPHER_SCOPE_DEFAULT = "FIELD";
+  public static final String RECORD_PAYLOAD_FIELD_DEFAULT = "__k4k_payload";
+  public static final String ENVELOPE_MODE_DEFAULT = "NONE";
+  public static final String ENVELOPE_DATA_KEY_RECORDS_DEFAULT = "1";
+  public static final String CIPHER_COMPRESSION_DEFAULT = "NONE";
+  public static final String CIPHER_COMPRESSION_MIN_BYTES_DEFAULT = "512";
+  public static final String CIPHER_CACHE_MAX_BYTES_DEFAULT = "0";
+  public static final String CIPHER_CACHE_MAX_ENTRY_BYTES_DEFAULT = "4096";
 
 }
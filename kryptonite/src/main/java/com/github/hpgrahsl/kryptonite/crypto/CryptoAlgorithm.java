@@ -20,6 +20,13 @@ import com.google.crypto.tink.KeysetHandle;
 
 public interface CryptoAlgorithm {
 
+  /**
+   * @return true if the same plaintext, keyset and associated data always result in the same ciphertext
+   */
+  default boolean isDeterministic() {
+    return false;
+  }
+
   default byte[] cipher(byte[] plaintext, KeysetHandle keysetHandle) throws Exception {
     return cipher(plaintext, keysetHandle, null);
   }
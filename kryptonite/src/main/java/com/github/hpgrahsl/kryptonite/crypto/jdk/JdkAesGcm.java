@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kryptonite.crypto.jdk;
+
+import com.github.hpgrahsl.kryptonite.crypto.CryptoAlgorithm;
+import com.github.hpgrahsl.kryptonite.crypto.tink.TinkAesGcm;
+import com.google.crypto.tink.InsecureSecretKeyAccess;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.aead.AesGcmKey;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * AES-GCM directly on top of javax.crypto which produces and consumes the exact same
+ * wire format as Tink's AES-GCM primitive, i.e. output prefix (if any) | 12 byte IV | ciphertext | 16 byte tag.
+ * The raw key material of a keyset's primary key is extracted only once per keyset handle.
+ * Whenever a keyset cannot be served directly (e.g. other key types or ciphertexts that were
+ * produced by non-primary keys) processing falls back to {@link TinkAesGcm}.
+ */
+public class JdkAesGcm implements CryptoAlgorithm {
+
+  public static final String CIPHER_ALGORITHM = "JDK/AES_GCM";
+
+  private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+  private static final int IV_SIZE_BYTES = 12;
+  private static final int TAG_SIZE_BYTES = 16;
+
+  private static final ThreadLocal<Cipher> CIPHERS = ThreadLocal.withInitial(() -> {
+    try {
+      return Cipher.getInstance(TRANSFORMATION);
+    } catch (GeneralSecurityException exc) {
+      throw new IllegalStateException("failed to create cipher instance for " + TRANSFORMATION, exc);
+    }
+  });
+
+  private static final ThreadLocal<SecureRandom> RANDOMS = ThreadLocal.withInitial(SecureRandom::new);
+
+  private static final KeyMaterial UNSUPPORTED = new KeyMaterial(null, null);
+
+  private final Map<KeysetHandle, KeyMaterial> keyMaterials = new ConcurrentHashMap<>();
+  private final TinkAesGcm fallback = new TinkAesGcm();
+
+  @Override
+  public byte[] cipher(byte[] plaintext, KeysetHandle keysetHandle, byte[] associatedData) throws Exception {
+    var keyMaterial = keyMaterials.computeIfAbsent(keysetHandle, JdkAesGcm::extractKeyMaterial);
+    if (keyMaterial == UNSUPPORTED) {
+      return fallback.cipher(plaintext, keysetHandle, associatedData);
+    }
+    var prefixLength = keyMaterial.outputPrefix.length;
+    var ciphertext = new byte[prefixLength + IV_SIZE_BYTES + plaintext.length + TAG_SIZE_BYTES];
+    System.arraycopy(keyMaterial.outputPrefix, 0, ciphertext, 0, prefixLength);
+    var iv = new byte[IV_SIZE_BYTES];
+    RANDOMS.get().nextBytes(iv);
+    System.arraycopy(iv, 0, ciphertext, prefixLength, IV_SIZE_BYTES);
+    var cipher = CIPHERS.get();
+    cipher.init(Cipher.ENCRYPT_MODE, keyMaterial.key, new GCMParameterSpec(TAG_SIZE_BYTES * 8, iv));
+    if (associatedData != null && associatedData.length > 0) {
+      cipher.updateAAD(associatedData);
+    }
+    var offset = prefixLength + IV_SIZE_BYTES;
+    cipher.doFinal(ByteBuffer.wrap(plaintext), ByteBuffer.wrap(ciphertext, offset, ciphertext.length - offset));
+    return ciphertext;
+  }
+
+  @Override
+  public byte[] decipher(byte[] ciphertext, KeysetHandle keysetHandle, byte[] associatedData) throws Exception {
+    var keyMaterial = keyMaterials.computeIfAbsent(keysetHandle, JdkAesGcm::extractKeyMaterial);
+    if (keyMaterial == UNSUPPORTED || !keyMaterial.matchesPrefixOf(ciphertext)) {
+      return fallback.decipher(ciphertext, keysetHandle, associatedData);
+    }
+    var prefixLength = keyMaterial.outputPrefix.length;
+    var offset = prefixLength + IV_SIZE_BYTES;
+    try {
+      var cipher = CIPHERS.get();
+      cipher.init(Cipher.DECRYPT_MODE, keyMaterial.key,
+          new GCMParameterSpec(TAG_SIZE_BYTES * 8, ciphertext, prefixLength, IV_SIZE_BYTES));
+      if (associatedData != null && associatedData.length > 0) {
+        cipher.updateAAD(associatedData);
+      }
+      var plaintext = new byte[ciphertext.length - offset - TAG_SIZE_BYTES];
+      cipher.doFinal(ByteBuffer.wrap(ciphertext, offset, ciphertext.length - offset), ByteBuffer.wrap(plaintext));
+      return plaintext;
+    } catch (GeneralSecurityException exc) {
+      //NOTE: the ciphertext might still be valid for any of the keyset's non-primary keys
+      return fallback.decipher(ciphertext, keysetHandle, associatedData);
+    }
+  }
+
+  private static KeyMaterial extractKeyMaterial(KeysetHandle keysetHandle) {
+    try {
+      var primaryKey = keysetHandle.getPrimary().getKey();
+      if (!(primaryKey instanceof AesGcmKey)) {
+        return UNSUPPORTED;
+      }
+      var aesGcmKey = (AesGcmKey) primaryKey;
+      if (aesGcmKey.getParameters().getIvSizeBytes() != IV_SIZE_BYTES
+          || aesGcmKey.getParameters().getTagSizeBytes() != TAG_SIZE_BYTES) {
+        return UNSUPPORTED;
+      }
+      return new KeyMaterial(
+          new SecretKeySpec(aesGcmKey.getKeyBytes().toByteArray(InsecureSecretKeyAccess.get()), "AES"),
+          aesGcmKey.getOutputPrefix().toByteArray()
+      );
+    } catch (Exception exc) {
+      return UNSUPPORTED;
+    }
+  }
+
+  private static final class KeyMaterial {
+
+    private final SecretKeySpec key;
+    private final byte[] outputPrefix;
+
+    private KeyMaterial(SecretKeySpec key, byte[] outputPrefix) {
+      this.key = key;
+      this.outputPrefix = outputPrefix;
+    }
+
+    private boolean matchesPrefixOf(byte[] ciphertext) {
+      if (ciphertext == null || ciphertext.length < outputPrefix.length + IV_SIZE_BYTES + TAG_SIZE_BYTES) {
+        return false;
+      }
+      for (int i = 0; i < outputPrefix.length; i++) {
+        if (ciphertext[i] != outputPrefix[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+  }
+
+}
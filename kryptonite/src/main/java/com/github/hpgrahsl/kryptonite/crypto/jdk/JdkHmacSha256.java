@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kryptonite.crypto.jdk;
+
+import com.google.crypto.tink.InsecureSecretKeyAccess;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.aead.AesGcmKey;
+import com.google.crypto.tink.aead.AesGcmSivKey;
+import com.google.crypto.tink.daead.AesSivKey;
+import com.google.crypto.tink.mac.HmacKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Keyed-hash pseudonymization with HMAC-SHA256 truncated to 128 bits (by default). Instead of requiring dedicated
+ * MAC keysets, the MAC key is derived from the raw key material of a keyset's primary key, which may be any of the
+ * AES based keys or an HMAC key. Pseudonyms are one-way, i.e. they can be joined on but never decrypted. An initialized
+ * {@link Mac} is kept once per keyset handle and only cloned for every computation.
+ */
+public class JdkHmacSha256 {
+
+  public static final String CIPHER_ALGORITHM = "JDK/HMAC_SHA256";
+  public static final int PSEUDONYM_SIZE_BYTES = 16;
+
+  private static final String MAC_ALGORITHM = "HmacSHA256";
+  private static final String PSEUDONYM_KEY_LABEL = "kryptonite-pseudonym-v1";
+
+  private final Map<KeysetHandle, Mac> macs = new ConcurrentHashMap<>();
+  private final byte[] keyDerivationLabel;
+  private final int outputSizeBytes;
+
+  public JdkHmacSha256() {
+    this(PSEUDONYM_KEY_LABEL, PSEUDONYM_SIZE_BYTES);
+  }
+
+  /**
+   * @param keyDerivationLabel separates the MAC keys of different purposes which are derived from the same keyset
+   * @param outputSizeBytes the number of bytes the MAC gets truncated to
+   */
+  public JdkHmacSha256(String keyDerivationLabel, int outputSizeBytes) {
+    this.keyDerivationLabel = keyDerivationLabel.getBytes(StandardCharsets.UTF_8);
+    this.outputSizeBytes = outputSizeBytes;
+  }
+
+  public byte[] pseudonymize(byte[] plaintext, KeysetHandle keysetHandle) throws GeneralSecurityException {
+    var prototype = macs.get(keysetHandle);
+    if (prototype == null) {
+      prototype = initMac(keysetHandle);
+      macs.put(keysetHandle, prototype);
+    }
+    Mac mac;
+    try {
+      mac = (Mac) prototype.clone();
+    } catch (CloneNotSupportedException exc) {
+      mac = initMac(keysetHandle);
+    }
+    return Arrays.copyOf(mac.doFinal(plaintext), outputSizeBytes);
+  }
+
+  private Mac initMac(KeysetHandle keysetHandle) throws GeneralSecurityException {
+    var keyMaterial = extractKeyMaterial(keysetHandle);
+    //NOTE: the MAC key is derived from the key material so that the same key is never used for two purposes
+    var derivation = Mac.getInstance(MAC_ALGORITHM);
+    derivation.init(new SecretKeySpec(keyMaterial, MAC_ALGORITHM));
+    var mac = Mac.getInstance(MAC_ALGORITHM);
+    mac.init(new SecretKeySpec(derivation.doFinal(keyDerivationLabel), MAC_ALGORITHM));
+    return mac;
+  }
+
+  private static byte[] extractKeyMaterial(KeysetHandle keysetHandle) throws GeneralSecurityException {
+    var key = keysetHandle.getPrimary().getKey();
+    if (key instanceof AesGcmKey) {
+      return ((AesGcmKey) key).getKeyBytes().toByteArray(InsecureSecretKeyAccess.get());
+    }
+    if (key instanceof AesGcmSivKey) {
+      return ((AesGcmSivKey) key).getKeyBytes().toByteArray(InsecureSecretKeyAccess.get());
+    }
+    if (key instanceof AesSivKey) {
+      return ((AesSivKey) key).getKeyBytes().toByteArray(InsecureSecretKeyAccess.get());
+    }
+    if (key instanceof HmacKey) {
+      return ((HmacKey) key).getKeyBytes().toByteArray(InsecureSecretKeyAccess.get());
+    }
+    throw new GeneralSecurityException("unsupported key type " + key.getClass().getName()
+        + " to derive the key for " + CIPHER_ALGORITHM);
+  }
+
+}
@@ -19,21 +19,37 @@ package com.github.hpgrahsl.kryptonite.crypto.tink;
 import com.github.hpgrahsl.kryptonite.crypto.CryptoAlgorithm;
 import com.google.crypto.tink.Aead;
 import com.google.crypto.tink.KeysetHandle;
+import java.security.GeneralSecurityException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * The Tink primitive is obtained only once per keyset handle and reused afterwards, given that
+ * primitives are thread-safe and creating them for every single field is comparatively expensive.
+ */
 public class TinkAesGcm implements CryptoAlgorithm {
 
   public static final String CIPHER_ALGORITHM = "TINK/AES_GCM";
 
+  private final Map<KeysetHandle, Aead> primitives = new ConcurrentHashMap<>();
+
   @Override
   public byte[] cipher(byte[] plaintext, KeysetHandle keysetHandle, byte[] associatedData) throws Exception {
-    Aead aead = keysetHandle.getPrimitive(Aead.class);
-    return aead.encrypt(plaintext, associatedData);
+    return primitiveFor(keysetHandle).encrypt(plaintext, associatedData);
   }
 
   @Override
   public byte[] decipher(byte[] ciphertext, KeysetHandle keysetHandle, byte[] associatedData) throws Exception {
-    Aead aead = keysetHandle.getPrimitive(Aead.class);
-    return aead.decrypt(ciphertext, associatedData);
+    return primitiveFor(keysetHandle).decrypt(ciphertext, associatedData);
+  }
+
+  private Aead primitiveFor(KeysetHandle keysetHandle) throws GeneralSecurityException {
+    var primitive = primitives.get(keysetHandle);
+    if (primitive == null) {
+      primitive = keysetHandle.getPrimitive(Aead.class);
+      primitives.put(keysetHandle, primitive);
+    }
+    return primitive;
   }
 
 }
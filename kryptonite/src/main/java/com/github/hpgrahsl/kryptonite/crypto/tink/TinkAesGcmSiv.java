@@ -19,21 +19,42 @@ package com.github.hpgrahsl.kryptonite.crypto.tink;
 import com.github.hpgrahsl.kryptonite.crypto.CryptoAlgorithm;
 import com.google.crypto.tink.DeterministicAead;
 import com.google.crypto.tink.KeysetHandle;
+import java.security.GeneralSecurityException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * The Tink primitive is obtained only once per keyset handle and reused afterwards, given that
+ * primitives are thread-safe and creating them for every single field is comparatively expensive.
+ */
 public class TinkAesGcmSiv implements CryptoAlgorithm {
 
   public static final String CIPHER_ALGORITHM = "TINK/AES_GCM_SIV";
 
+  private final Map<KeysetHandle, DeterministicAead> primitives = new ConcurrentHashMap<>();
+
+  @Override
+  public boolean isDeterministic() {
+    return true;
+  }
+
   @Override
   public byte[] cipher(byte[] plaintext, KeysetHandle keysetHandle, byte[] associatedData) throws Exception {
-    DeterministicAead daead = keysetHandle.getPrimitive(DeterministicAead.class);
-    return daead.encryptDeterministically(plaintext, associatedData);
+    return primitiveFor(keysetHandle).encryptDeterministically(plaintext, associatedData);
   }
 
   @Override
   public byte[] decipher(byte[] ciphertext, KeysetHandle keysetHandle, byte[] associatedData) throws Exception {
-    DeterministicAead daead = keysetHandle.getPrimitive(DeterministicAead.class);
-    return daead.decryptDeterministically(ciphertext, associatedData);
+    return primitiveFor(keysetHandle).decryptDeterministically(ciphertext, associatedData);
+  }
+
+  private DeterministicAead primitiveFor(KeysetHandle keysetHandle) throws GeneralSecurityException {
+    var primitive = primitives.get(keysetHandle);
+    if (primitive == null) {
+      primitive = keysetHandle.getPrimitive(DeterministicAead.class);
+      primitives.put(keysetHandle, primitive);
+    }
+    return primitive;
   }
 
 }
@@ -22,7 +22,7 @@ import com.github.hpgrahsl.kryptonite.keys.KeyException;
 import com.github.hpgrahsl.kryptonite.keys.KeyMaterialResolver;
 import com.github.hpgrahsl.kryptonite.keys.KeyNotFoundException;
 import com.google.crypto.tink.KeysetHandle;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class AzureKeyVault extends AbstractKeyVault {
 
@@ -33,7 +33,7 @@ public class AzureKeyVault extends AbstractKeyVault {
   }
 
   public AzureKeyVault(KeyMaterialResolver keyMaterialResolver, boolean prefetch) {
-    super(new HashMap<>());
+    super(new ConcurrentHashMap<>());
     this.keyMaterialResolver = keyMaterialResolver;
     if (prefetch) {
       warmUpKeyCache();
@@ -26,7 +26,7 @@ import com.github.hpgrahsl.kryptonite.kms.KmsKeyEncryption;
 import com.google.crypto.tink.Aead;
 import com.google.crypto.tink.KeysetHandle;
 
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class AzureKeyVaultEncrypted extends AbstractKeyVault {
 
@@ -38,7 +38,7 @@ public class AzureKeyVaultEncrypted extends AbstractKeyVault {
   }
 
   public AzureKeyVaultEncrypted(KmsKeyEncryption kmsKeyEncryption, KeyMaterialResolver keyMaterialResolver, boolean prefetch) {
-    super(new HashMap<>());
+    super(new ConcurrentHashMap<>());
     try {
       this.kmsKeyEncryption = kmsKeyEncryption;
       this.keyMaterialResolver = keyMaterialResolver;
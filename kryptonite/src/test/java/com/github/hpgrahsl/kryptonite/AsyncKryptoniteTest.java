@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kryptonite;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.github.hpgrahsl.kryptonite.config.ConfigReader;
+import com.github.hpgrahsl.kryptonite.keys.AbstractKeyVault;
+import com.github.hpgrahsl.kryptonite.keys.KeyNotFoundException;
+import com.github.hpgrahsl.kryptonite.keys.TinkKeyVault;
+
+public class AsyncKryptoniteTest {
+
+    @ParameterizedTest
+    @MethodSource("com.github.hpgrahsl.kryptonite.KryptoniteTest#provideValidInputParamsLocalKeyVaultNoKeyEncryption")
+    @DisplayName("test async decrypt(encrypt(plaintext)) == plaintext")
+    void testAsyncEncryptDecrypt(AbstractKeyVault keyVault, byte[] originalData, PayloadMetaData metaData) throws Exception {
+        try (var asyncKryptonite = new AsyncKryptonite(new Kryptonite(keyVault))) {
+            var decrypted = asyncKryptonite.cipherFieldAsync(originalData, metaData)
+                .thenCompose(asyncKryptonite::decipherFieldAsync)
+                .toCompletableFuture()
+                .get(5, TimeUnit.SECONDS);
+            assertArrayEquals(originalData, decrypted);
+        }
+    }
+
+    @Test
+    @DisplayName("test many concurrent async operations on a platform thread pool")
+    void testConcurrentAsyncEncryptDecryptOnPlatformThreads() throws Exception {
+        var args = KryptoniteTest.provideValidInputParamsLocalKeyVaultNoKeyEncryption();
+        var executor = AsyncKryptonite.newPlatformThreadExecutor(4);
+        try (var asyncKryptonite = new AsyncKryptonite(new Kryptonite((AbstractKeyVault) args.get(0).get()[0]), executor)) {
+            List<CompletableFuture<byte[]>> futures = IntStream.range(0, 1000)
+                .mapToObj(i -> args.get(i % args.size()))
+                .map(Arguments::get)
+                .map(a -> asyncKryptonite.cipherFieldAsync((byte[]) a[1], (PayloadMetaData) a[2])
+                    .thenCompose(asyncKryptonite::decipherFieldAsync)
+                    .toCompletableFuture())
+                .collect(Collectors.toList());
+            for (int i = 0; i < futures.size(); i++) {
+                assertArrayEquals((byte[]) args.get(i % args.size()).get()[1], futures.get(i).get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("test async encrypt with unknown key identifier completes exceptionally")
+    void testAsyncEncryptUnknownKeyIdentifier() {
+        var keyVault = new TinkKeyVault(ConfigReader.tinkKeyConfigFromJsonString(TestFixtures.CIPHER_DATA_KEYS_CONFIG));
+        try (var asyncKryptonite = new AsyncKryptonite(new Kryptonite(keyVault))) {
+            var metaData = new PayloadMetaData(Kryptonite.KRYPTONITE_VERSION, "02", TestFixtures.UNKNOWN_KEYSET_IDENTIFIER_PLAIN);
+            var future = asyncKryptonite.cipherFieldAsync("alice".getBytes(StandardCharsets.UTF_8), metaData)
+                .toCompletableFuture();
+            var exc = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(KryptoniteException.class, exc.getCause());
+            assertInstanceOf(KeyNotFoundException.class, exc.getCause().getCause());
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kryptonite;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.github.hpgrahsl.kryptonite.config.ConfigurationException;
+import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings;
+
+public class KryptoniteRegistryTest {
+
+    static Map<String,String> config(String fieldConfig, String cipherMode, String cacheMaxBytes) {
+        var config = new HashMap<String,String>();
+        config.put(KryptoniteSettings.FIELD_CONFIG, fieldConfig);
+        config.put(KryptoniteSettings.CIPHER_MODE, cipherMode);
+        config.put(KryptoniteSettings.KEY_SOURCE, KryptoniteSettings.KEY_SOURCE_DEFAULT);
+        config.put(KryptoniteSettings.CIPHER_DATA_KEYS, TestFixtures.CIPHER_DATA_KEYS_CONFIG);
+        config.put(KryptoniteSettings.CIPHER_CACHE_MAX_BYTES, cacheMaxBytes);
+        return config;
+    }
+
+    @Test
+    @DisplayName("test identical key settings share one instance which is released with the last lease")
+    void testSharedInstanceForIdenticalKeySettings() {
+        var initialSize = KryptoniteRegistry.size();
+        try (var encrypting = KryptoniteRegistry.acquire(config("[{\"name\":\"a\"}]", "ENCRYPT", "1024"));
+             var decrypting = KryptoniteRegistry.acquire(config("[{\"name\":\"b\"}]", "DECRYPT", "1024"))) {
+            assertSame(encrypting.kryptonite(), decrypting.kryptonite());
+            assertEquals(initialSize + 1, KryptoniteRegistry.size());
+            encrypting.close();
+            encrypting.close();
+            assertEquals(initialSize + 1, KryptoniteRegistry.size());
+        }
+        assertEquals(initialSize, KryptoniteRegistry.size());
+    }
+
+    @Test
+    @DisplayName("test stats count created, reused and dropped instances as well as active leases")
+    void testStatsReflectSharing() {
+        var initial = KryptoniteRegistry.stats();
+        try (var first = KryptoniteRegistry.acquire(config("[{\"name\":\"a\"}]", "ENCRYPT", "2048"));
+             var second = KryptoniteRegistry.acquire(config("[{\"name\":\"a\"}]", "DECRYPT", "2048"))) {
+            var stats = KryptoniteRegistry.stats();
+            assertEquals(initial.getCreated() + 1, stats.getCreated());
+            assertEquals(initial.getReused() + 1, stats.getReused());
+            assertEquals(initial.getInstances() + 1, stats.getInstances());
+            assertEquals(initial.getLeases() + 2, stats.getLeases());
+        }
+        var stats = KryptoniteRegistry.stats();
+        assertEquals(initial.getDropped() + 1, stats.getDropped());
+        assertEquals(initial.getInstances(), stats.getInstances());
+        assertEquals(initial.getLeases(), stats.getLeases());
+    }
+
+    @Test
+    @DisplayName("test concurrent acquisitions of identical key settings create only one instance")
+    void testConcurrentAcquisitionsShareOneInstance() throws Exception {
+        var initial = KryptoniteRegistry.stats();
+        var executor = Executors.newFixedThreadPool(8);
+        var leases = new ArrayList<KryptoniteRegistry.Lease>();
+        try {
+            var tasks = new ArrayList<Callable<KryptoniteRegistry.Lease>>();
+            for (int i = 0; i < 16; i++) {
+                tasks.add(() -> KryptoniteRegistry.acquire(config("[{\"name\":\"a\"}]", "ENCRYPT", "4096")));
+            }
+            for (Future<KryptoniteRegistry.Lease> future : executor.invokeAll(tasks)) {
+                leases.add(future.get());
+            }
+            var stats = KryptoniteRegistry.stats();
+            assertEquals(initial.getCreated() + 1, stats.getCreated());
+            assertEquals(initial.getReused() + 15, stats.getReused());
+            assertEquals(initial.getLeases() + 16, stats.getLeases());
+            leases.forEach(lease -> assertSame(leases.get(0).kryptonite(), lease.kryptonite()));
+        } finally {
+            leases.forEach(KryptoniteRegistry.Lease::close);
+            executor.shutdownNow();
+        }
+        assertEquals(initial.getInstances(), KryptoniteRegistry.stats().getInstances());
+        assertEquals(initial.getLeases(), KryptoniteRegistry.stats().getLeases());
+    }
+
+    @Test
+    @DisplayName("test different key settings result in separate instances")
+    void testSeparateInstancesForDifferentKeySettings() {
+        var initialSize = KryptoniteRegistry.size();
+        try (var cached = KryptoniteRegistry.acquire(config("[{\"name\":\"a\"}]", "ENCRYPT", "1024"));
+             var uncached = KryptoniteRegistry.acquire(config("[{\"name\":\"a\"}]", "ENCRYPT", "0"))) {
+            assertNotSame(cached.kryptonite(), uncached.kryptonite());
+            assertEquals(initialSize + 2, KryptoniteRegistry.size());
+        }
+        assertEquals(initialSize, KryptoniteRegistry.size());
+    }
+
+    @Test
+    @DisplayName("test invalid key settings are rejected without being registered")
+    void testInvalidKeySettingsNotRegistered() {
+        var initialSize = KryptoniteRegistry.size();
+        var config = config("[{\"name\":\"a\"}]", "ENCRYPT", "0");
+        config.put(KryptoniteSettings.CIPHER_DATA_KEYS, "[{");
+        assertThrows(ConfigurationException.class, () -> KryptoniteRegistry.acquire(config));
+        assertEquals(initialSize, KryptoniteRegistry.size());
+        assertThrows(ConfigurationException.class, () -> KryptoniteRegistry.acquire(config));
+        assertEquals(initialSize, KryptoniteRegistry.size());
+    }
+
+}
@@ -1,17 +1,24 @@
 package com.github.hpgrahsl.kryptonite;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import com.github.hpgrahsl.kryptonite.Kryptonite.CipherSpec;
 import com.github.hpgrahsl.kryptonite.config.ConfigReader;
+import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings;
 import com.github.hpgrahsl.kryptonite.crypto.tink.TinkAesGcm;
 import com.github.hpgrahsl.kryptonite.crypto.tink.TinkAesGcmSiv;
 import com.github.hpgrahsl.kryptonite.keys.AbstractKeyVault;
@@ -58,6 +65,45 @@ public class KryptoniteTest {
         assertArrayEquals(originalData,kryptonite.decipherField(kryptonite.cipherField(originalData, metaData)));
     }
 
+    @Test
+    @DisplayName("test envelope encryption with a wrapped data key")
+    void testEncryptDecryptUsingWrappedDataKey() {
+        var kryptonite = new Kryptonite(new TinkKeyVault(ConfigReader.tinkKeyConfigFromJsonString(TestFixtures.CIPHER_DATA_KEYS_CONFIG)));
+        var metaData = new PayloadMetaData(Kryptonite.KRYPTONITE_VERSION,
+            Kryptonite.CIPHERSPEC_ID_LUT.get(CipherSpec.fromName(TinkAesGcm.CIPHER_ALGORITHM)), "keyA");
+        var dataKey = kryptonite.generateDataKey();
+        var wrapped = kryptonite.wrapDataKey(dataKey, metaData);
+        var originalData = "alice".getBytes(StandardCharsets.UTF_8);
+        var associatedData = metaData.asBytes();
+        var ciphertext = dataKey.encrypt(originalData, associatedData);
+        assertArrayEquals(originalData, kryptonite.unwrapDataKey(wrapped).decrypt(ciphertext, associatedData));
+        assertThrows(KryptoniteException.class, () -> kryptonite.generateDataKey().decrypt(ciphertext, associatedData));
+        assertThrows(KryptoniteException.class, () -> kryptonite.wrapDataKey(dataKey, new PayloadMetaData(Kryptonite.KRYPTONITE_VERSION,
+            Kryptonite.CIPHERSPEC_ID_LUT.get(CipherSpec.fromName(TinkAesGcmSiv.CIPHER_ALGORITHM)), "key9")));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"LZ4", "ZSTD"})
+    @DisplayName("test decrypt(encrypt(plaintext)) == plaintext with compression of large plaintexts")
+    void testEncryptDecryptWithCompression(String compressionType) {
+        var kryptonite = new Kryptonite(
+            new TinkKeyVault(ConfigReader.tinkKeyConfigFromJsonString(TestFixtures.CIPHER_DATA_KEYS_CONFIG)),
+            Map.of(KryptoniteSettings.CIPHER_COMPRESSION, compressionType,
+                KryptoniteSettings.CIPHER_COMPRESSION_MIN_BYTES, "64"));
+        var metaData = new PayloadMetaData(Kryptonite.KRYPTONITE_VERSION,
+            Kryptonite.CIPHERSPEC_ID_LUT.get(CipherSpec.fromName(TinkAesGcm.CIPHER_ALGORITHM)), "keyA");
+        var largeData = "{\"text\":\"some quite repetitive text\"}".repeat(64).getBytes(StandardCharsets.UTF_8);
+        var smallData = "alice".getBytes(StandardCharsets.UTF_8);
+        var largeField = kryptonite.cipherField(largeData, metaData);
+        var smallField = kryptonite.cipherField(smallData, metaData);
+        assertEquals(Kryptonite.KRYPTONITE_VERSION + "-" + compressionType.toLowerCase(), largeField.getMetaData().getVersion());
+        assertTrue(largeField.ciphertext().length < largeData.length / 4);
+        assertEquals(metaData, smallField.getMetaData());
+        assertArrayEquals(largeData, kryptonite.decipherField(largeField));
+        assertArrayEquals(smallData, kryptonite.decipherField(smallField));
+        assertArrayEquals(largeData, new Kryptonite(new TinkKeyVault(ConfigReader.tinkKeyConfigFromJsonString(TestFixtures.CIPHER_DATA_KEYS_CONFIG))).decipherField(largeField));
+    }
+
     static List<Arguments> provideValidInputParamsLocalKeyVaultNoKeyEncryption() {
         var tinkKeyVault = new TinkKeyVault(ConfigReader.tinkKeyConfigFromJsonString(TestFixtures.CIPHER_DATA_KEYS_CONFIG));
         return List.of(
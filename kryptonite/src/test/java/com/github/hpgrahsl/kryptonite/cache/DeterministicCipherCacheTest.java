@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kryptonite.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.github.hpgrahsl.kryptonite.Kryptonite;
+import com.github.hpgrahsl.kryptonite.Kryptonite.CipherSpec;
+import com.github.hpgrahsl.kryptonite.PayloadMetaData;
+import com.github.hpgrahsl.kryptonite.TestFixtures;
+import com.github.hpgrahsl.kryptonite.config.ConfigReader;
+import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings;
+import com.github.hpgrahsl.kryptonite.crypto.tink.TinkAesGcm;
+import com.github.hpgrahsl.kryptonite.crypto.tink.TinkAesGcmSiv;
+import com.github.hpgrahsl.kryptonite.keys.TinkKeyVault;
+import com.google.crypto.tink.CleartextKeysetHandle;
+import com.google.crypto.tink.JsonKeysetReader;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.daead.DeterministicAeadConfig;
+
+public class DeterministicCipherCacheTest {
+
+  static final byte[] AD = "k103key9".getBytes(StandardCharsets.UTF_8);
+
+  static {
+    try {
+      DeterministicAeadConfig.register();
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Test
+  @DisplayName("repeated encryption / decryption of the same value is served from the cache")
+  void testRepeatedValuesAreCached() throws Exception {
+    var cache = new DeterministicCipherCache(1024 * 1024, 4096);
+    var keysetHandle = readKeysetHandle(TestFixtures.CIPHER_DATA_KEY_CONFIG_KEY_9);
+    var algorithm = new TinkAesGcmSiv();
+    var calls = new AtomicInteger();
+    var plaintext = "AT".getBytes(StandardCharsets.UTF_8);
+
+    var ciphertext = cache.cipher("key9", AD, keysetHandle, plaintext,
+        in -> { calls.incrementAndGet(); return algorithm.cipher(in, keysetHandle, AD); });
+    var again = cache.cipher("key9", AD, keysetHandle, "AT".getBytes(StandardCharsets.UTF_8),
+        in -> { calls.incrementAndGet(); return algorithm.cipher(in, keysetHandle, AD); });
+    var decrypted = cache.decipher("key9", AD, keysetHandle, ciphertext,
+        in -> { calls.incrementAndGet(); return algorithm.decipher(in, keysetHandle, AD); });
+
+    assertArrayEquals(ciphertext, again);
+    assertArrayEquals(plaintext, decrypted);
+    assertEquals(1, calls.get());
+    var stats = cache.stats();
+    assertEquals(2, stats.getHits());
+    assertEquals(1, stats.getMisses());
+  }
+
+  @Test
+  @DisplayName("cache keys take associated data into account")
+  void testDifferentAssociatedDataIsNotShared() throws Exception {
+    var cache = new DeterministicCipherCache(1024 * 1024, 4096);
+    var keysetHandle = readKeysetHandle(TestFixtures.CIPHER_DATA_KEY_CONFIG_KEY_9);
+    var otherAD = "k103key9x".getBytes(StandardCharsets.UTF_8);
+    var algorithm = new TinkAesGcmSiv();
+    var plaintext = "AT".getBytes(StandardCharsets.UTF_8);
+
+    var c1 = cache.cipher("key9", AD, keysetHandle, plaintext, in -> algorithm.cipher(in, keysetHandle, AD));
+    var c2 = cache.cipher("key9", otherAD, keysetHandle, plaintext, in -> algorithm.cipher(in, keysetHandle, otherAD));
+
+    assertArrayEquals(plaintext, algorithm.decipher(c2, keysetHandle, otherAD));
+    assertEquals(0, cache.stats().getHits());
+    assertFalse(Arrays.equals(c1, c2));
+  }
+
+  @Test
+  @DisplayName("least recently used entries are evicted to stay within the max weight")
+  void testEvictionBoundsWeight() throws Exception {
+    var maxWeight = 10 * (DeterministicCipherCache.ENTRY_OVERHEAD_BYTES + 16);
+    var cache = new DeterministicCipherCache(maxWeight, 4096);
+    var keysetHandle = readKeysetHandle(TestFixtures.CIPHER_DATA_KEY_CONFIG_KEY_9);
+    for (int i = 0; i < 100; i++) {
+      var value = ("value-" + i).getBytes(StandardCharsets.UTF_8);
+      cache.cipher("key9", AD, keysetHandle, value, in -> in.clone());
+    }
+    var stats = cache.stats();
+    assertTrue(stats.getWeightBytes() <= maxWeight);
+    assertTrue(stats.getEvictions() > 0);
+  }
+
+  @Test
+  @DisplayName("values exceeding the max entry size are never cached")
+  void testLargeEntriesAreSkipped() throws Exception {
+    var cache = new DeterministicCipherCache(1024 * 1024, 256);
+    var keysetHandle = readKeysetHandle(TestFixtures.CIPHER_DATA_KEY_CONFIG_KEY_9);
+    cache.cipher("key9", AD, keysetHandle, new byte[512], in -> in.clone());
+    assertEquals(0, cache.stats().getEntries());
+  }
+
+  @Test
+  @DisplayName("entries of a key identifier are dropped when it resolves to another keyset handle")
+  void testKeyRotationClearsEntries() throws Exception {
+    var cache = new DeterministicCipherCache(1024 * 1024, 4096);
+    var keysetHandle = readKeysetHandle(TestFixtures.CIPHER_DATA_KEY_CONFIG_KEY_9);
+    var rotatedHandle = readKeysetHandle(TestFixtures.CIPHER_DATA_KEY_CONFIG_KEY_8);
+    var algorithm = new TinkAesGcmSiv();
+    var plaintext = "AT".getBytes(StandardCharsets.UTF_8);
+
+    var original = cache.cipher("key9", AD, keysetHandle, plaintext, in -> algorithm.cipher(in, keysetHandle, AD));
+    var rotated = cache.cipher("key9", AD, rotatedHandle, plaintext, in -> algorithm.cipher(in, rotatedHandle, AD));
+
+    assertArrayEquals(plaintext, algorithm.decipher(rotated, rotatedHandle, AD));
+    assertEquals(0, cache.stats().getHits());
+    assertFalse(Arrays.equals(original, rotated));
+    assertEquals(2, cache.stats().getEntries());
+  }
+
+  @Test
+  @DisplayName("decrypting ciphertexts of a former primary key never affects encryptions with the new primary key")
+  void testPrimaryKeyRotationWithinKeyset() throws Exception {
+    var cache = new DeterministicCipherCache(1024 * 1024, 4096);
+    var keysetHandle = readKeysetHandle(TestFixtures.CIPHER_DATA_KEY_CONFIG_KEY_9);
+    var rotatedHandle = KeysetHandle.newBuilder(keysetHandle)
+        .addEntry(KeysetHandle.generateEntryFromParametersName("AES256_SIV").withRandomId().makePrimary())
+        .build();
+    var algorithm = new TinkAesGcmSiv();
+    var plaintext = "AT".getBytes(StandardCharsets.UTF_8);
+    var formerCiphertext = algorithm.cipher(plaintext, keysetHandle, AD);
+
+    var decrypted = cache.decipher("key9", AD, rotatedHandle, formerCiphertext,
+        in -> algorithm.decipher(in, rotatedHandle, AD));
+    var encrypted = cache.cipher("key9", AD, rotatedHandle, plaintext,
+        in -> algorithm.cipher(in, rotatedHandle, AD));
+
+    assertArrayEquals(plaintext, decrypted);
+    assertFalse(Arrays.equals(formerCiphertext, encrypted));
+    assertArrayEquals(algorithm.cipher(plaintext, rotatedHandle, AD), encrypted);
+    assertEquals(0, cache.stats().getHits());
+  }
+
+  @Test
+  @DisplayName("kryptonite only caches deterministic algorithms and only if enabled")
+  void testKryptoniteCachesDeterministicOnly() {
+    var keyVault = new TinkKeyVault(ConfigReader.tinkKeyConfigFromJsonString(TestFixtures.CIPHER_DATA_KEYS_CONFIG));
+    assertNull(new Kryptonite(keyVault).getCipherCacheStats());
+
+    var kryptonite = new Kryptonite(keyVault, Map.of(KryptoniteSettings.CIPHER_CACHE_MAX_BYTES, "65536"));
+    var sivMetaData = new PayloadMetaData(Kryptonite.KRYPTONITE_VERSION,
+        Kryptonite.CIPHERSPEC_ID_LUT.get(CipherSpec.fromName(TinkAesGcmSiv.CIPHER_ALGORITHM)), "key9");
+    var gcmMetaData = new PayloadMetaData(Kryptonite.KRYPTONITE_VERSION,
+        Kryptonite.CIPHERSPEC_ID_LUT.get(CipherSpec.fromName(TinkAesGcm.CIPHER_ALGORITHM)), "keyA");
+    var plaintext = "kryptonite".getBytes(StandardCharsets.UTF_8);
+
+    for (int i = 0; i < 3; i++) {
+      assertArrayEquals(plaintext, kryptonite.decipherField(kryptonite.cipherField(plaintext, sivMetaData)));
+      assertArrayEquals(plaintext, kryptonite.decipherField(kryptonite.cipherField(plaintext, gcmMetaData)));
+    }
+
+    var stats = kryptonite.getCipherCacheStats();
+    assertEquals(1, stats.getMisses());
+    assertEquals(5, stats.getHits());
+    kryptonite.clearCipherCache();
+    assertEquals(0, kryptonite.getCipherCacheStats().getEntries());
+  }
+
+  static KeysetHandle readKeysetHandle(String jsonKeyset) throws Exception {
+    return CleartextKeysetHandle.read(JsonKeysetReader.withString(jsonKeyset));
+  }
+
+}
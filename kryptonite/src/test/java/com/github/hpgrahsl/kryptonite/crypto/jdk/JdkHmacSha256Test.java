@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2024. Hans-Peter Grahsl (grahslhp@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.hpgrahsl.kryptonite.crypto.jdk;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.github.hpgrahsl.kryptonite.TestFixtures;
+import com.google.crypto.tink.CleartextKeysetHandle;
+import com.google.crypto.tink.JsonKeysetReader;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.aead.AeadConfig;
+import com.google.crypto.tink.daead.DeterministicAeadConfig;
+
+public class JdkHmacSha256Test {
+
+  static {
+    try {
+      AeadConfig.register();
+      DeterministicAeadConfig.register();
+    } catch (GeneralSecurityException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"keyA", "key9"})
+  @DisplayName("apply pseudonymize(plaintext) results in stable fixed-length pseudonyms per keyset")
+  void testPseudonymizeValidInput(String keyId) throws Exception {
+    var keysetHandle = keysetHandleFor(keyId);
+    var otherKeysetHandle = keysetHandleFor("keyA".equals(keyId) ? "keyB" : "key8");
+    var pseudonymizer = new JdkHmacSha256();
+    var plaintext = "some join key".getBytes(StandardCharsets.UTF_8);
+    var pseudonym = pseudonymizer.pseudonymize(plaintext, keysetHandle);
+    assertEquals(JdkHmacSha256.PSEUDONYM_SIZE_BYTES, pseudonym.length);
+    assertArrayEquals(pseudonym, pseudonymizer.pseudonymize(plaintext, keysetHandle));
+    assertArrayEquals(pseudonym, new JdkHmacSha256().pseudonymize(plaintext, keysetHandle));
+    assertEquals(JdkHmacSha256.PSEUDONYM_SIZE_BYTES, pseudonymizer.pseudonymize(new byte[0], keysetHandle).length);
+    assertFalse(Arrays.equals(pseudonym, pseudonymizer.pseudonymize("other join key".getBytes(StandardCharsets.UTF_8), keysetHandle)));
+    assertFalse(Arrays.equals(pseudonym, pseudonymizer.pseudonymize(plaintext, otherKeysetHandle)));
+  }
+
+  static KeysetHandle keysetHandleFor(String keyId) throws Exception {
+    switch (keyId) {
+      case "keyA":
+        return CleartextKeysetHandle.read(JsonKeysetReader.withString(TestFixtures.CIPHER_DATA_KEY_CONFIG_KEY_A));
+      case "keyB":
+        return CleartextKeysetHandle.read(JsonKeysetReader.withString(TestFixtures.CIPHER_DATA_KEY_CONFIG_KEY_B));
+      case "key8":
+        return CleartextKeysetHandle.read(JsonKeysetReader.withString(TestFixtures.CIPHER_DATA_KEY_CONFIG_KEY_8));
+      default:
+        return CleartextKeysetHandle.read(JsonKeysetReader.withString(TestFixtures.CIPHER_DATA_KEY_CONFIG_KEY_9));
+    }
+  }
+
+}
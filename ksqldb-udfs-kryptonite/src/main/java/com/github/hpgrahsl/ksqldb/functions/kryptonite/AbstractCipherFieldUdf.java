@@ -16,8 +16,10 @@
 
 package com.github.hpgrahsl.ksqldb.functions.kryptonite;
 
+import java.lang.ref.Cleaner;
 import java.util.Map;
 import com.github.hpgrahsl.kryptonite.Kryptonite;
+import com.github.hpgrahsl.kryptonite.KryptoniteRegistry;
 import com.github.hpgrahsl.kryptonite.config.KryptoniteSettings;
 import com.github.hpgrahsl.kryptonite.serdes.KryoSerdeProcessor;
 import com.github.hpgrahsl.kryptonite.serdes.SerdeProcessor;
@@ -25,16 +27,36 @@ import static com.github.hpgrahsl.kryptonite.config.KryptoniteSettings.*;
 import static com.github.hpgrahsl.ksqldb.functions.kryptonite.CustomUdfConfig.*;
 
 import io.confluent.ksql.function.udf.UdfDescription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+/**
+ * Base class of the UDFs which share one {@link Kryptonite} instance, i.e. the parsed or fetched keysets together
+ * with the cached primitives, across all UDF instances with the same key-related settings by means of the
+ * {@link KryptoniteRegistry}. Given that ksqlDB never closes UDF instances, their leases are released as soon as
+ * the instances become unreachable.
+ */
 public abstract class AbstractCipherFieldUdf {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractCipherFieldUdf.class);
+    private static final Cleaner CLEANER = Cleaner.create();
+
     private Kryptonite kryptonite;
+    private Cleaner.Cleanable kryptoniteRelease;
     private SerdeProcessor serdeProcessor = new KryoSerdeProcessor();
 
     public Kryptonite getKryptonite() {
         return kryptonite;
     }
 
+    /**
+     * @return the counters of the registry shared by all UDF instances, e.g. to verify how many of them reused an
+     * already existing {@link Kryptonite} instance
+     */
+    public static KryptoniteRegistry.Stats getKryptoniteRegistryStats() {
+        return KryptoniteRegistry.stats();
+    }
+
     public SerdeProcessor getSerdeProcessor() {
         return serdeProcessor;
     }
@@ -73,7 +95,15 @@ public abstract class AbstractCipherFieldUdf {
                 Map.entry(KryptoniteSettings.KEK_CONFIG,kekConfig),
                 Map.entry(KryptoniteSettings.KEK_URI,kekUri)
         );
-        kryptonite = Kryptonite.createFromConfig(normalizedStringsMap);
+        if (kryptoniteRelease != null) {
+            kryptoniteRelease.clean();
+        }
+        var lease = KryptoniteRegistry.acquire(normalizedStringsMap);
+        //NOTE: the cleaning action must not refer to this instance, hence only the lease is captured
+        kryptoniteRelease = CLEANER.register(this, lease::close);
+        kryptonite = lease.kryptonite();
+        LOGGER.info("configured UDF {} with shared kryptonite instance -> registry {}",
+                functionName, KryptoniteRegistry.stats());
     }
 
 }
@@ -27,6 +27,7 @@ import org.apache.kafka.connect.data.SchemaBuilder;
 import org.apache.kafka.connect.data.Struct;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 import org.junit.jupiter.api.function.Executable;
@@ -74,6 +75,30 @@ public class CipherFieldEncryptDecryptUdfFunctionalTest {
                                     keySource, kmsType, kmsConfig, kekType, kekConfig, kekUri);
         }
 
+        @Test
+        @DisplayName("configure UDFs with identical key settings to verify they share one kryptonite instance")
+        void encryptDecryptUdfsShareKryptonite() {
+            var cfeUDF = new CipherFieldEncryptUdf();
+            var fnEncrypt = cfeUDF.getClass().getDeclaredAnnotation(UdfDescription.class).name();
+            var cfdUDF = new CipherFieldDecryptUdf();
+            var fnDecrypt = cfdUDF.getClass().getDeclaredAnnotation(UdfDescription.class).name();
+            var initialStats = AbstractCipherFieldUdf.getKryptoniteRegistryStats();
+
+            cfeUDF.configure(Map.of(
+                    CustomUdfConfig.getPrefixedConfigParam(fnEncrypt, CustomUdfConfig.CONFIG_PARAM_CIPHER_DATA_KEYS),TestFixtures.CIPHER_DATA_KEYS_CONFIG,
+                    CustomUdfConfig.getPrefixedConfigParam(fnEncrypt, CustomUdfConfig.CONFIG_PARAM_CIPHER_DATA_KEY_IDENTIFIER),"keyA"
+            ));
+            cfdUDF.configure(Map.of(
+                    CustomUdfConfig.getPrefixedConfigParam(fnDecrypt, CustomUdfConfig.CONFIG_PARAM_CIPHER_DATA_KEYS),TestFixtures.CIPHER_DATA_KEYS_CONFIG
+            ));
+
+            var stats = AbstractCipherFieldUdf.getKryptoniteRegistryStats();
+            assertAll(
+                    () -> assertSame(cfeUDF.getKryptonite(), cfdUDF.getKryptonite()),
+                    () -> assertTrue(stats.getReused() > initialStats.getReused())
+            );
+        }
+
     }
 
     @Nested